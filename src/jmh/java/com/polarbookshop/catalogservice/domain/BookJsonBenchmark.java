@@ -0,0 +1,62 @@
+package com.polarbookshop.catalogservice.domain;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.polarbookshop.catalogservice.web.BookJsonComponent;
+
+/**
+ * Serialization and deserialization of a {@link Book} with the mapper configuration Spring Boot applies,
+ * the same mapping covered by {@code BookJsonTests}, either through Jackson's reflective record handling
+ * or through {@link BookJsonComponent}. Run with the {@code gc} profiler to compare allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BookJsonBenchmark {
+	@Param({ "reflective", "codec" })
+	private String mapping;
+	
+	private ObjectMapper objectMapper;
+	private Book book;
+	private byte[] json;
+	
+	@Setup
+	public void setUp() throws IOException {
+		Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json()
+			.featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+		if ("codec".equals(this.mapping)) {
+			builder.modulesToInstall(new SimpleModule()
+				.addSerializer(Book.class, new BookJsonComponent.Serializer())
+				.addDeserializer(Book.class, new BookJsonComponent.Deserializer()));
+		}
+		this.objectMapper = builder.build();
+		Instant now = Instant.parse("2021-09-07T22:50:37.135029Z");
+		this.book = new Book(394L, "1234567890", "Title", "Author", 9.90, "Polarsophia", now, now, "jenny", "eline", 21);
+		this.json = this.objectMapper.writeValueAsBytes(this.book);
+	}
+	
+	@Benchmark
+	public byte[] serialize() throws IOException {
+		return this.objectMapper.writeValueAsBytes(this.book);
+	}
+	
+	@Benchmark
+	public Book deserialize() throws IOException {
+		return this.objectMapper.readValue(this.json, Book.class);
+	}
+}
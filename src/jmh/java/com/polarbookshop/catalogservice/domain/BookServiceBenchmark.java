@@ -0,0 +1,73 @@
+package com.polarbookshop.catalogservice.domain;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.data.domain.Slice;
+
+/**
+ * {@link BookService} against an {@link InMemoryBookRepository}, isolating the service logic from the database.
+ * The service is not proxied, so the cache annotations don't apply, while the near cache can be toggled.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BookServiceBenchmark {
+	@Param({ "1000" })
+	private int catalogSize;
+	
+	@Param({ "false", "true" })
+	private boolean nearCache;
+	
+	private BookService bookService;
+	private String isbn;
+	private List<String> isbns;
+	private Book editedBook;
+	
+	@Setup
+	public void setUp() {
+		InMemoryBookRepository bookRepository = InMemoryBookRepository.withBooks(this.catalogSize);
+		BookIsbnFilter isbnFilter = new BookIsbnFilter(bookRepository,
+			new BookChangeNotificationListener(event -> {}, new DataSourceProperties(), false));
+		isbnFilter.build();
+		BookNearCache bookNearCache = new BookNearCache(bookRepository, this.nearCache, Duration.ofSeconds(5));
+		bookNearCache.reload();
+		this.bookService = new BookService(bookRepository, event -> {}, new NoOpCacheManager(),
+			new SingleFlight<>("book", Duration.ofSeconds(2)), isbnFilter, bookNearCache);
+		this.isbn = String.valueOf(1_000_000_000L + this.catalogSize / 2);
+		this.isbns = IntStream.range(0, 50).mapToObj(i -> String.valueOf(1_000_000_000L + i * 7)).toList();
+		this.editedBook = Book.of(this.isbn, "Edited title", "Author", 12.90, "Polarsophia");
+	}
+	
+	@Benchmark
+	public Book viewBookDetails() {
+		return this.bookService.viewBookDetails(this.isbn);
+	}
+	
+	@Benchmark
+	public Slice<Book> viewBookPage() {
+		return this.bookService.viewBookPage(this.catalogSize / 2, 100);
+	}
+	
+	@Benchmark
+	public BookLookupResult lookupBooks() {
+		return this.bookService.lookupBooks(this.isbns);
+	}
+	
+	@Benchmark
+	public Book editBookDetails() {
+		return this.bookService.editBookDetails(this.isbn, this.editedBook);
+	}
+}
@@ -0,0 +1,54 @@
+package com.polarbookshop.catalogservice.domain;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import javax.validation.ValidatorFactory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Bean Validation of a valid book and of one violating every constraint.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BookValidationBenchmark {
+	private ValidatorFactory validatorFactory;
+	private Validator validator;
+	private Book validBook;
+	private Book invalidBook;
+	
+	@Setup
+	public void setUp() {
+		this.validatorFactory = Validation.buildDefaultValidatorFactory();
+		this.validator = this.validatorFactory.getValidator();
+		this.validBook = Book.of("1234567890", "Title", "Author", 9.90, "Polarsophia");
+		this.invalidBook = Book.of("a234567890", "", "", -9.90, "Polarsophia");
+	}
+	
+	@TearDown
+	public void tearDown() {
+		this.validatorFactory.close();
+	}
+	
+	@Benchmark
+	public Set<ConstraintViolation<Book>> validateValidBook() {
+		return this.validator.validate(this.validBook);
+	}
+	
+	@Benchmark
+	public Set<ConstraintViolation<Book>> validateInvalidBook() {
+		return this.validator.validate(this.invalidBook);
+	}
+}
@@ -0,0 +1,204 @@
+package com.polarbookshop.catalogservice.domain;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.StreamSupport;
+
+/**
+ * Map-backed stand-in for {@link BookRepository}, so benchmarks measure the service and web layers
+ * without a database round trip.
+ */
+public class InMemoryBookRepository implements BookRepository {
+	private final ConcurrentSkipListMap<Long, Book> booksById = new ConcurrentSkipListMap<>();
+	private final Map<String, Book> booksByIsbn = new ConcurrentHashMap<>();
+	private final AtomicLong ids = new AtomicLong();
+	
+	public static InMemoryBookRepository withBooks(int count) {
+		InMemoryBookRepository repository = new InMemoryBookRepository();
+		for (int i = 0; i < count; i++) {
+			repository.save(Book.of(String.valueOf(1_000_000_000L + i), "Title " + i, "Author " + (i % 100), 9.90 + i % 50, "Polarsophia"));
+		}
+		return repository;
+	}
+	
+	@Override
+	public <S extends Book> S save(S book) {
+		Instant now = Instant.now();
+		long id = book.id() != null ? book.id() : this.ids.incrementAndGet();
+		Book savedBook = new Book(id, book.isbn(), book.title(), book.author(), book.price(), book.publisher(),
+			book.createdDate() != null ? book.createdDate() : now, now, book.createdBy(), book.lastModifiedBy(), book.version() + 1);
+		this.booksById.put(id, savedBook);
+		this.booksByIsbn.put(savedBook.isbn(), savedBook);
+		@SuppressWarnings("unchecked")
+		S result = (S) savedBook;
+		return result;
+	}
+	
+	@Override
+	public <S extends Book> Iterable<S> saveAll(Iterable<S> books) {
+		List<S> savedBooks = new ArrayList<>();
+		books.forEach(book -> savedBooks.add(save(book)));
+		return savedBooks;
+	}
+	
+	@Override
+	public Optional<Book> findById(Long id) {
+		return Optional.ofNullable(this.booksById.get(id));
+	}
+	
+	@Override
+	public boolean existsById(Long id) {
+		return this.booksById.containsKey(id);
+	}
+	
+	@Override
+	public Iterable<Book> findAll() {
+		return List.copyOf(this.booksById.values());
+	}
+	
+	@Override
+	public Iterable<Book> findAllById(Iterable<Long> ids) {
+		return StreamSupport.stream(ids.spliterator(), false)
+			.map(this.booksById::get)
+			.filter(book -> book != null)
+			.toList();
+	}
+	
+	@Override
+	public long count() {
+		return this.booksById.size();
+	}
+	
+	@Override
+	public void deleteById(Long id) {
+		Book book = this.booksById.remove(id);
+		if (book != null) {
+			this.booksByIsbn.remove(book.isbn());
+		}
+	}
+	
+	@Override
+	public void delete(Book book) {
+		deleteById(book.id());
+	}
+	
+	@Override
+	public void deleteAllById(Iterable<? extends Long> ids) {
+		ids.forEach(this::deleteById);
+	}
+	
+	@Override
+	public void deleteAll(Iterable<? extends Book> books) {
+		books.forEach(this::delete);
+	}
+	
+	@Override
+	public void deleteAll() {
+		this.booksById.clear();
+		this.booksByIsbn.clear();
+	}
+	
+	@Override
+	public Optional<Book> findByIsbn(String isbn) {
+		return Optional.ofNullable(this.booksByIsbn.get(isbn));
+	}
+	
+	@Override
+	public boolean existsByIsbn(String isbn) {
+		return this.booksByIsbn.containsKey(isbn);
+	}
+	
+	@Override
+	public List<Book> findPageAfterId(long afterId, int limit) {
+		return this.booksById.tailMap(afterId, false).values().stream().limit(limit).toList();
+	}
+	
+	@Override
+	public List<Book> findModifiedSince(Instant since) {
+		return this.booksById.values().stream().filter(book -> !book.lastModifiedDate().isBefore(since)).toList();
+	}
+	
+	@Override
+	public long estimateCount() {
+		return count();
+	}
+	
+	@Override
+	public void deleteByIsbn(String isbn) {
+		Book book = this.booksByIsbn.remove(isbn);
+		if (book != null) {
+			this.booksById.remove(book.id());
+		}
+	}
+	
+	@Override
+	public void streamAll(int fetchSize, Consumer<Book> action) {
+		this.booksById.values().forEach(action);
+	}
+	
+	@Override
+	public List<Book> findAllByIsbn(Collection<String> isbns) {
+		return isbns.stream().map(this.booksByIsbn::get).filter(book -> book != null).toList();
+	}
+	
+	@Override
+	public Optional<BookVersion> findVersionByIsbn(String isbn) {
+		return findByIsbn(isbn).map(book -> new BookVersion(book.id(), book.version()));
+	}
+	
+	@Override
+	public List<BookChange> findChangesAfter(long sequence, Duration settleTime, int limit) {
+		// Ids stand in for change sequences; deletions aren't tracked
+		return this.booksById.tailMap(sequence, false).values().stream()
+			.limit(limit)
+			.map(book -> new BookChange(book.id(), BookChangeType.UPDATED, book.isbn(), book))
+			.toList();
+	}
+	
+	@Override
+	public List<BookSearchHit> search(String query, Float afterRank, long afterId, int limit) {
+		String term = query.toLowerCase(Locale.ROOT);
+		return this.booksById.tailMap(afterRank != null ? afterId : 0L, false).values().stream()
+			.filter(book -> book.title().toLowerCase(Locale.ROOT).contains(term)
+				|| book.author().toLowerCase(Locale.ROOT).contains(term))
+			.limit(limit)
+			.map(book -> new BookSearchHit(book, 1.0f))
+			.toList();
+	}
+	
+	@Override
+	public Optional<Book> insertIfAbsent(Book book) {
+		if (existsByIsbn(book.isbn())) {
+			return Optional.empty();
+		}
+		return Optional.of(save(book));
+	}
+	
+	@Override
+	public Optional<Book> updateByIsbn(String isbn, Book book) {
+		return findByIsbn(isbn).map(existingBook -> save(new Book(existingBook.id(), existingBook.isbn(), book.title(),
+			book.author(), book.price(), book.publisher(), existingBook.createdDate(), null,
+			existingBook.createdBy(), book.lastModifiedBy(), existingBook.version())));
+	}
+	
+	@Override
+	public Set<String> insertAll(List<Book> books) {
+		Set<String> inserted = new LinkedHashSet<>();
+		for (Book book : books) {
+			insertIfAbsent(book).ifPresent(savedBook -> inserted.add(savedBook.isbn()));
+		}
+		return inserted;
+	}
+}
@@ -0,0 +1,77 @@
+package com.polarbookshop.catalogservice.web;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.ByteArrayHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.polarbookshop.catalogservice.config.PolarProperties;
+import com.polarbookshop.catalogservice.domain.BookChangeNotificationListener;
+import com.polarbookshop.catalogservice.domain.BookIsbnFilter;
+import com.polarbookshop.catalogservice.domain.BookNearCache;
+import com.polarbookshop.catalogservice.domain.BookService;
+import com.polarbookshop.catalogservice.domain.InMemoryBookRepository;
+import com.polarbookshop.catalogservice.domain.SingleFlight;
+
+/**
+ * Request dispatch through {@link BookController}, including argument resolution and rendering,
+ * without the servlet container, the security filter chain and the database. Books and pages are
+ * served from the {@link BookRepresentationCache} after the first invocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BookControllerBenchmark {
+	private MockMvc mockMvc;
+	
+	@Setup
+	public void setUp() {
+		ObjectMapper objectMapper = ObjectMapperBuilders.likeBoot().build();
+		InMemoryBookRepository bookRepository = InMemoryBookRepository.withBooks(1000);
+		BookIsbnFilter isbnFilter = new BookIsbnFilter(bookRepository,
+			new BookChangeNotificationListener(event -> {}, new DataSourceProperties(), false));
+		isbnFilter.build();
+		BookService bookService = new BookService(bookRepository, event -> {}, new NoOpCacheManager(),
+			new SingleFlight<>("book", Duration.ofSeconds(2)), isbnFilter, new BookNearCache(bookRepository, false, Duration.ZERO));
+		PolarProperties polarProperties = new PolarProperties();
+		BookRepresentationCache representationCache = new BookRepresentationCache(polarProperties, objectMapper);
+		this.mockMvc = MockMvcBuilders
+			.standaloneSetup(new BookController(bookService, polarProperties, representationCache,
+				new BinaryFormats(ObjectMapperBuilders.likeBoot()), objectMapper))
+			.setControllerAdvice(new BookControllerAdvice())
+			.setMessageConverters(new ByteArrayHttpMessageConverter(), new MappingJackson2HttpMessageConverter(objectMapper))
+			.build();
+	}
+	
+	@Benchmark
+	public MvcResult getByIsbn() throws Exception {
+		return this.mockMvc.perform(get("/books/1000000500").accept(MediaType.APPLICATION_JSON)).andReturn();
+	}
+	
+	@Benchmark
+	public MvcResult getPage() throws Exception {
+		return this.mockMvc.perform(get("/books").param("limit", "20").accept(MediaType.APPLICATION_JSON)).andReturn();
+	}
+	
+	@Benchmark
+	public MvcResult getMissingBook() throws Exception {
+		return this.mockMvc.perform(get("/books/9999999999").accept(MediaType.APPLICATION_JSON)).andReturn();
+	}
+}
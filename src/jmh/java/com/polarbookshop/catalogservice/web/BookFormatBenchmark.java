@@ -0,0 +1,108 @@
+package com.polarbookshop.catalogservice.web;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.polarbookshop.catalogservice.domain.Book;
+
+/**
+ * Encoding and decoding of a page of books in each format {@link BookController} negotiates,
+ * with the mappers configured as in the application. The payload size of every format is reported
+ * as the {@code payloadBytes} secondary result, next to the timings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BookFormatBenchmark {
+	private static final TypeReference<List<Book>> BOOK_LIST = new TypeReference<>() {};
+	
+	@Param({ "json", "cbor", "smile", "protobuf" })
+	private String format;
+	
+	@Param({ "100" })
+	private int books;
+	
+	private List<Book> page;
+	private ObjectWriter writer;
+	private ObjectReader reader;
+	private byte[] payload;
+	
+	@Setup
+	public void setUp() throws IOException {
+		BinaryFormats binaryFormats = new BinaryFormats(ObjectMapperBuilders.likeBoot());
+		ObjectMapper objectMapper = switch (this.format) {
+			case "cbor" -> binaryFormats.getCborMapper();
+			case "smile" -> binaryFormats.getSmileMapper();
+			default -> ObjectMapperBuilders.likeBoot().build();
+		};
+		this.writer = objectMapper.writerFor(BOOK_LIST);
+		this.reader = objectMapper.readerFor(BOOK_LIST);
+		Instant created = Instant.parse("2021-09-07T22:50:37.135029Z");
+		this.page = new ArrayList<>(this.books);
+		for (int i = 0; i < this.books; i++) {
+			Instant modified = created.plusSeconds(i * 3600L);
+			this.page.add(new Book(1000L + i, String.valueOf(1234567890L + i), "Title " + i, "Author " + (i % 7),
+				9.90 + i, "Polarsophia", created, modified, "jenny", "eline", 1 + i % 5));
+		}
+		this.payload = encodePage();
+	}
+	
+	@Benchmark
+	public byte[] encode(PayloadSize payloadSize) throws IOException {
+		return encodePage();
+	}
+	
+	@Benchmark
+	public List<Book> decode(PayloadSize payloadSize) throws IOException {
+		if (!"protobuf".equals(this.format)) {
+			return this.reader.readValue(this.payload);
+		}
+		return BookProtobuf.readBookList(CodedInputStream.newInstance(this.payload));
+	}
+	
+	private byte[] encodePage() throws IOException {
+		if (!"protobuf".equals(this.format)) {
+			return this.writer.writeValueAsBytes(this.page);
+		}
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(this.books * 96);
+		CodedOutputStream output = CodedOutputStream.newInstance(bytes);
+		BookProtobuf.writeBookList(output, this.page);
+		output.flush();
+		return bytes.toByteArray();
+	}
+	
+	/**
+	 * Counters are summed over the threads, so the size reads right with the default single thread.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class PayloadSize {
+		public long payloadBytes;
+		
+		@Setup(Level.Iteration)
+		public void setUp(BookFormatBenchmark benchmark) {
+			this.payloadBytes = benchmark.payload.length;
+		}
+	}
+}
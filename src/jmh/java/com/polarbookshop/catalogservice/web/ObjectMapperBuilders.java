@@ -0,0 +1,27 @@
+package com.polarbookshop.catalogservice.web;
+
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.polarbookshop.catalogservice.domain.Book;
+
+/**
+ * Object mapper builders configured like the one Spring Boot provides to the application, so
+ * benchmarks measure the mapping actually used in production.
+ */
+final class ObjectMapperBuilders {
+	private ObjectMapperBuilders() {
+	}
+	
+	/**
+	 * ISO-8601 dates and the {@link BookJsonComponent} codec, as Boot configures them.
+	 */
+	static Jackson2ObjectMapperBuilder likeBoot() {
+		return Jackson2ObjectMapperBuilder.json()
+			.featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+			.modulesToInstall(new SimpleModule()
+				.addSerializer(Book.class, new BookJsonComponent.Serializer())
+				.addDeserializer(Book.class, new BookJsonComponent.Deserializer()));
+	}
+}
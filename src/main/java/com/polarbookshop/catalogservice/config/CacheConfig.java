@@ -0,0 +1,17 @@
+package com.polarbookshop.catalogservice.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.polarbookshop.catalogservice.domain.Book;
+import com.polarbookshop.catalogservice.domain.SingleFlight;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+	@Bean
+	SingleFlight<String, Book> bookLoads(PolarProperties polarProperties) {
+		return new SingleFlight<>("book", polarProperties.getCoalescing().getTimeout());
+	}
+}
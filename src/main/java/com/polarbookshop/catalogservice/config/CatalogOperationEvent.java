@@ -0,0 +1,38 @@
+package com.polarbookshop.catalogservice.config;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event for a {@code BookService} call, with the share of its duration spent in
+ * {@code BookRepository} calls.
+ */
+@Name("polar.CatalogOperation")
+@Label("Catalog Operation")
+@Category({ "Polar", "Catalog" })
+@Description("Call to the book service")
+@StackTrace(false)
+class CatalogOperationEvent extends Event {
+	@Label("Operation")
+	String operation;
+	
+	@Label("ISBN")
+	String isbn;
+	
+	@Label("Rows")
+	@Description("Books, changes or search hits returned")
+	int rows;
+	
+	@Label("Database Time")
+	@Description("Time spent in repository calls, including the wait for a connection")
+	@Timespan(Timespan.NANOSECONDS)
+	long dbTime;
+	
+	@Label("Outcome")
+	String outcome;
+}
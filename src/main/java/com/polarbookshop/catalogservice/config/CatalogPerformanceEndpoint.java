@@ -0,0 +1,103 @@
+package com.polarbookshop.catalogservice.config;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.CountAtBucket;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+
+/**
+ * Summary of the catalog operation meters, busiest operation first, for a quick look without a
+ * monitoring system at hand. Percentiles are the upper bounds of the histogram buckets they fall
+ * into, so they are only reported for timers publishing a histogram.
+ */
+@Endpoint(id = "catalogperf")
+public class CatalogPerformanceEndpoint {
+	private final MeterRegistry meterRegistry;
+	
+	public CatalogPerformanceEndpoint(MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+	}
+	
+	@ReadOperation
+	public Map<String, OperationSummary> operations() {
+		Map<String, Timer> connectionWaits = new TreeMap<>();
+		for (Timer timer : this.meterRegistry.find(CatalogOperationInterceptor.CONNECTION_WAIT_TIMER).timers()) {
+			connectionWaits.put(key(timer.getId().getTag("component"), timer.getId().getTag("operation")), timer);
+		}
+		Map<String, Map<String, Long>> outcomes = new TreeMap<>();
+		for (Counter counter : this.meterRegistry.find(CatalogOperationInterceptor.OUTCOME_COUNTER).counters()) {
+			outcomes.computeIfAbsent(key(counter.getId().getTag("component"), counter.getId().getTag("operation")), k -> new TreeMap<>())
+				.put(counter.getId().getTag("outcome"), (long) counter.count());
+		}
+		
+		List<Timer> timers = this.meterRegistry.find(CatalogOperationInterceptor.OPERATION_TIMER).timers().stream()
+			.filter(timer -> timer.count() > 0)
+			.sorted(Comparator.comparingDouble((Timer timer) -> timer.totalTime(TimeUnit.MILLISECONDS)).reversed())
+			.toList();
+		Map<String, OperationSummary> summaries = new LinkedHashMap<>();
+		for (Timer timer : timers) {
+			String key = key(timer.getId().getTag("component"), timer.getId().getTag("operation"));
+			HistogramSnapshot snapshot = timer.takeSnapshot();
+			Timer connectionWait = connectionWaits.get(key);
+			summaries.put(key, new OperationSummary(
+				snapshot.count(),
+				snapshot.total(TimeUnit.MILLISECONDS),
+				snapshot.mean(TimeUnit.MILLISECONDS),
+				snapshot.max(TimeUnit.MILLISECONDS),
+				percentile(snapshot, 0.5),
+				percentile(snapshot, 0.95),
+				percentile(snapshot, 0.99),
+				connectionWait != null ? connectionWait.mean(TimeUnit.MILLISECONDS) : 0,
+				connectionWait != null ? connectionWait.max(TimeUnit.MILLISECONDS) : 0,
+				outcomes.getOrDefault(key, Map.of())
+			));
+		}
+		return summaries;
+	}
+	
+	// Bucket counts are cumulative, as with the Prometheus registry
+	static Double percentile(HistogramSnapshot snapshot, double quantile) {
+		CountAtBucket[] buckets = snapshot.histogramCounts();
+		if (buckets.length == 0 || snapshot.count() == 0) {
+			return null;
+		}
+		double rank = quantile * snapshot.count();
+		for (CountAtBucket bucket : buckets) {
+			if (bucket.count() >= rank) {
+				return bucket.bucket(TimeUnit.MILLISECONDS);
+			}
+		}
+		return snapshot.max(TimeUnit.MILLISECONDS);
+	}
+	
+	private static String key(String component, String operation) {
+		return component + "." + operation;
+	}
+	
+	/**
+	 * Times in milliseconds; percentiles are {@code null} without a histogram.
+	 */
+	public record OperationSummary(
+		long count,
+		double totalMs,
+		double meanMs,
+		double maxMs,
+		Double p50Ms,
+		Double p95Ms,
+		Double p99Ms,
+		double connectionWaitMeanMs,
+		double connectionWaitMaxMs,
+		Map<String, Long> failures
+	) {}
+}
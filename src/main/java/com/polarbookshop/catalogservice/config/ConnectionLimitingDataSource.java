@@ -0,0 +1,120 @@
+package com.polarbookshop.catalogservice.config;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Bounds the number of threads that hold or wait for a pooled connection. With virtual threads
+ * thousands of requests may ask for a connection at once; they queue here in arrival order instead
+ * of crowding the pool and failing on its connection timeout.
+ */
+public class ConnectionLimitingDataSource extends DelegatingDataSource {
+	private final Semaphore permits;
+	private final int maxPermits;
+	private final Duration acquireTimeout;
+	
+	public ConnectionLimitingDataSource(DataSource targetDataSource, int maxPermits, Duration acquireTimeout) {
+		super(targetDataSource);
+		this.permits = new Semaphore(maxPermits, true);
+		this.maxPermits = maxPermits;
+		this.acquireTimeout = acquireTimeout;
+	}
+	
+	@Override
+	public Connection getConnection() throws SQLException {
+		acquirePermit();
+		try {
+			return releasingOnClose(super.getConnection());
+		} catch (SQLException | RuntimeException ex) {
+			this.permits.release();
+			throw ex;
+		}
+	}
+	
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		acquirePermit();
+		try {
+			return releasingOnClose(super.getConnection(username, password));
+		} catch (SQLException | RuntimeException ex) {
+			this.permits.release();
+			throw ex;
+		}
+	}
+	
+	/**
+	 * Number of threads currently waiting for a connection permit.
+	 */
+	public int getQueueLength() {
+		return this.permits.getQueueLength();
+	}
+	
+	/**
+	 * Number of threads allowed to hold or acquire a pooled connection at once.
+	 */
+	public int getMaxPermits() {
+		return this.maxPermits;
+	}
+	
+	/**
+	 * Number of connection permits currently held.
+	 */
+	public int getActivePermits() {
+		return this.maxPermits - this.permits.availablePermits();
+	}
+	
+	private void acquirePermit() throws SQLException {
+		try {
+			if (!this.permits.tryAcquire(this.acquireTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+				throw new SQLTransientConnectionException("No connection permit available after "
+					+ this.acquireTimeout.toMillis() + "ms (" + getQueueLength() + " threads waiting).");
+			}
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new SQLTransientConnectionException("Interrupted while waiting for a connection permit.", ex);
+		}
+	}
+	
+	private Connection releasingOnClose(Connection target) {
+		AtomicBoolean released = new AtomicBoolean();
+		return (Connection) Proxy.newProxyInstance(ConnectionProxy.class.getClassLoader(),
+			new Class<?>[] { ConnectionProxy.class },
+			(proxy, method, args) -> {
+				switch (method.getName()) {
+					case "getTargetConnection":
+						return target;
+					case "equals":
+						return proxy == args[0];
+					case "hashCode":
+						return System.identityHashCode(proxy);
+					case "close":
+						try {
+							target.close();
+						} finally {
+							if (released.compareAndSet(false, true)) {
+								this.permits.release();
+							}
+						}
+						return null;
+					default:
+						try {
+							return method.invoke(target, args);
+						} catch (InvocationTargetException ex) {
+							throw ex.getTargetException();
+						}
+				}
+			});
+	}
+}
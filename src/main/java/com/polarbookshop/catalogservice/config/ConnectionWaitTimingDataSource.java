@@ -0,0 +1,40 @@
+package com.polarbookshop.catalogservice.config;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Reports how long each connection took to obtain to the operation that asked for it.
+ */
+class ConnectionWaitTimingDataSource extends DelegatingDataSource {
+	private final CatalogOperationInterceptor operations;
+	
+	ConnectionWaitTimingDataSource(DataSource targetDataSource, CatalogOperationInterceptor operations) {
+		super(targetDataSource);
+		this.operations = operations;
+	}
+	
+	@Override
+	public Connection getConnection() throws SQLException {
+		long start = System.nanoTime();
+		try {
+			return super.getConnection();
+		} finally {
+			this.operations.recordConnectionWait(System.nanoTime() - start);
+		}
+	}
+	
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		long start = System.nanoTime();
+		try {
+			return super.getConnection(username, password);
+		} finally {
+			this.operations.recordConnectionWait(System.nanoTime() - start);
+		}
+	}
+}
@@ -2,6 +2,7 @@ package com.polarbookshop.catalogservice.config;
 
 import java.util.Optional;
 
+import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.domain.AuditorAware;
@@ -10,6 +11,9 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 
+import com.polarbookshop.catalogservice.domain.BookChangeNotificationListener;
+import com.zaxxer.hikari.HikariDataSource;
+
 @Configuration
 @EnableJdbcAuditing
 public class DataConfig {
@@ -21,4 +25,24 @@ public class DataConfig {
 			.filter(Authentication::isAuthenticated)
 			.map(Authentication::getName);
 	}
+
+	@Bean
+	static BeanPostProcessor originTaggingPostProcessor() {
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessBeforeInitialization(Object bean, String beanName) {
+				if (bean instanceof HikariDataSource pool) {
+					tagOrigin(pool);
+				}
+				return bean;
+			}
+		};
+	}
+
+	/**
+	 * Names the pool's connections after this instance, so the change notifications they cause can be told apart.
+	 */
+	static void tagOrigin(HikariDataSource pool) {
+		pool.addDataSourceProperty("ApplicationName", BookChangeNotificationListener.ORIGIN);
+	}
 }
@@ -0,0 +1,158 @@
+package com.polarbookshop.catalogservice.config;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+
+/**
+ * Starts, stops and downloads a time-boxed Flight Recorder recording, as a lighter alternative to
+ * heap dumps when investigating latency. Recordings use a low-overhead settings profile plus the
+ * catalog events, and stop by themselves once their duration elapses. One recording runs at a
+ * time; it stays available for download until the next one starts.
+ */
+@Endpoint(id = "jfr")
+public class FlightRecorderEndpoint implements DisposableBean {
+	private static final String[] CATALOG_EVENTS = { "polar.CatalogOperation", "polar.CatalogSerialization" };
+	// Another recording is running, which retrying does not help with
+	static final int STATUS_CONFLICT = 409;
+	
+	private final PolarProperties.FlightRecorder properties;
+	private Recording recording;
+	
+	public FlightRecorderEndpoint(PolarProperties.FlightRecorder properties) {
+		this.properties = properties;
+	}
+	
+	@ReadOperation
+	public synchronized RecordingDescriptor recording() {
+		return this.recording != null ? RecordingDescriptor.of(this.recording) : null;
+	}
+	
+	@WriteOperation
+	public synchronized WebEndpointResponse<RecordingDescriptor> start(@Nullable Duration duration) {
+		if (this.recording != null && this.recording.getState() == RecordingState.RUNNING) {
+			return new WebEndpointResponse<>(RecordingDescriptor.of(this.recording), STATUS_CONFLICT);
+		}
+		Duration requestedDuration = duration != null ? duration : this.properties.getDefaultDuration();
+		if (requestedDuration.isNegative() || requestedDuration.isZero() || requestedDuration.compareTo(this.properties.getMaxDuration()) > 0) {
+			return new WebEndpointResponse<>(WebEndpointResponse.STATUS_BAD_REQUEST);
+		}
+		if (this.recording != null) {
+			this.recording.close();
+		}
+		Recording newRecording = new Recording(settings());
+		newRecording.setName("catalog-" + Instant.now());
+		for (String event : CATALOG_EVENTS) {
+			newRecording.enable(event);
+		}
+		newRecording.setDuration(requestedDuration);
+		newRecording.setMaxSize(this.properties.getMaxSize().toBytes());
+		newRecording.setToDisk(true);
+		newRecording.start();
+		this.recording = newRecording;
+		return new WebEndpointResponse<>(RecordingDescriptor.of(newRecording));
+	}
+	
+	@DeleteOperation
+	public synchronized RecordingDescriptor stop() {
+		if (this.recording == null) {
+			return null;
+		}
+		if (this.recording.getState() == RecordingState.RUNNING) {
+			this.recording.stop();
+		}
+		return RecordingDescriptor.of(this.recording);
+	}
+	
+	/**
+	 * Dumps the recording, as recorded so far if it is still running.
+	 */
+	@ReadOperation(produces = "application/octet-stream")
+	public synchronized Resource download(@Selector long id) throws IOException {
+		if (this.recording == null || this.recording.getId() != id || this.recording.getState() == RecordingState.NEW) {
+			return null;
+		}
+		Path file = Files.createTempFile("catalog-recording-", ".jfr");
+		try {
+			this.recording.dump(file);
+		} catch (IOException | RuntimeException ex) {
+			Files.deleteIfExists(file);
+			throw ex;
+		}
+		return new TemporaryFileResource(file);
+	}
+	
+	@Override
+	public synchronized void destroy() {
+		if (this.recording != null) {
+			this.recording.close();
+		}
+	}
+	
+	private Configuration settings() {
+		try {
+			return Configuration.getConfiguration(this.properties.getSettings());
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		} catch (ParseException ex) {
+			throw new IllegalStateException("Invalid Flight Recorder settings " + this.properties.getSettings(), ex);
+		}
+	}
+	
+	public record RecordingDescriptor(long id, String name, String state, Instant startTime, Duration duration, long size) {
+		static RecordingDescriptor of(Recording recording) {
+			return new RecordingDescriptor(recording.getId(), recording.getName(), recording.getState().name(),
+				recording.getStartTime(), recording.getDuration(), recording.getSize());
+		}
+	}
+	
+	/**
+	 * Deleted once downloaded, like heap dumps.
+	 */
+	private static class TemporaryFileResource extends FileSystemResource {
+		TemporaryFileResource(Path file) {
+			super(file);
+		}
+		
+		@Override
+		public boolean isFile() {
+			// Keeps the file from being served through a channel, which would skip the deletion
+			return false;
+		}
+		
+		@Override
+		public InputStream getInputStream() throws IOException {
+			return new FilterInputStream(super.getInputStream()) {
+				@Override
+				public void close() throws IOException {
+					try {
+						super.close();
+					} finally {
+						Files.deleteIfExists(getFile().toPath());
+					}
+				}
+			};
+		}
+	}
+}
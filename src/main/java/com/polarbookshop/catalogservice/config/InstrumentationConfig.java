@@ -0,0 +1,92 @@
+package com.polarbookshop.catalogservice.config;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import javax.sql.DataSource;
+
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.actuate.autoconfigure.endpoint.condition.ConditionalOnAvailableEndpoint;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.polarbookshop.catalogservice.domain.BookRepository;
+import com.polarbookshop.catalogservice.domain.BookService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Instruments the {@code BookService} and {@code BookRepository} hot paths. The advisor is picked
+ * up by the proxy creator already handling caching and transactions, ahead of their advisors, so
+ * timings include cache hits and transaction overhead. Histograms and SLO buckets are configured
+ * under {@code management.metrics.distribution}.
+ */
+@Configuration(proxyBeanMethods = false)
+public class InstrumentationConfig {
+	@Bean
+	@Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+	static CatalogOperationInterceptor catalogOperationInterceptor(ObjectProvider<MeterRegistry> meterRegistry) {
+		return new CatalogOperationInterceptor(meterRegistry);
+	}
+	
+	@Bean
+	@Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+	static Advisor catalogOperationAdvisor(CatalogOperationInterceptor catalogOperationInterceptor) {
+		StaticMethodMatcherPointcut pointcut = new StaticMethodMatcherPointcut() {
+			@Override
+			public boolean matches(Method method, Class<?> targetClass) {
+				Class<?> declaringClass = method.getDeclaringClass();
+				if (declaringClass == Object.class || !Modifier.isPublic(method.getModifiers())) {
+					return false;
+				}
+				return declaringClass == BookService.class
+					|| (declaringClass.isInterface() && declaringClass.isAssignableFrom(BookRepository.class));
+			}
+		};
+		pointcut.setClassFilter(type -> BookService.class.isAssignableFrom(type) || BookRepository.class.isAssignableFrom(type));
+		DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(pointcut, catalogOperationInterceptor);
+		advisor.setOrder(Ordered.HIGHEST_PRECEDENCE);
+		return advisor;
+	}
+	
+	@Bean
+	static BeanPostProcessor connectionWaitTimingDataSourcePostProcessor(ObjectProvider<CatalogOperationInterceptor> catalogOperationInterceptor) {
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				if (!(bean instanceof DataSource dataSource)
+						|| VirtualThreadsConfig.unwrap(dataSource, ConnectionWaitTimingDataSource.class) != null) {
+					return bean;
+				}
+				LazyConnectionDataSourceProxy lazyDataSource = VirtualThreadsConfig.unwrap(dataSource, LazyConnectionDataSourceProxy.class);
+				if (lazyDataSource != null) {
+					// Connections are only fetched from the target, on the first statement
+					lazyDataSource.setTargetDataSource(new ConnectionWaitTimingDataSource(
+						lazyDataSource.getTargetDataSource(), catalogOperationInterceptor.getObject()));
+					return bean;
+				}
+				return new ConnectionWaitTimingDataSource(dataSource, catalogOperationInterceptor.getObject());
+			}
+		};
+	}
+	
+	@Bean
+	@ConditionalOnAvailableEndpoint
+	CatalogPerformanceEndpoint catalogPerformanceEndpoint(MeterRegistry meterRegistry) {
+		return new CatalogPerformanceEndpoint(meterRegistry);
+	}
+	
+	@Bean
+	@ConditionalOnAvailableEndpoint
+	FlightRecorderEndpoint flightRecorderEndpoint(PolarProperties polarProperties) {
+		return new FlightRecorderEndpoint(polarProperties.getFlightRecorder());
+	}
+}
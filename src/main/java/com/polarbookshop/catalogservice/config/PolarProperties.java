@@ -1,6 +1,11 @@
 package com.polarbookshop.catalogservice.config;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
 
 @ConfigurationProperties(prefix = "polar")
 public class PolarProperties {
@@ -9,6 +14,34 @@ public class PolarProperties {
 	 */
 	private String greeting;
 
+	private final Pagination pagination = new Pagination();
+
+	private final Export export = new Export();
+
+	private final HttpCache httpCache = new HttpCache();
+
+	private final BulkImport bulkImport = new BulkImport();
+
+	private final Suggestions suggestions = new Suggestions();
+
+	private final Lookup lookup = new Lookup();
+
+	private final VirtualThreads virtualThreads = new VirtualThreads();
+
+	private final DataGenerator dataGenerator = new DataGenerator();
+
+	private final Coalescing coalescing = new Coalescing();
+
+	private final ChangeFeed changeFeed = new ChangeFeed();
+
+	private final Events events = new Events();
+
+	private final ResponseCache responseCache = new ResponseCache();
+
+	private final Replicas replicas = new Replicas();
+
+	private final FlightRecorder flightRecorder = new FlightRecorder();
+
 	public String getGreeting() {
 		return greeting;
 	}
@@ -16,4 +49,530 @@ public class PolarProperties {
 	public void setGreeting(String greeting) {
 		this.greeting = greeting;
 	}
+
+	public Pagination getPagination() {
+		return pagination;
+	}
+
+	public Export getExport() {
+		return export;
+	}
+
+	public HttpCache getHttpCache() {
+		return httpCache;
+	}
+
+	public BulkImport getBulkImport() {
+		return bulkImport;
+	}
+
+	public Suggestions getSuggestions() {
+		return suggestions;
+	}
+
+	public Lookup getLookup() {
+		return lookup;
+	}
+
+	public VirtualThreads getVirtualThreads() {
+		return virtualThreads;
+	}
+
+	public DataGenerator getDataGenerator() {
+		return dataGenerator;
+	}
+
+	public Coalescing getCoalescing() {
+		return coalescing;
+	}
+
+	public ChangeFeed getChangeFeed() {
+		return changeFeed;
+	}
+
+	public Events getEvents() {
+		return events;
+	}
+
+	public ResponseCache getResponseCache() {
+		return responseCache;
+	}
+
+	public Replicas getReplicas() {
+		return replicas;
+	}
+
+	public FlightRecorder getFlightRecorder() {
+		return flightRecorder;
+	}
+
+	public static class Pagination {
+		/**
+		 * Number of books returned per page when the client doesn't ask for a limit.
+		 */
+		private int defaultLimit = 100;
+
+		/**
+		 * Upper bound for the number of books returned per page.
+		 */
+		private int maxLimit = 1000;
+
+		public int getDefaultLimit() {
+			return defaultLimit;
+		}
+
+		public void setDefaultLimit(int defaultLimit) {
+			this.defaultLimit = defaultLimit;
+		}
+
+		public int getMaxLimit() {
+			return maxLimit;
+		}
+
+		public void setMaxLimit(int maxLimit) {
+			this.maxLimit = maxLimit;
+		}
+	}
+
+	public static class Export {
+		/**
+		 * Number of rows fetched per round trip when streaming the whole catalog.
+		 */
+		private int fetchSize = 1000;
+
+		public int getFetchSize() {
+			return fetchSize;
+		}
+
+		public void setFetchSize(int fetchSize) {
+			this.fetchSize = fetchSize;
+		}
+	}
+
+	public static class HttpCache {
+		/**
+		 * How long clients and proxies may reuse a book response without revalidating it.
+		 */
+		private Duration maxAge = Duration.ofSeconds(10);
+
+		/**
+		 * How long a stale book response may still be served while it is revalidated in the background.
+		 */
+		private Duration staleWhileRevalidate = Duration.ofSeconds(60);
+
+		public Duration getMaxAge() {
+			return maxAge;
+		}
+
+		public void setMaxAge(Duration maxAge) {
+			this.maxAge = maxAge;
+		}
+
+		public Duration getStaleWhileRevalidate() {
+			return staleWhileRevalidate;
+		}
+
+		public void setStaleWhileRevalidate(Duration staleWhileRevalidate) {
+			this.staleWhileRevalidate = staleWhileRevalidate;
+		}
+	}
+
+	public static class BulkImport {
+		/**
+		 * Number of books written to the database in a single statement during bulk imports.
+		 */
+		private int batchSize = 500;
+
+		public int getBatchSize() {
+			return batchSize;
+		}
+
+		public void setBatchSize(int batchSize) {
+			this.batchSize = batchSize;
+		}
+	}
+
+	public static class Suggestions {
+		/**
+		 * Number of suggestions returned when the client doesn't ask for a limit.
+		 */
+		private int defaultLimit = 10;
+
+		/**
+		 * Upper bound for the number of suggestions returned.
+		 */
+		private int maxLimit = 50;
+
+		public int getDefaultLimit() {
+			return defaultLimit;
+		}
+
+		public void setDefaultLimit(int defaultLimit) {
+			this.defaultLimit = defaultLimit;
+		}
+
+		public int getMaxLimit() {
+			return maxLimit;
+		}
+
+		public void setMaxLimit(int maxLimit) {
+			this.maxLimit = maxLimit;
+		}
+	}
+
+	public static class Lookup {
+		/**
+		 * Maximum number of ISBNs that can be resolved in a single multi-get request.
+		 */
+		private int maxIsbns = 100;
+
+		public int getMaxIsbns() {
+			return maxIsbns;
+		}
+
+		public void setMaxIsbns(int maxIsbns) {
+			this.maxIsbns = maxIsbns;
+		}
+	}
+
+	public static class VirtualThreads {
+		/**
+		 * Whether servlet requests run on virtual threads. Requires a Java 21 or later runtime.
+		 */
+		private boolean enabled = false;
+
+		/**
+		 * Number of threads allowed to hold or wait for a pooled connection at once. Defaults to the pool size.
+		 */
+		private Integer connectionPermits;
+
+		/**
+		 * How long a thread may queue for a connection permit before the request fails.
+		 */
+		private Duration connectionAcquireTimeout = Duration.ofSeconds(30);
+
+		/**
+		 * Minimum time a virtual thread must stay pinned to its carrier to be recorded.
+		 */
+		private Duration pinnedThreshold = Duration.ofMillis(20);
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public Integer getConnectionPermits() {
+			return connectionPermits;
+		}
+
+		public void setConnectionPermits(Integer connectionPermits) {
+			this.connectionPermits = connectionPermits;
+		}
+
+		public Duration getConnectionAcquireTimeout() {
+			return connectionAcquireTimeout;
+		}
+
+		public void setConnectionAcquireTimeout(Duration connectionAcquireTimeout) {
+			this.connectionAcquireTimeout = connectionAcquireTimeout;
+		}
+
+		public Duration getPinnedThreshold() {
+			return pinnedThreshold;
+		}
+
+		public void setPinnedThreshold(Duration pinnedThreshold) {
+			this.pinnedThreshold = pinnedThreshold;
+		}
+	}
+
+	public static class DataGenerator {
+		/**
+		 * Number of books generated when the "perfdata" profile is active.
+		 */
+		private int books = 1_000_000;
+
+		/**
+		 * Seed of the generated catalog. The same seed and size always produce the same books.
+		 */
+		private long seed = 42;
+
+		/**
+		 * Number of books written to the database in a single statement.
+		 */
+		private int batchSize = 5000;
+
+		/**
+		 * Number of batches written concurrently.
+		 */
+		private int parallelism = 4;
+
+		public int getBooks() {
+			return books;
+		}
+
+		public void setBooks(int books) {
+			this.books = books;
+		}
+
+		public long getSeed() {
+			return seed;
+		}
+
+		public void setSeed(long seed) {
+			this.seed = seed;
+		}
+
+		public int getBatchSize() {
+			return batchSize;
+		}
+
+		public void setBatchSize(int batchSize) {
+			this.batchSize = batchSize;
+		}
+
+		public int getParallelism() {
+			return parallelism;
+		}
+
+		public void setParallelism(int parallelism) {
+			this.parallelism = parallelism;
+		}
+	}
+
+	public static class Coalescing {
+		/**
+		 * How long a request waits for a load of the same book started by another request.
+		 */
+		private Duration timeout = Duration.ofSeconds(2);
+
+		public Duration getTimeout() {
+			return timeout;
+		}
+
+		public void setTimeout(Duration timeout) {
+			this.timeout = timeout;
+		}
+	}
+
+	public static class ChangeFeed {
+		/**
+		 * How long a change is held back from the feed, by the database clock, so writes committing out of sequence order are not skipped.
+		 */
+		private Duration settleTime = Duration.ofSeconds(1);
+
+		public Duration getSettleTime() {
+			return settleTime;
+		}
+
+		public void setSettleTime(Duration settleTime) {
+			this.settleTime = settleTime;
+		}
+	}
+
+	public static class Events {
+		/**
+		 * Maximum number of concurrent event stream subscribers.
+		 */
+		private int maxSubscribers = 10_000;
+
+		/**
+		 * Events queued per subscriber before it is considered too slow and disconnected.
+		 */
+		private int queueCapacity = 256;
+
+		/**
+		 * Recent events kept to replay to subscribers reconnecting with a Last-Event-ID.
+		 */
+		private int replayCapacity = 1024;
+
+		/**
+		 * Threads writing queued events to subscribers. A write to a client that stopped reading holds its thread until the connector write timeout.
+		 */
+		private int senderThreads = 4;
+
+		/**
+		 * How long a subscription stays open before the client has to reconnect.
+		 */
+		private Duration timeout = Duration.ofMinutes(30);
+
+		public int getMaxSubscribers() {
+			return maxSubscribers;
+		}
+
+		public void setMaxSubscribers(int maxSubscribers) {
+			this.maxSubscribers = maxSubscribers;
+		}
+
+		public int getQueueCapacity() {
+			return queueCapacity;
+		}
+
+		public void setQueueCapacity(int queueCapacity) {
+			this.queueCapacity = queueCapacity;
+		}
+
+		public int getReplayCapacity() {
+			return replayCapacity;
+		}
+
+		public void setReplayCapacity(int replayCapacity) {
+			this.replayCapacity = replayCapacity;
+		}
+
+		public int getSenderThreads() {
+			return senderThreads;
+		}
+
+		public void setSenderThreads(int senderThreads) {
+			this.senderThreads = senderThreads;
+		}
+
+		public Duration getTimeout() {
+			return timeout;
+		}
+
+		public void setTimeout(Duration timeout) {
+			this.timeout = timeout;
+		}
+	}
+
+	public static class ResponseCache {
+		/**
+		 * Memory taken at most by serialized and compressed responses kept for reuse.
+		 */
+		private DataSize maxSize = DataSize.ofMegabytes(64);
+
+		public DataSize getMaxSize() {
+			return maxSize;
+		}
+
+		public void setMaxSize(DataSize maxSize) {
+			this.maxSize = maxSize;
+		}
+	}
+
+	public static class Replicas {
+		/**
+		 * Whether read-only transactions are routed to the read replicas.
+		 */
+		private boolean enabled = false;
+
+		/**
+		 * JDBC URLs of the read replicas, reached with the credentials of the primary datasource.
+		 */
+		private List<String> urls = new ArrayList<>();
+
+		/**
+		 * Maximum size of each replica connection pool. Defaults to the size of the primary pool.
+		 */
+		private Integer maximumPoolSize;
+
+		/**
+		 * Replication lag above which a replica stops serving reads until it catches up.
+		 */
+		private Duration maxLag = Duration.ofSeconds(1);
+
+		/**
+		 * How long the reads of a client go to the primary after it changed the catalog. Should exceed the maximum lag plus the health check interval.
+		 */
+		private Duration readYourWritesWindow = Duration.ofSeconds(5);
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public List<String> getUrls() {
+			return urls;
+		}
+
+		public void setUrls(List<String> urls) {
+			this.urls = urls;
+		}
+
+		public Integer getMaximumPoolSize() {
+			return maximumPoolSize;
+		}
+
+		public void setMaximumPoolSize(Integer maximumPoolSize) {
+			this.maximumPoolSize = maximumPoolSize;
+		}
+
+		public Duration getMaxLag() {
+			return maxLag;
+		}
+
+		public void setMaxLag(Duration maxLag) {
+			this.maxLag = maxLag;
+		}
+
+		public Duration getReadYourWritesWindow() {
+			return readYourWritesWindow;
+		}
+
+		public void setReadYourWritesWindow(Duration readYourWritesWindow) {
+			this.readYourWritesWindow = readYourWritesWindow;
+		}
+	}
+
+	public static class FlightRecorder {
+		/**
+		 * Flight Recorder settings the recordings start from, either a name like 'default' or 'profile', or a path to a .jfc file.
+		 */
+		private String settings = "default";
+
+		/**
+		 * Duration of recordings started without one.
+		 */
+		private Duration defaultDuration = Duration.ofMinutes(1);
+
+		/**
+		 * Longest recording that can be requested.
+		 */
+		private Duration maxDuration = Duration.ofMinutes(15);
+
+		/**
+		 * Disk space a recording may take, the oldest data being dropped beyond it.
+		 */
+		private DataSize maxSize = DataSize.ofMegabytes(256);
+
+		public String getSettings() {
+			return settings;
+		}
+
+		public void setSettings(String settings) {
+			this.settings = settings;
+		}
+
+		public Duration getDefaultDuration() {
+			return defaultDuration;
+		}
+
+		public void setDefaultDuration(Duration defaultDuration) {
+			this.defaultDuration = defaultDuration;
+		}
+
+		public Duration getMaxDuration() {
+			return maxDuration;
+		}
+
+		public void setMaxDuration(Duration maxDuration) {
+			this.maxDuration = maxDuration;
+		}
+
+		public DataSize getMaxSize() {
+			return maxSize;
+		}
+
+		public void setMaxSize(DataSize maxSize) {
+			this.maxSize = maxSize;
+		}
+	}
 }
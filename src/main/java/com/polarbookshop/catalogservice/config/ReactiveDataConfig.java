@@ -0,0 +1,38 @@
+package com.polarbookshop.catalogservice.config;
+
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.ReactiveAuditorAware;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Data access for the reactive stack. Requests are served over R2DBC, while the JDBC data source
+ * is kept for Flyway, the catalog export and the suggestion index. Spring Boot backs off from
+ * auto-configuring it once an R2DBC connection factory exists, so it is declared here.
+ */
+@Configuration
+@Profile("reactive")
+@EnableConfigurationProperties(DataSourceProperties.class)
+public class ReactiveDataConfig {
+	@Bean
+	@ConfigurationProperties("spring.datasource.hikari")
+	HikariDataSource dataSource(DataSourceProperties properties) {
+		return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+	}
+	
+	@Bean
+	ReactiveAuditorAware<String> reactiveAuditorAware() {
+		return () -> ReactiveSecurityContextHolder.getContext()
+			.map(SecurityContext::getAuthentication)
+			.filter(Authentication::isAuthenticated)
+			.map(Authentication::getName);
+	}
+}
@@ -0,0 +1,29 @@
+package com.polarbookshop.catalogservice.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.oauth2.server.resource.authentication.ReactiveJwtAuthenticationConverterAdapter;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+
+@EnableWebFluxSecurity
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveSecurityConfig {
+	@Bean
+	SecurityWebFilterChain filterChain(ServerHttpSecurity http) {
+		return http
+			.authorizeExchange(exchange -> exchange
+				.pathMatchers("/actuator/**").permitAll()
+				.pathMatchers(HttpMethod.GET, "/", "/books/**").permitAll()
+				.anyExchange().hasRole("employee")
+			)
+			.oauth2ResourceServer(server -> server.jwt(jwt -> jwt.jwtAuthenticationConverter(
+				new ReactiveJwtAuthenticationConverterAdapter(SecurityConfig.rolesAuthenticationConverter()))))
+			.securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+			.csrf(ServerHttpSecurity.CsrfSpec::disable)
+			.build();
+	}
+}
@@ -0,0 +1,79 @@
+package com.polarbookshop.catalogservice.config;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Replaces the single datasource with one routing read-only transactions to the read replicas.
+ * The primary pool keeps the {@code spring.datasource} settings; each replica pool gets the same
+ * credentials and Hikari settings with its own URL.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "polar.replicas", name = "enabled", havingValue = "true")
+public class ReadReplicasConfig {
+	@Bean
+	ReplicaRouting replicaRouting(DataSourceProperties dataSourceProperties, PolarProperties polarProperties, Environment environment) {
+		PolarProperties.Replicas replicas = polarProperties.getReplicas();
+		Binder binder = Binder.get(environment);
+		HikariDataSource primary = newPool(dataSourceProperties, binder, dataSourceProperties.determineUrl());
+		primary.setPoolName("primary");
+		Map<String, DataSource> replicaPools = new LinkedHashMap<>();
+		List<String> urls = replicas.getUrls();
+		for (int i = 0; i < urls.size(); i++) {
+			HikariDataSource replica = newPool(dataSourceProperties, binder, urls.get(i));
+			replica.setPoolName("replica-" + i);
+			replica.setReadOnly(true);
+			if (replicas.getMaximumPoolSize() != null) {
+				replica.setMaximumPoolSize(replicas.getMaximumPoolSize());
+			}
+			replicaPools.put(replica.getPoolName(), replica);
+		}
+		return new ReplicaRouting(primary, replicaPools, replicas);
+	}
+	
+	@Bean
+	DataSource dataSource(ReplicaRouting replicaRouting) {
+		return replicaRouting.getDataSource();
+	}
+	
+	private static HikariDataSource newPool(DataSourceProperties dataSourceProperties, Binder binder, String url) {
+		HikariDataSource pool = dataSourceProperties.initializeDataSourceBuilder()
+			.type(HikariDataSource.class)
+			.url(url)
+			.build();
+		binder.bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+		DataConfig.tagOrigin(pool);
+		return pool;
+	}
+	
+	@Configuration
+	@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+	static class ReadYourWritesConfig implements WebMvcConfigurer {
+		private final ReplicaRouting replicaRouting;
+		
+		ReadYourWritesConfig(ReplicaRouting replicaRouting) {
+			this.replicaRouting = replicaRouting;
+		}
+		
+		@Override
+		public void addInterceptors(InterceptorRegistry registry) {
+			registry.addInterceptor(new ReadYourWritesInterceptor(this.replicaRouting));
+		}
+	}
+}
@@ -0,0 +1,48 @@
+package com.polarbookshop.catalogservice.config;
+
+import java.security.Principal;
+import java.util.Set;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+/**
+ * Remembers the clients whose requests changed the catalog, and pins their next requests to the
+ * primary for the read-your-writes window. Clients are told apart by their authenticated name;
+ * anonymous clients cannot write, so their reads always go to the replicas.
+ */
+class ReadYourWritesInterceptor implements AsyncHandlerInterceptor {
+	private static final Set<String> SAFE_METHODS = Set.of("GET", "HEAD", "OPTIONS", "TRACE");
+	
+	private final ReplicaRouting replicaRouting;
+	
+	ReadYourWritesInterceptor(ReplicaRouting replicaRouting) {
+		this.replicaRouting = replicaRouting;
+	}
+	
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		Principal principal = request.getUserPrincipal();
+		if (principal != null && this.replicaRouting.hasRecentlyWritten(principal.getName())) {
+			ReplicaRouting.pinToPrimary();
+		}
+		return true;
+	}
+	
+	// Streamed responses are written on another thread, which is not pinned
+	@Override
+	public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		ReplicaRouting.unpin();
+	}
+	
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+		ReplicaRouting.unpin();
+		Principal principal = request.getUserPrincipal();
+		if (principal != null && !SAFE_METHODS.contains(request.getMethod()) && ex == null && response.getStatus() < 400) {
+			this.replicaRouting.recordWrite(principal.getName());
+		}
+	}
+}
@@ -0,0 +1,203 @@
+package com.polarbookshop.catalogservice.config;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Sends read-only transactions to the read replicas and everything else to the primary. Replicas
+ * are checked periodically and serve reads only while they answer and lag less than the configured
+ * maximum; when none does, reads fall back to the primary. Clients that changed the catalog read
+ * from the primary for a while afterwards, so they see their own writes even on a lagging replica.
+ * <p>
+ * The routing decision needs the read-only flag of the transaction, which is only set once the
+ * transaction has begun, so the physical connection is fetched lazily on the first statement.
+ */
+public class ReplicaRouting implements MeterBinder, AutoCloseable {
+	private static final Logger log = LoggerFactory.getLogger(ReplicaRouting.class);
+	private static final String PRIMARY = "primary";
+	// Zero when the replica has replayed everything it received, since the last replayed
+	// transaction grows old on an idle primary without the replica falling behind
+	private static final String LAG_QUERY = """
+		select case when not pg_is_in_recovery() or pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() then 0
+			else coalesce(extract(epoch from now() - pg_last_xact_replay_timestamp()), 0) end
+		""";
+	private static final ThreadLocal<Boolean> pinnedToPrimary = new ThreadLocal<>();
+	
+	private final DataSource primary;
+	private final List<Replica> replicas;
+	private final Duration maxLag;
+	private final Cache<String, Boolean> recentWriters;
+	private final DataSource dataSource;
+	private final AtomicInteger nextReplica = new AtomicInteger();
+	private final AtomicLong fallbacks = new AtomicLong();
+	private volatile List<Replica> availableReplicas = List.of();
+	
+	public ReplicaRouting(DataSource primary, Map<String, DataSource> replicas, PolarProperties.Replicas properties) {
+		this.primary = primary;
+		this.replicas = replicas.entrySet().stream().map(replica -> new Replica(replica.getKey(), replica.getValue())).toList();
+		this.maxLag = properties.getMaxLag();
+		this.recentWriters = Caffeine.newBuilder()
+			.expireAfterWrite(properties.getReadYourWritesWindow())
+			.build();
+		
+		Map<Object, Object> targets = new HashMap<>();
+		targets.put(PRIMARY, primary);
+		this.replicas.forEach(replica -> targets.put(replica.name, replica.dataSource));
+		RoutingDataSource routingDataSource = new RoutingDataSource();
+		routingDataSource.setTargetDataSources(targets);
+		routingDataSource.setDefaultTargetDataSource(primary);
+		routingDataSource.afterPropertiesSet();
+		LazyConnectionDataSourceProxy lazyDataSource = new LazyConnectionDataSourceProxy();
+		lazyDataSource.setTargetDataSource(routingDataSource);
+		// PostgreSQL defaults, so no connection is opened up front to find them out
+		lazyDataSource.setDefaultAutoCommit(true);
+		lazyDataSource.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+		lazyDataSource.afterPropertiesSet();
+		this.dataSource = lazyDataSource;
+	}
+	
+	public DataSource getDataSource() {
+		return this.dataSource;
+	}
+	
+	/**
+	 * Sends the reads of the current thread to the primary until {@link #unpin()}.
+	 */
+	public static void pinToPrimary() {
+		pinnedToPrimary.set(Boolean.TRUE);
+	}
+	
+	public static void unpin() {
+		pinnedToPrimary.remove();
+	}
+	
+	public void recordWrite(String client) {
+		this.recentWriters.put(client, Boolean.TRUE);
+	}
+	
+	public boolean hasRecentlyWritten(String client) {
+		return this.recentWriters.getIfPresent(client) != null;
+	}
+	
+	@Scheduled(fixedDelayString = "${polar.replicas.health-check-interval:PT2S}")
+	public void checkReplicas() {
+		List<Replica> available = new ArrayList<>(this.replicas.size());
+		for (Replica replica : this.replicas) {
+			boolean wasAvailable = this.availableReplicas.contains(replica);
+			try {
+				replica.lagSeconds = queryLagSeconds(replica.dataSource);
+				if (replica.lagSeconds * 1000 <= this.maxLag.toMillis()) {
+					available.add(replica);
+				} else if (wasAvailable) {
+					log.warn("Replica {} lags {}s behind the primary, reading from the others", replica.name, replica.lagSeconds);
+				}
+			} catch (SQLException | RuntimeException ex) {
+				replica.lagSeconds = Double.NaN;
+				if (wasAvailable) {
+					log.warn("Replica {} failed its health check, reading from the others", replica.name, ex);
+				}
+			}
+			if (!wasAvailable && available.contains(replica)) {
+				log.info("Replica {} is serving reads", replica.name);
+			}
+		}
+		this.availableReplicas = List.copyOf(available);
+	}
+	
+	Object determineTarget() {
+		if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || pinnedToPrimary.get() != null) {
+			return PRIMARY;
+		}
+		List<Replica> available = this.availableReplicas;
+		if (available.isEmpty()) {
+			if (!this.replicas.isEmpty()) {
+				this.fallbacks.incrementAndGet();
+			}
+			return PRIMARY;
+		}
+		return available.get(Math.floorMod(this.nextReplica.getAndIncrement(), available.size())).name;
+	}
+	
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		Gauge.builder("polar.replicas.available", this, routing -> routing.availableReplicas.size())
+			.description("Read replicas currently serving reads")
+			.register(registry);
+		FunctionCounter.builder("polar.replicas.fallbacks", this.fallbacks, AtomicLong::get)
+			.description("Read-only transactions sent to the primary for lack of an available replica")
+			.register(registry);
+		for (Replica replica : this.replicas) {
+			Gauge.builder("polar.replicas.lag", replica, r -> r.lagSeconds)
+				.description("Replication lag measured by the last health check")
+				.tag("replica", replica.name)
+				.baseUnit("seconds")
+				.register(registry);
+		}
+	}
+	
+	@Override
+	public void close() throws Exception {
+		for (Replica replica : this.replicas) {
+			if (replica.dataSource instanceof AutoCloseable closeable) {
+				closeable.close();
+			}
+		}
+		if (this.primary instanceof AutoCloseable closeable) {
+			closeable.close();
+		}
+	}
+	
+	private static double queryLagSeconds(DataSource dataSource) throws SQLException {
+		try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+			statement.setQueryTimeout(1);
+			try (ResultSet resultSet = statement.executeQuery(LAG_QUERY)) {
+				resultSet.next();
+				return resultSet.getDouble(1);
+			}
+		}
+	}
+	
+	private static class Replica {
+		private final String name;
+		private final DataSource dataSource;
+		private volatile double lagSeconds = Double.NaN;
+		
+		Replica(String name, DataSource dataSource) {
+			this.name = name;
+			this.dataSource = dataSource;
+		}
+	}
+	
+	private class RoutingDataSource extends AbstractRoutingDataSource {
+		@Override
+		protected Object determineCurrentLookupKey() {
+			return determineTarget();
+		}
+	}
+}
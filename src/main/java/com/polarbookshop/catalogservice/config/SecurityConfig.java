@@ -1,5 +1,7 @@
 package com.polarbookshop.catalogservice.config;
 
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -12,11 +14,14 @@ import org.springframework.security.oauth2.server.resource.authentication.JwtGra
 import org.springframework.security.web.SecurityFilterChain;
 
 @EnableWebSecurity
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class SecurityConfig {
 	@Bean
 	SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
 		return http
 			.authorizeHttpRequests(authorize -> authorize
+				// Recordings expose the internals of the JVM and cost resources to take
+				.requestMatchers(EndpointRequest.to(FlightRecorderEndpoint.class)).hasRole("employee")
 				.mvcMatchers("/actuator/**").permitAll()
 				.mvcMatchers(HttpMethod.GET, "/", "/books/**").permitAll()
 				.anyRequest().hasRole("employee")
@@ -29,6 +34,10 @@ public class SecurityConfig {
 	
 	@Bean
 	public JwtAuthenticationConverter jwtAuthenticationConverter() {
+		return rolesAuthenticationConverter();
+	}
+	
+	static JwtAuthenticationConverter rolesAuthenticationConverter() {
 		JwtGrantedAuthoritiesConverter jwtGrantedAuthoritiesConverter = new JwtGrantedAuthoritiesConverter();
 		jwtGrantedAuthoritiesConverter.setAuthorityPrefix("ROLE_");
 		jwtGrantedAuthoritiesConverter.setAuthoritiesClaimName("roles");
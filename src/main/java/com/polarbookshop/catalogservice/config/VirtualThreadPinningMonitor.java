@@ -0,0 +1,41 @@
+package com.polarbookshop.catalogservice.config;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jdk.jfr.consumer.RecordingStream;
+
+/**
+ * Records how often and how long virtual threads stay pinned to their carrier thread,
+ * typically while blocking inside a {@code synchronized} block, using the JDK Flight Recorder.
+ */
+public class VirtualThreadPinningMonitor implements MeterBinder, AutoCloseable {
+	static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+	
+	private final RecordingStream recordingStream;
+	private final AtomicBoolean started = new AtomicBoolean();
+	
+	public VirtualThreadPinningMonitor(Duration threshold) {
+		this.recordingStream = new RecordingStream();
+		this.recordingStream.enable(PINNED_EVENT).withThreshold(threshold);
+	}
+	
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		Timer pinned = Timer.builder("polar.virtual-threads.pinned")
+			.description("Time virtual threads spent pinned to their carrier thread")
+			.register(registry);
+		this.recordingStream.onEvent(PINNED_EVENT, event -> pinned.record(event.getDuration()));
+		if (this.started.compareAndSet(false, true)) {
+			this.recordingStream.startAsync();
+		}
+	}
+	
+	@Override
+	public void close() {
+		this.recordingStream.close();
+	}
+}
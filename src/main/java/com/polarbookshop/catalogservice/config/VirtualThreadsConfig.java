@@ -0,0 +1,108 @@
+package com.polarbookshop.catalogservice.config;
+
+import java.sql.SQLException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import javax.sql.DataSource;
+
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Runs servlet requests, and therefore the {@code BookService} calls they make, on virtual threads.
+ * The application is compiled for Java 17, so virtual threads are created reflectively and the mode
+ * fails fast at startup on an older runtime.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(prefix = "polar.virtual-threads", name = "enabled", havingValue = "true")
+public class VirtualThreadsConfig {
+	@Bean
+	TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadsProtocolHandlerCustomizer() {
+		ExecutorService executor = newVirtualThreadPerTaskExecutor("http-vt-");
+		return protocolHandler -> protocolHandler.setExecutor(executor);
+	}
+	
+	@Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+	AsyncTaskExecutor applicationTaskExecutor() {
+		return new TaskExecutorAdapter(newVirtualThreadPerTaskExecutor("task-vt-"));
+	}
+	
+	@Bean
+	static BeanPostProcessor connectionLimitingDataSourcePostProcessor(ObjectProvider<PolarProperties> polarProperties) {
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				if (!(bean instanceof DataSource dataSource) || unwrap(dataSource, ConnectionLimitingDataSource.class) != null) {
+					return bean;
+				}
+				PolarProperties.VirtualThreads virtualThreads = polarProperties.getObject().getVirtualThreads();
+				Integer permits = virtualThreads.getConnectionPermits();
+				if (permits == null) {
+					HikariDataSource hikari = unwrap(dataSource, HikariDataSource.class);
+					permits = hikari != null ? hikari.getMaximumPoolSize() : 10;
+				}
+				return new ConnectionLimitingDataSource(dataSource, permits, virtualThreads.getConnectionAcquireTimeout());
+			}
+		};
+	}
+	
+	@Bean
+	MeterBinder connectionLimiterMetrics(DataSource dataSource) {
+		return registry -> {
+			ConnectionLimitingDataSource limiter = unwrap(dataSource, ConnectionLimitingDataSource.class);
+			if (limiter != null) {
+				Gauge.builder("polar.jdbc.connections.pending", limiter, ConnectionLimitingDataSource::getQueueLength)
+					.description("Threads queued for a connection permit")
+					.register(registry);
+				Gauge.builder("polar.jdbc.connections.permitted", limiter, ConnectionLimitingDataSource::getActivePermits)
+					.description("Threads holding or acquiring a pooled connection")
+					.register(registry);
+			}
+		};
+	}
+	
+	@Bean(destroyMethod = "close")
+	VirtualThreadPinningMonitor virtualThreadPinningMonitor(PolarProperties polarProperties) {
+		return new VirtualThreadPinningMonitor(polarProperties.getVirtualThreads().getPinnedThreshold());
+	}
+	
+	// Other post-processors may have wrapped the pool, or this limiter, in turn
+	static <T> T unwrap(DataSource dataSource, Class<T> type) {
+		try {
+			return dataSource.isWrapperFor(type) ? dataSource.unwrap(type) : null;
+		} catch (SQLException ex) {
+			return null;
+		}
+	}
+	
+	static ExecutorService newVirtualThreadPerTaskExecutor(String namePrefix) {
+		try {
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+			builder = builderType.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+			ThreadFactory factory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+			return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+				.invoke(null, factory);
+		} catch (ReflectiveOperationException ex) {
+			throw new IllegalStateException("Virtual threads require a Java 21 or later runtime (running on "
+				+ Runtime.version() + "). Disable polar.virtual-threads.enabled or upgrade the JVM.", ex);
+		}
+	}
+}
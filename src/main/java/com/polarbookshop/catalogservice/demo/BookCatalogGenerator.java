@@ -0,0 +1,145 @@
+package com.polarbookshop.catalogservice.demo;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import com.polarbookshop.catalogservice.domain.Book;
+
+/**
+ * Generates a reproducible synthetic catalog. Each book only depends on the seed and its index,
+ * so batches can be generated in any order or in parallel and still yield the same catalog.
+ * Authors and publishers follow Zipf distributions, like real catalogs where a few names own many titles.
+ */
+public final class BookCatalogGenerator {
+	private static final String[] FIRST_NAMES = {
+		"Lyra", "Iorek", "Serafina", "Lee", "Marisa", "Will", "Mary", "Roger", "Pantalaimon", "Hester",
+		"Jenny", "Eline", "Bjorn", "Isabelle", "Astrid", "Nils", "Freya", "Oskar", "Ingrid", "Sven"
+	};
+	private static final String[] LAST_NAMES = {
+		"Silverstar", "Polarson", "Pekkala", "Scoresby", "Coulter", "Parry", "Malone", "Belacqua", "Byrnison", "Asriel",
+		"Lindqvist", "Nordstrom", "Halvorsen", "Aurora", "Frost", "Winterborn", "Snowdon", "Icefield", "Northcott", "Glacier"
+	};
+	private static final String[] ADJECTIVES = {
+		"Northern", "Silent", "Frozen", "Golden", "Subtle", "Amber", "Hidden", "Endless", "Polar", "Distant",
+		"Secret", "Broken", "Bright", "Forgotten", "Last", "Wild", "Crimson", "Quiet", "Shining", "Lost"
+	};
+	private static final String[] NOUNS = {
+		"Lights", "Knife", "Spyglass", "Journey", "Compass", "Bear", "Witch", "Aurora", "Tundra", "Fjord",
+		"Glacier", "Harbour", "Kingdom", "Winter", "Voyage", "Shadow", "River", "Dust", "Library", "Star"
+	};
+	private static final String[] PUBLISHER_WORDS = {
+		"Polarsophia", "Aurora", "Borealis", "Tundra", "Fjord", "Glacier", "Midnight Sun", "Snowfield", "Icebound", "Northwind"
+	};
+	private static final String[] PUBLISHER_SUFFIXES = { "Press", "Books", "Publishing", "House", "Editions" };
+	private static final String[] IMPRINTS = { "", " Classics", " Junior", " Academic" };
+	
+	// 3^18 is coprime with 10^9, so multiplying by it permutes the 9-digit ISBN bodies
+	private static final long ISBN_MULTIPLIER = 387_420_489L;
+	private static final long ISBN_BODIES = 1_000_000_000L;
+	
+	private final long seed;
+	private final double[] authorDistribution;
+	private final double[] publisherDistribution;
+	
+	public BookCatalogGenerator(long seed, long books) {
+		if (books > ISBN_BODIES) {
+			throw new IllegalArgumentException("At most " + ISBN_BODIES + " books can be generated.");
+		}
+		this.seed = seed;
+		this.authorDistribution = zipf((int) Math.max(100, Math.min(books / 8, 200_000)), 1.1);
+		this.publisherDistribution = zipf(PUBLISHER_WORDS.length * PUBLISHER_SUFFIXES.length * IMPRINTS.length, 1.3);
+	}
+	
+	public Book book(long index) {
+		SplittableRandom random = new SplittableRandom(mix(this.seed + index * 0x9E3779B97F4A7C15L));
+		long isbnBody = Math.floorMod(this.seed + index * ISBN_MULTIPLIER, ISBN_BODIES);
+		// About one book in five keeps a legacy ISBN-10, unless its check digit would be an X
+		String isbn = random.nextInt(5) == 0 ? isbn10(isbnBody) : null;
+		if (isbn == null) {
+			isbn = isbn13(978_000_000_000L + isbnBody);
+		}
+		return Book.of(isbn, title(random), author(sample(this.authorDistribution, random)), price(random), publisher(random));
+	}
+	
+	static String isbn10(long body) {
+		String digits = String.format("%09d", body);
+		int sum = 0;
+		for (int i = 0; i < 9; i++) {
+			sum += (10 - i) * (digits.charAt(i) - '0');
+		}
+		int check = (11 - sum % 11) % 11;
+		return check == 10 ? null : digits + check;
+	}
+	
+	static String isbn13(long body) {
+		String digits = String.format("%012d", body);
+		int sum = 0;
+		for (int i = 0; i < 12; i++) {
+			sum += (i % 2 == 0 ? 1 : 3) * (digits.charAt(i) - '0');
+		}
+		return digits + (10 - sum % 10) % 10;
+	}
+	
+	private static String title(SplittableRandom random) {
+		String title = ADJECTIVES[random.nextInt(ADJECTIVES.length)] + " " + NOUNS[random.nextInt(NOUNS.length)];
+		int variant = random.nextInt(10);
+		if (variant == 0) {
+			return "The " + title;
+		}
+		if (variant == 1) {
+			return title + ", Volume " + (2 + random.nextInt(8));
+		}
+		return title;
+	}
+	
+	private static String author(int rank) {
+		StringBuilder name = new StringBuilder(FIRST_NAMES[rank % FIRST_NAMES.length]).append(' ');
+		// Middle initials tell apart the authors beyond the combinations of first and last names
+		for (int initials = rank / (FIRST_NAMES.length * LAST_NAMES.length); initials > 0; initials = (initials - 1) / 26) {
+			name.append((char) ('A' + (initials - 1) % 26)).append(". ");
+		}
+		return name.append(LAST_NAMES[(rank / FIRST_NAMES.length) % LAST_NAMES.length]).toString();
+	}
+	
+	private String publisher(SplittableRandom random) {
+		// A few self-published titles have no publisher at all
+		if (random.nextInt(50) == 0) {
+			return null;
+		}
+		int rank = sample(this.publisherDistribution, random);
+		String name = PUBLISHER_WORDS[rank % PUBLISHER_WORDS.length] + " "
+			+ PUBLISHER_SUFFIXES[(rank / PUBLISHER_WORDS.length) % PUBLISHER_SUFFIXES.length];
+		return name + IMPRINTS[rank / (PUBLISHER_WORDS.length * PUBLISHER_SUFFIXES.length)];
+	}
+	
+	private static double price(SplittableRandom random) {
+		// Log-normal spread with a median around 15, mostly between 5 and 50
+		double gaussian = Math.sqrt(-2 * Math.log(1 - random.nextDouble())) * Math.cos(2 * Math.PI * random.nextDouble());
+		double price = Math.exp(Math.log(15) + 0.6 * gaussian);
+		return Math.max(0.99, Math.min(Math.floor(price) + 0.90, 499.90));
+	}
+	
+	private static double[] zipf(int size, double exponent) {
+		double[] cumulative = new double[size];
+		double total = 0;
+		for (int rank = 0; rank < size; rank++) {
+			total += 1 / Math.pow(rank + 1, exponent);
+			cumulative[rank] = total;
+		}
+		for (int rank = 0; rank < size; rank++) {
+			cumulative[rank] /= total;
+		}
+		return cumulative;
+	}
+	
+	private static int sample(double[] cumulative, SplittableRandom random) {
+		int index = Arrays.binarySearch(cumulative, random.nextDouble());
+		return Math.min(index >= 0 ? index : -index - 1, cumulative.length - 1);
+	}
+	
+	private static long mix(long value) {
+		value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+		value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+		return value ^ (value >>> 31);
+	}
+}
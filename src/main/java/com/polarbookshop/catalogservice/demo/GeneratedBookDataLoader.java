@@ -0,0 +1,78 @@
+package com.polarbookshop.catalogservice.demo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import com.polarbookshop.catalogservice.config.PolarProperties;
+import com.polarbookshop.catalogservice.domain.Book;
+import com.polarbookshop.catalogservice.domain.BookRepository;
+
+/**
+ * Replaces the catalog with a large synthetic one, so performance tests run against
+ * realistic and reproducible data. See {@link BookCatalogGenerator}.
+ */
+@Component
+@Profile("perfdata")
+public class GeneratedBookDataLoader {
+	private static final Logger log = LoggerFactory.getLogger(GeneratedBookDataLoader.class);
+	private final BookRepository bookRepository;
+	private final PolarProperties polarProperties;
+
+	public GeneratedBookDataLoader(BookRepository bookRepository, PolarProperties polarProperties) {
+		this.bookRepository = bookRepository;
+		this.polarProperties = polarProperties;
+	}
+	
+	@EventListener(ApplicationReadyEvent.class)
+	@Order(Ordered.HIGHEST_PRECEDENCE)
+	public void loadGeneratedBookData() throws InterruptedException {
+		PolarProperties.DataGenerator properties = this.polarProperties.getDataGenerator();
+		int books = properties.getBooks();
+		int batchSize = properties.getBatchSize();
+		BookCatalogGenerator generator = new BookCatalogGenerator(properties.getSeed(), books);
+		log.info("Generating {} books with seed {}", books, properties.getSeed());
+		long start = System.nanoTime();
+		
+		this.bookRepository.deleteAll();
+		ExecutorService executor = Executors.newFixedThreadPool(properties.getParallelism());
+		try {
+			List<Future<Integer>> batches = new ArrayList<>();
+			for (int from = 0; from < books; from += batchSize) {
+				int batchStart = from;
+				int batchEnd = Math.min(from + batchSize, books);
+				batches.add(executor.submit(() -> insertBatch(generator, batchStart, batchEnd)));
+			}
+			int inserted = 0;
+			for (Future<Integer> batch : batches) {
+				inserted += batch.get();
+			}
+			long millis = (System.nanoTime() - start) / 1_000_000;
+			log.info("Generated {} books in {} ms ({} books/s)", inserted, millis, millis > 0 ? inserted * 1000L / millis : inserted);
+		} catch (ExecutionException ex) {
+			throw new IllegalStateException("Generating the catalog failed", ex.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+	
+	private int insertBatch(BookCatalogGenerator generator, int from, int to) {
+		List<Book> batch = new ArrayList<>(to - from);
+		for (int index = from; index < to; index++) {
+			batch.add(generator.book(index));
+		}
+		return this.bookRepository.insertAll(batch).size();
+	}
+}
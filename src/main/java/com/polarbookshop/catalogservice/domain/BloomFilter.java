@@ -0,0 +1,114 @@
+package com.polarbookshop.catalogservice.domain;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size Bloom filter over strings. Bits are only ever set, with atomic updates, so
+ * concurrent additions and lookups need no locking. Probes are derived from two halves of
+ * a 128-bit MurmurHash3 (Kirsch-Mitzenmacher double hashing).
+ */
+final class BloomFilter {
+	private final AtomicLongArray words;
+	private final long bits;
+	private final int hashFunctions;
+	
+	BloomFilter(long expectedInsertions, double falsePositiveProbability) {
+		long insertions = Math.max(1, expectedInsertions);
+		long optimalBits = (long) Math.ceil(-insertions * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2)));
+		this.words = new AtomicLongArray((int) Math.min(Integer.MAX_VALUE, Math.max(1, (optimalBits + 63) / 64)));
+		this.bits = (long) this.words.length() * 64;
+		this.hashFunctions = Math.max(1, (int) Math.round((double) this.bits / insertions * Math.log(2)));
+	}
+	
+	void add(String value) {
+		long[] hash = murmur3(value.getBytes(StandardCharsets.UTF_8));
+		long combined = hash[0];
+		for (int i = 0; i < this.hashFunctions; i++) {
+			long bit = (combined & Long.MAX_VALUE) % this.bits;
+			int word = (int) (bit >>> 6);
+			long mask = 1L << bit;
+			long current;
+			while (((current = this.words.get(word)) & mask) == 0 && !this.words.compareAndSet(word, current, current | mask)) {
+				// Another bit of the same word was set concurrently, retry
+			}
+			combined += hash[1];
+		}
+	}
+	
+	boolean mightContain(String value) {
+		long[] hash = murmur3(value.getBytes(StandardCharsets.UTF_8));
+		long combined = hash[0];
+		for (int i = 0; i < this.hashFunctions; i++) {
+			long bit = (combined & Long.MAX_VALUE) % this.bits;
+			if ((this.words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+				return false;
+			}
+			combined += hash[1];
+		}
+		return true;
+	}
+	
+	long sizeInBytes() {
+		return this.bits / 8;
+	}
+	
+	// MurmurHash3 x64 128-bit with seed 0
+	private static long[] murmur3(byte[] data) {
+		final long c1 = 0x87c37b91114253d5L;
+		final long c2 = 0x4cf5ad432745937fL;
+		long h1 = 0;
+		long h2 = 0;
+		int blocks = data.length / 16;
+		for (int i = 0; i < blocks; i++) {
+			long k1 = littleEndianLong(data, i * 16);
+			long k2 = littleEndianLong(data, i * 16 + 8);
+			h1 ^= Long.rotateLeft(k1 * c1, 31) * c2;
+			h1 = (Long.rotateLeft(h1, 27) + h2) * 5 + 0x52dce729;
+			h2 ^= Long.rotateLeft(k2 * c2, 33) * c1;
+			h2 = (Long.rotateLeft(h2, 31) + h1) * 5 + 0x38495ab5;
+		}
+		long k1 = 0;
+		long k2 = 0;
+		int tail = blocks * 16;
+		for (int i = data.length - 1; i >= tail; i--) {
+			if (i - tail >= 8) {
+				k2 ^= (data[i] & 0xffL) << ((i - tail - 8) * 8);
+			} else {
+				k1 ^= (data[i] & 0xffL) << ((i - tail) * 8);
+			}
+		}
+		if (k2 != 0) {
+			h2 ^= Long.rotateLeft(k2 * c2, 33) * c1;
+		}
+		if (k1 != 0) {
+			h1 ^= Long.rotateLeft(k1 * c1, 31) * c2;
+		}
+		h1 ^= data.length;
+		h2 ^= data.length;
+		h1 += h2;
+		h2 += h1;
+		h1 = fmix(h1);
+		h2 = fmix(h2);
+		h1 += h2;
+		h2 += h1;
+		return new long[] { h1, h2 };
+	}
+	
+	private static long littleEndianLong(byte[] data, int offset) {
+		long value = 0;
+		for (int i = 7; i >= 0; i--) {
+			value = (value << 8) | (data[offset + i] & 0xffL);
+		}
+		return value;
+	}
+	
+	private static long fmix(long k) {
+		k ^= k >>> 33;
+		k *= 0xff51afd7ed558ccdL;
+		k ^= k >>> 33;
+		k *= 0xc4ceb9fe1a85ec53L;
+		k ^= k >>> 33;
+		return k;
+	}
+}
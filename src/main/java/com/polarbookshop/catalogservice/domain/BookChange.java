@@ -0,0 +1,13 @@
+package com.polarbookshop.catalogservice.domain;
+
+/**
+ * Latest state of a book in the change feed, ordered by sequence. Only the last change of
+ * each book is kept, so a book created and then edited shows up once as updated. The book
+ * is {@code null} for deletions, and in events for changes made through another instance.
+ */
+public record BookChange(
+	long sequence,
+	BookChangeType type,
+	String isbn,
+	Book book
+) {}
@@ -0,0 +1,220 @@
+package com.polarbookshop.catalogservice.domain;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+/**
+ * Listens for the notifications the {@code book_change_notify} trigger sends on every write,
+ * and republishes those of other instances as {@link BookChangedEvent}s so in-memory views of the
+ * catalog follow writes made elsewhere within milliseconds. Each notification carries the
+ * application name of the connection that wrote, which is {@link #ORIGIN} on this instance's
+ * connections, so writes this instance already published are skipped. Rows are not read back:
+ * the events carry only the ISBN, and views load the book again when they need it. Every burst of
+ * notifications is also published as a {@link BookChangesCommittedEvent}, writes of this instance
+ * included, with the sequence each change has in the change feed.
+ * <p>
+ * It holds a dedicated connection outside the pool. When the connection is lost, notifications
+ * sent meanwhile are gone, so after reconnecting a {@link CatalogResyncEvent} asks every view to
+ * rebuild. A burst of more than {@value #MAX_NOTIFICATIONS_PER_BURST} notifications, as sent by a
+ * bulk write, is answered with a single resync as well, whichever instance wrote.
+ */
+@Component
+public class BookChangeNotificationListener implements SmartLifecycle {
+	static final String CHANNEL = "book_changes";
+	static final int MAX_NOTIFICATIONS_PER_BURST = 100;
+	/**
+	 * Application name set on this instance's database connections, sent along with every notification.
+	 */
+	public static final String ORIGIN = "catalog-service:" + UUID.randomUUID();
+	
+	private static final Logger log = LoggerFactory.getLogger(BookChangeNotificationListener.class);
+	private static final int POLL_TIMEOUT_MILLIS = 500;
+	private static final int BURST_GAP_MILLIS = 20;
+	private static final Duration MAX_RECONNECT_DELAY = Duration.ofSeconds(30);
+	
+	private final ApplicationEventPublisher eventPublisher;
+	private final DataSourceProperties dataSourceProperties;
+	private final boolean enabled;
+	private volatile boolean running;
+	private volatile boolean listening;
+	private volatile boolean resyncing;
+	private Thread thread;
+	
+	public BookChangeNotificationListener(
+		ApplicationEventPublisher eventPublisher,
+		DataSourceProperties dataSourceProperties,
+		@Value("${polar.change-notifications.enabled:true}") boolean enabled
+	) {
+		this.eventPublisher = eventPublisher;
+		this.dataSourceProperties = dataSourceProperties;
+		this.enabled = enabled;
+	}
+	
+	@Override
+	public void start() {
+		if (!this.enabled) {
+			return;
+		}
+		this.running = true;
+		this.thread = new Thread(this::listen, "book-change-listener");
+		this.thread.setDaemon(true);
+		this.thread.start();
+	}
+	
+	@Override
+	public void stop() {
+		this.running = false;
+		if (this.thread != null) {
+			this.thread.interrupt();
+		}
+	}
+	
+	@Override
+	public boolean isRunning() {
+		return this.running;
+	}
+	
+	/**
+	 * Whether changes made by other instances may currently go unnoticed: notifications are enabled
+	 * but not being received, before the first connection or while reconnecting, or views are still
+	 * rebuilding after changes that were not published one by one.
+	 */
+	public boolean isMissingChanges() {
+		return this.enabled && (!this.listening || this.resyncing);
+	}
+	
+	private void listen() {
+		boolean connectedBefore = false;
+		Duration reconnectDelay = Duration.ofSeconds(1);
+		while (this.running) {
+			try (Connection connection = connect()) {
+				try (Statement statement = connection.createStatement()) {
+					statement.execute("LISTEN " + CHANNEL);
+				}
+				log.info("Listening for book changes on channel {}", CHANNEL);
+				if (connectedBefore) {
+					// Only resync once listening again, so no change falls between the resync and the first notification
+					resync();
+				}
+				connectedBefore = true;
+				this.listening = true;
+				reconnectDelay = Duration.ofSeconds(1);
+				PGConnection pgConnection = connection.unwrap(PGConnection.class);
+				while (this.running) {
+					PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MILLIS);
+					if (notifications == null) {
+						continue;
+					}
+					// Reads on until the burst is over, so a bulk write is handled as a whole
+					List<Notification> burst = new ArrayList<>();
+					long deadline = System.nanoTime() + Duration.ofMillis(POLL_TIMEOUT_MILLIS).toNanos();
+					while (notifications != null) {
+						for (PGNotification notification : notifications) {
+							Notification parsed = parse(notification.getParameter());
+							if (parsed != null && burst.size() <= MAX_NOTIFICATIONS_PER_BURST) {
+								burst.add(parsed);
+							}
+						}
+						notifications = System.nanoTime() < deadline ? pgConnection.getNotifications(BURST_GAP_MILLIS) : null;
+					}
+					publish(burst);
+				}
+			} catch (SQLException | RuntimeException ex) {
+				this.listening = false;
+				if (!this.running) {
+					return;
+				}
+				log.warn("Book change listener disconnected, reconnecting in {} ms: {}", reconnectDelay.toMillis(), ex.getMessage());
+				try {
+					Thread.sleep(reconnectDelay.toMillis());
+				} catch (InterruptedException interrupted) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+				reconnectDelay = reconnectDelay.multipliedBy(2).compareTo(MAX_RECONNECT_DELAY) < 0
+					? reconnectDelay.multipliedBy(2) : MAX_RECONNECT_DELAY;
+			}
+		}
+	}
+	
+	/**
+	 * Returns the change announced by a notification, or {@code null} when the notification is malformed.
+	 */
+	Notification parse(String payload) {
+		// Operation, ISBN, change sequence and origin, which holds colons itself and may be missing
+		String[] fields = payload.split(":", 4);
+		long sequence;
+		try {
+			sequence = fields.length >= 3 ? Long.parseLong(fields[2]) : -1;
+		} catch (NumberFormatException ex) {
+			sequence = -1;
+		}
+		if (sequence < 0) {
+			log.warn("Ignoring malformed book change notification '{}'", payload);
+			return null;
+		}
+		BookChangeType type = switch (fields[0]) {
+			case "INSERT" -> BookChangeType.CREATED;
+			case "DELETE" -> BookChangeType.DELETED;
+			default -> BookChangeType.UPDATED;
+		};
+		return new Notification(new BookChange(sequence, type, fields[1], null), fields.length == 4 && ORIGIN.equals(fields[3]));
+	}
+	
+	void publish(List<Notification> burst) {
+		if (burst.size() > MAX_NOTIFICATIONS_PER_BURST) {
+			log.info("Resyncing the catalog after a burst of more than {} book changes", MAX_NOTIFICATIONS_PER_BURST);
+			resync();
+			return;
+		}
+		if (burst.isEmpty()) {
+			return;
+		}
+		List<BookChange> changes = new ArrayList<>(burst.size());
+		for (Notification notification : burst) {
+			BookChange change = notification.change();
+			// Writes of this instance were published when made
+			if (!notification.fromThisInstance()) {
+				this.eventPublisher.publishEvent(new BookChangedEvent(change.type(), change.isbn(), null));
+			}
+			changes.add(change);
+		}
+		this.eventPublisher.publishEvent(new BookChangesCommittedEvent(changes));
+	}
+	
+	// Views rebuild while the event is published, and until then may not know of the books changed
+	private void resync() {
+		this.resyncing = true;
+		try {
+			this.eventPublisher.publishEvent(new CatalogResyncEvent());
+		} finally {
+			this.resyncing = false;
+		}
+	}
+	
+	record Notification(BookChange change, boolean fromThisInstance) {}
+	
+	private Connection connect() throws SQLException {
+		return DriverManager.getConnection(
+			this.dataSourceProperties.determineUrl(),
+			this.dataSourceProperties.determineUsername(),
+			this.dataSourceProperties.determinePassword()
+		);
+	}
+}
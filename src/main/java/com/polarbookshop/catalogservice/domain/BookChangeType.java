@@ -0,0 +1,7 @@
+package com.polarbookshop.catalogservice.domain;
+
+public enum BookChangeType {
+	CREATED,
+	UPDATED,
+	DELETED
+}
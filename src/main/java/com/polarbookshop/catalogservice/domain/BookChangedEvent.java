@@ -0,0 +1,12 @@
+package com.polarbookshop.catalogservice.domain;
+
+/**
+ * Published by {@link BookService} after a book has been written, by {@link BookImportService}
+ * for every imported book, and by {@link BookChangeNotificationListener} when another instance
+ * wrote it. The book is {@code null} for deletions and whenever only the ISBN is known.
+ */
+public record BookChangedEvent(
+	BookChangeType type,
+	String isbn,
+	Book book
+) {}
@@ -0,0 +1,12 @@
+package com.polarbookshop.catalogservice.domain;
+
+import java.util.List;
+
+/**
+ * Published by {@link BookChangeNotificationListener} for every burst of notifications, with the
+ * changes of all instances, this one included, in the order they were committed. The changes
+ * carry the sequence of the change feed, but not the book.
+ */
+public record BookChangesCommittedEvent(
+	List<BookChange> changes
+) {}
@@ -0,0 +1,7 @@
+package com.polarbookshop.catalogservice.domain;
+
+public record BookImportError(
+	int index,
+	String isbn,
+	String message
+) {}
@@ -0,0 +1,8 @@
+package com.polarbookshop.catalogservice.domain;
+
+import java.util.List;
+
+public record BookImportResult(
+	int imported,
+	List<BookImportError> errors
+) {}
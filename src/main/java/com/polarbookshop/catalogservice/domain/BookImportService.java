@@ -0,0 +1,113 @@
+package com.polarbookshop.catalogservice.domain;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+@Service
+public class BookImportService {
+	private final BookRepository bookRepository;
+	private final Validator validator;
+	private final ApplicationEventPublisher eventPublisher;
+	
+	public BookImportService(BookRepository bookRepository, Validator validator, ApplicationEventPublisher eventPublisher) {
+		this.bookRepository = bookRepository;
+		this.validator = validator;
+		this.eventPublisher = eventPublisher;
+	}
+	
+	public BookImportResult importBooks(Iterator<Book> books, int batchSize) {
+		List<BookImportError> errors = new ArrayList<>();
+		List<Book> batch = new ArrayList<>(batchSize);
+		int imported = 0;
+		int index = 0;
+		int batchStart = 0;
+		while (books.hasNext()) {
+			batch.add(books.next());
+			index++;
+			if (batch.size() == batchSize || !books.hasNext()) {
+				imported += importBatch(batch, batchStart, errors);
+				batch.clear();
+				batchStart = index;
+			}
+		}
+		return new BookImportResult(imported, errors);
+	}
+	
+	private int importBatch(List<Book> batch, int batchStart, List<BookImportError> errors) {
+		List<String> violations = IntStream.range(0, batch.size())
+			.parallel()
+			.mapToObj(i -> validate(batch.get(i)))
+			.collect(Collectors.toList());
+		
+		List<Book> booksToInsert = new ArrayList<>(batch.size());
+		List<Integer> indexes = new ArrayList<>(batch.size());
+		Set<String> isbnsInBatch = new HashSet<>();
+		for (int i = 0; i < batch.size(); i++) {
+			Book book = batch.get(i);
+			if (violations.get(i) != null) {
+				errors.add(new BookImportError(batchStart + i, book != null ? book.isbn() : null, violations.get(i)));
+			} else if (!isbnsInBatch.add(book.isbn())) {
+				errors.add(new BookImportError(batchStart + i, book.isbn(), new BookAlreadyExistsException(book.isbn()).getMessage()));
+			} else {
+				booksToInsert.add(book);
+				indexes.add(batchStart + i);
+			}
+		}
+		if (booksToInsert.isEmpty()) {
+			return 0;
+		}
+		
+		Set<String> insertedIsbns;
+		Set<String> failedIsbns = new HashSet<>();
+		try {
+			insertedIsbns = this.bookRepository.insertAll(booksToInsert);
+		} catch (DataAccessException ex) {
+			// Isolate the offending records instead of rejecting the whole batch
+			insertedIsbns = new HashSet<>();
+			for (int i = 0; i < booksToInsert.size(); i++) {
+				Book book = booksToInsert.get(i);
+				try {
+					insertedIsbns.addAll(this.bookRepository.insertAll(List.of(book)));
+				} catch (DataAccessException recordEx) {
+					failedIsbns.add(book.isbn());
+					errors.add(new BookImportError(indexes.get(i), book.isbn(), recordEx.getMostSpecificCause().getMessage()));
+				}
+			}
+		}
+		for (int i = 0; i < booksToInsert.size(); i++) {
+			String isbn = booksToInsert.get(i).isbn();
+			if (!insertedIsbns.contains(isbn) && !failedIsbns.contains(isbn)) {
+				errors.add(new BookImportError(indexes.get(i), isbn, new BookAlreadyExistsException(isbn).getMessage()));
+			}
+		}
+		// Their notifications are skipped as written through this instance, so they are announced here
+		insertedIsbns.forEach(isbn -> this.eventPublisher.publishEvent(new BookChangedEvent(BookChangeType.CREATED, isbn, null)));
+		return insertedIsbns.size();
+	}
+	
+	private String validate(Book book) {
+		if (book == null) {
+			return "The book must be defined.";
+		}
+		Set<ConstraintViolation<Book>> violations = this.validator.validate(book);
+		if (violations.isEmpty()) {
+			return null;
+		}
+		return violations.stream()
+			.map(ConstraintViolation::getMessage)
+			.sorted()
+			.collect(Collectors.joining(" "));
+	}
+}
@@ -0,0 +1,95 @@
+package com.polarbookshop.catalogservice.domain;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Probabilistic set of the ISBNs in the catalog, used to answer lookups of unknown books
+ * without querying the database. A positive answer may be wrong about 1% of the time and falls
+ * through to the database. A negative answer covers the books written through this instance and
+ * those other instances announced through the change notifications, so a book written elsewhere
+ * can be reported as absent until its notification arrives. While notifications are not being
+ * received, every ISBN is reported as present, and so it is until the first build completes.
+ * Deleted books cannot be removed from a Bloom filter, so the filter is rebuilt periodically.
+ */
+@Component
+public class BookIsbnFilter {
+	private static final Logger log = LoggerFactory.getLogger(BookIsbnFilter.class);
+	private static final double FALSE_POSITIVE_PROBABILITY = 0.01;
+	private static final int FETCH_SIZE = 1000;
+	// Room for growth between two rebuilds before the false positive rate degrades
+	private static final double HEADROOM = 1.5;
+	private static final long MIN_EXPECTED_INSERTIONS = 10_000;
+	
+	private final BookRepository bookRepository;
+	private final BookChangeNotificationListener changeListener;
+	private volatile BloomFilter filter;
+	private volatile BloomFilter pendingFilter;
+	
+	public BookIsbnFilter(BookRepository bookRepository, BookChangeNotificationListener changeListener) {
+		this.bookRepository = bookRepository;
+		this.changeListener = changeListener;
+	}
+	
+	@EventListener({ ApplicationReadyEvent.class, CatalogResyncEvent.class })
+	@Order(Ordered.LOWEST_PRECEDENCE)
+	// Read-write, so the scan runs on the primary: books a lagging replica misses would be reported as absent
+	@Transactional
+	public void build() {
+		long expectedInsertions = Math.max(MIN_EXPECTED_INSERTIONS, (long) (this.bookRepository.estimateCount() * HEADROOM));
+		BloomFilter newFilter = new BloomFilter(expectedInsertions, FALSE_POSITIVE_PROBABILITY);
+		// Books written while the catalog is scanned are added to both filters
+		this.pendingFilter = newFilter;
+		try {
+			this.bookRepository.streamAll(FETCH_SIZE, book -> newFilter.add(book.isbn()));
+			this.filter = newFilter;
+		} finally {
+			this.pendingFilter = null;
+		}
+		log.info("Built ISBN filter of {} KiB", newFilter.sizeInBytes() / 1024);
+	}
+	
+	@Scheduled(
+		initialDelayString = "${polar.isbn-filter.rebuild-interval:PT10M}",
+		fixedDelayString = "${polar.isbn-filter.rebuild-interval:PT10M}"
+	)
+	@Transactional
+	public void rebuild() {
+		build();
+	}
+	
+	@EventListener
+	public void onBookChanged(BookChangedEvent event) {
+		if (event.type() != BookChangeType.DELETED) {
+			add(event.isbn());
+		}
+	}
+	
+	public void add(String isbn) {
+		// The pending filter is read first: once it is cleared, the rebuilt filter is already current
+		BloomFilter newFilter = this.pendingFilter;
+		if (newFilter != null) {
+			newFilter.add(isbn);
+		}
+		BloomFilter currentFilter = this.filter;
+		if (currentFilter != null) {
+			currentFilter.add(isbn);
+		}
+	}
+	
+	/**
+	 * Returns {@code false} only if no book with the given ISBN was written through this instance
+	 * or announced by another one.
+	 */
+	public boolean mightContain(String isbn) {
+		BloomFilter currentFilter = this.filter;
+		return currentFilter == null || this.changeListener.isMissingChanges() || currentFilter.mightContain(isbn);
+	}
+}
@@ -0,0 +1,183 @@
+package com.polarbookshop.catalogservice.domain;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Optional in-memory copy of the whole catalog, enabled with {@code polar.near-cache.enabled}.
+ * Reads are served lock-free from an immutable {@link CatalogSnapshot}. Writes made through
+ * this instance are applied right away, and so are deletions notified by other instances. Other
+ * changes are picked up by polling the rows modified since the last refresh, re-reading an overlap
+ * window so rows committed late are not missed.
+ */
+@Component
+public class BookNearCache implements MeterBinder {
+	private static final Logger log = LoggerFactory.getLogger(BookNearCache.class);
+	private static final int FETCH_SIZE = 1000;
+	
+	private final BookRepository bookRepository;
+	private final boolean enabled;
+	private final Duration overlap;
+	private final Object writeLock = new Object();
+	// Books deleted while a poll was running must not be brought back by its results
+	private final Map<String, Instant> recentDeletions = new ConcurrentHashMap<>();
+	private volatile CatalogSnapshot snapshot;
+	private volatile Instant refreshedAt;
+	private Timer incrementalRefreshTimer;
+	private Timer fullRefreshTimer;
+	
+	public BookNearCache(
+		BookRepository bookRepository,
+		@Value("${polar.near-cache.enabled:false}") boolean enabled,
+		@Value("${polar.near-cache.overlap:PT5S}") Duration overlap
+	) {
+		this.bookRepository = bookRepository;
+		this.enabled = enabled;
+		this.overlap = overlap;
+	}
+	
+	@EventListener({ ApplicationReadyEvent.class, CatalogResyncEvent.class })
+	@Order(Ordered.LOWEST_PRECEDENCE)
+	@Scheduled(
+		initialDelayString = "${polar.near-cache.full-refresh-interval:PT10M}",
+		fixedDelayString = "${polar.near-cache.full-refresh-interval:PT10M}"
+	)
+	// Read-write, so the scan runs on the primary: a lagging replica would miss recent writes for good
+	@Transactional
+	public void reload() {
+		if (!this.enabled) {
+			return;
+		}
+		long start = System.nanoTime();
+		Instant startedAt = Instant.now();
+		List<Book> books = new ArrayList<>();
+		this.bookRepository.streamAll(FETCH_SIZE, books::add);
+		synchronized (this.writeLock) {
+			// Books written while the catalog was read are within the overlap window of the next poll
+			this.snapshot = CatalogSnapshot.of(books).withChanges(List.of(), deletedSince(startedAt));
+			this.refreshedAt = startedAt;
+		}
+		record(this.fullRefreshTimer, start);
+		log.info("Loaded {} books into the near cache", books.size());
+	}
+	
+	@Scheduled(
+		initialDelayString = "${polar.near-cache.refresh-interval:PT1S}",
+		fixedDelayString = "${polar.near-cache.refresh-interval:PT1S}"
+	)
+	public void refresh() {
+		CatalogSnapshot current = this.snapshot;
+		if (current == null) {
+			return;
+		}
+		long start = System.nanoTime();
+		Instant startedAt = Instant.now();
+		Instant since = current.lastModifiedDate() != null ? current.lastModifiedDate().minus(this.overlap) : Instant.EPOCH;
+		List<Book> changedBooks = this.bookRepository.findModifiedSince(since);
+		synchronized (this.writeLock) {
+			List<String> deletedIsbns = deletedSince(startedAt);
+			this.snapshot = this.snapshot.withChanges(
+				changedBooks.stream().filter(book -> !deletedIsbns.contains(book.isbn())).toList(),
+				deletedIsbns
+			);
+			this.refreshedAt = startedAt;
+			this.recentDeletions.values().removeIf(deletedAt -> deletedAt.isBefore(startedAt.minus(this.overlap)));
+		}
+		record(this.incrementalRefreshTimer, start);
+	}
+	
+	@EventListener
+	public void onBookChanged(BookChangedEvent event) {
+		if (this.snapshot == null) {
+			return;
+		}
+		synchronized (this.writeLock) {
+			if (event.type() == BookChangeType.DELETED) {
+				this.recentDeletions.put(event.isbn(), Instant.now());
+				this.snapshot = this.snapshot.withChanges(List.of(), List.of(event.isbn()));
+			} else if (event.book() != null) {
+				this.recentDeletions.remove(event.isbn());
+				this.snapshot = this.snapshot.withChanges(List.of(event.book()), List.of());
+			}
+		}
+	}
+	
+	/**
+	 * Whether reads can be served from memory: the near cache is enabled and loaded.
+	 */
+	public boolean isActive() {
+		return this.snapshot != null;
+	}
+	
+	public Optional<Book> findByIsbn(String isbn) {
+		CatalogSnapshot current = this.snapshot;
+		return current != null ? Optional.ofNullable(current.findByIsbn(isbn)) : Optional.empty();
+	}
+	
+	public List<Book> findPageAfterId(long afterId, int limit) {
+		CatalogSnapshot current = this.snapshot;
+		return current != null ? current.findPageAfterId(afterId, limit) : List.of();
+	}
+	
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		if (!this.enabled) {
+			return;
+		}
+		Gauge.builder("polar.near-cache.books", this, nearCache -> {
+				CatalogSnapshot current = nearCache.snapshot;
+				return current != null ? current.size() : 0;
+			})
+			.description("Books held in the near cache")
+			.register(registry);
+		Gauge.builder("polar.near-cache.age", this, nearCache -> {
+				Instant refreshedAt = nearCache.refreshedAt;
+				return refreshedAt != null ? Duration.between(refreshedAt, Instant.now()).toMillis() / 1000.0 : Double.NaN;
+			})
+			.description("Time since the near cache was last refreshed from the database")
+			.baseUnit("seconds")
+			.register(registry);
+		this.incrementalRefreshTimer = Timer.builder("polar.near-cache.refresh")
+			.description("Time taken to refresh the near cache")
+			.tag("type", "incremental")
+			.register(registry);
+		this.fullRefreshTimer = Timer.builder("polar.near-cache.refresh")
+			.description("Time taken to refresh the near cache")
+			.tag("type", "full")
+			.register(registry);
+	}
+	
+	private List<String> deletedSince(Instant instant) {
+		return this.recentDeletions.entrySet().stream()
+			.filter(deletion -> !deletion.getValue().isBefore(instant))
+			.map(Map.Entry::getKey)
+			.toList();
+	}
+	
+	private static void record(Timer timer, long start) {
+		if (timer != null) {
+			timer.record(Duration.ofNanos(System.nanoTime() - start));
+		}
+	}
+}
@@ -2,6 +2,7 @@ package com.polarbookshop.catalogservice.domain;
 
 public class BookNotFoundException extends RuntimeException {
 	public BookNotFoundException(String isbn) {
-		super("The book with ISBN " + isbn + " was not found.");
+		// Unknown ISBNs are requested often and the stack trace is never used, so it isn't captured
+		super("The book with ISBN " + isbn + " was not found.", null, false, false);
 	}
 }
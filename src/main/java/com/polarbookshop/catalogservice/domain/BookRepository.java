@@ -1,5 +1,7 @@
 package com.polarbookshop.catalogservice.domain;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jdbc.repository.query.Modifying;
@@ -7,10 +9,31 @@ import org.springframework.data.jdbc.repository.query.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.transaction.annotation.Transactional;
 
-public interface BookRepository extends CrudRepository<Book, Long> {
+/**
+ * Queries that may be served by a read replica are read-only transactions. They are marked here
+ * rather than on the service, so reads answered from memory never open a transaction and take a
+ * pooled connection. {@link #findModifiedSince} polls for the near cache and must not lag behind
+ * the primary, so it is left out. So are {@link #findByIsbn} and {@link #findAllByIsbn}, which
+ * fill caches: the invalidation of a book is sent once, when it is written, so a stale copy read
+ * from a lagging replica would be kept until it expires.
+ */
+public interface BookRepository extends CrudRepository<Book, Long>, CustomBookRepository {
 	Optional<Book> findByIsbn(String isbn);
+	
+	@Transactional(readOnly = true)
 	boolean existsByIsbn(String isbn);
 	
+	@Transactional(readOnly = true)
+	@Query("select * from book where id > :afterId order by id limit :limit")
+	List<Book> findPageAfterId(long afterId, int limit);
+	
+	@Query("select * from book where last_modified_date >= :since")
+	List<Book> findModifiedSince(Instant since);
+	
+	@Transactional(readOnly = true)
+	@Query("select cast(greatest(reltuples, 0) as bigint) from pg_class where oid = to_regclass('book')")
+	long estimateCount();
+	
 	@Modifying
 	@Transactional
 	@Query("delete from Book where isbn = :isbn")
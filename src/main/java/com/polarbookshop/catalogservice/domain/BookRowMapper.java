@@ -0,0 +1,42 @@
+package com.polarbookshop.catalogservice.domain;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+
+import org.springframework.jdbc.core.RowMapper;
+
+/**
+ * Maps rows of the book table for queries issued outside of Spring Data JDBC.
+ */
+public final class BookRowMapper implements RowMapper<Book> {
+	public static final BookRowMapper INSTANCE = new BookRowMapper();
+	
+	static final String COLUMNS = "id, isbn, title, author, price, publisher, "
+		+ "created_date, last_modified_date, created_by, last_modified_by, version";
+	
+	private BookRowMapper() {
+	}
+	
+	@Override
+	public Book mapRow(ResultSet rs, int rowNum) throws SQLException {
+		return new Book(
+			rs.getLong("id"),
+			rs.getString("isbn"),
+			rs.getString("title"),
+			rs.getString("author"),
+			rs.getDouble("price"),
+			rs.getString("publisher"),
+			toInstant(rs.getTimestamp("created_date")),
+			toInstant(rs.getTimestamp("last_modified_date")),
+			rs.getString("created_by"),
+			rs.getString("last_modified_by"),
+			rs.getInt("version")
+		);
+	}
+	
+	private static Instant toInstant(Timestamp timestamp) {
+		return timestamp != null ? timestamp.toInstant() : null;
+	}
+}
@@ -0,0 +1,6 @@
+package com.polarbookshop.catalogservice.domain;
+
+public record BookSearchHit(
+	Book book,
+	float rank
+) {}
@@ -1,52 +1,191 @@
 package com.polarbookshop.catalogservice.domain;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheConfig;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
 
 @Service
+@CacheConfig(cacheNames = BookService.BOOKS_CACHE)
 public class BookService {
+	public static final String BOOKS_CACHE = "books";
+	
 	private final BookRepository bookRepository;
+	private final ApplicationEventPublisher eventPublisher;
+	private final CacheManager cacheManager;
+	private final SingleFlight<String, Book> bookLoads;
+	private final BookIsbnFilter isbnFilter;
+	private final BookNearCache nearCache;
 	
-	public BookService(BookRepository bookRepository) {
+	public BookService(BookRepository bookRepository, ApplicationEventPublisher eventPublisher, CacheManager cacheManager,
+			SingleFlight<String, Book> bookLoads, BookIsbnFilter isbnFilter, BookNearCache nearCache) {
 		this.bookRepository = bookRepository;
+		this.eventPublisher = eventPublisher;
+		this.cacheManager = cacheManager;
+		this.bookLoads = bookLoads;
+		this.isbnFilter = isbnFilter;
+		this.nearCache = nearCache;
 	}
 	
 	public Iterable<Book> viewBookList() {
 		return this.bookRepository.findAll();
 	}
 	
+	public Slice<Book> viewBookPage(long afterId, int limit) {
+		List<Book> books = this.nearCache.isActive()
+			? this.nearCache.findPageAfterId(afterId, limit + 1)
+			: this.bookRepository.findPageAfterId(afterId, limit + 1);
+		boolean hasNext = books.size() > limit;
+		return new SliceImpl<>(hasNext ? books.subList(0, limit) : books, PageRequest.ofSize(limit), hasNext);
+	}
+	
+	public Slice<BookSearchHit> searchBooks(String query, Float afterRank, long afterId, int limit) {
+		List<BookSearchHit> hits = this.bookRepository.search(query, afterRank, afterId, limit + 1);
+		boolean hasNext = hits.size() > limit;
+		return new SliceImpl<>(hasNext ? hits.subList(0, limit) : hits, PageRequest.ofSize(limit), hasNext);
+	}
+	
+	public Slice<BookChange> viewChanges(long afterSequence, Duration settleTime, int limit) {
+		List<BookChange> changes = this.bookRepository.findChangesAfter(afterSequence, settleTime, limit + 1);
+		boolean hasNext = changes.size() > limit;
+		return new SliceImpl<>(hasNext ? changes.subList(0, limit) : changes, PageRequest.ofSize(limit), hasNext);
+	}
+	
+	public long estimateBookCount() {
+		return this.bookRepository.estimateCount();
+	}
+	
+	public void exportCatalog(int fetchSize, Consumer<Book> action) {
+		this.bookRepository.streamAll(fetchSize, action);
+	}
+	
+	public BookVersion viewBookVersion(String isbn) {
+		// Taken from a cached copy when there is one, which is what viewBookDetails would return
+		Cache cache = this.cacheManager.getCache(BOOKS_CACHE);
+		Book cachedBook = this.nearCache.findByIsbn(isbn)
+			.orElseGet(() -> cache != null ? cache.get(isbn, Book.class) : null);
+		if (cachedBook != null) {
+			return new BookVersion(cachedBook.id(), cachedBook.version());
+		}
+		if (!this.isbnFilter.mightContain(isbn)) {
+			throw new BookNotFoundException(isbn);
+		}
+		return this.bookRepository.findVersionByIsbn(isbn).orElseThrow(() -> new BookNotFoundException(isbn));
+	}
+	
+	@Cacheable(key = "#isbn")
 	public Book viewBookDetails(String isbn) {
-		return this.bookRepository.findByIsbn(isbn).orElseThrow(() -> new BookNotFoundException(isbn));
+		Optional<Book> nearCachedBook = this.nearCache.findByIsbn(isbn);
+		if (nearCachedBook.isPresent()) {
+			return nearCachedBook.get();
+		}
+		// Books missing from the near cache may have been created since its last refresh
+		if (!this.isbnFilter.mightContain(isbn)) {
+			throw new BookNotFoundException(isbn);
+		}
+		// Concurrent cache misses for the same book share a single query
+		return this.bookLoads.load(isbn, () -> this.bookRepository.findByIsbn(isbn)
+			.orElseThrow(() -> new BookNotFoundException(isbn)));
 	}
 	
-	public Book addBookToCatalog(Book book) {
-		if (this.bookRepository.existsByIsbn(book.isbn())) {
-			throw new BookAlreadyExistsException(book.isbn());
+	public BookLookupResult lookupBooks(Collection<String> isbns) {
+		Set<String> requestedIsbns = new LinkedHashSet<>(isbns);
+		Map<String, Book> foundBooks = new LinkedHashMap<>();
+		Cache cache = this.cacheManager.getCache(BOOKS_CACHE);
+		List<String> isbnsToLoad = new ArrayList<>();
+		for (String isbn : requestedIsbns) {
+			Book cachedBook = this.nearCache.findByIsbn(isbn)
+				.orElseGet(() -> cache != null ? cache.get(isbn, Book.class) : null);
+			if (cachedBook != null) {
+				foundBooks.put(isbn, cachedBook);
+			} else if (this.isbnFilter.mightContain(isbn)) {
+				isbnsToLoad.add(isbn);
+			}
 		}
-		return this.bookRepository.save(book);
+		if (!isbnsToLoad.isEmpty()) {
+			for (Book book : this.bookRepository.findAllByIsbn(isbnsToLoad)) {
+				foundBooks.put(book.isbn(), book);
+				if (cache != null) {
+					cache.put(book.isbn(), book);
+				}
+			}
+		}
+		
+		List<Book> books = new ArrayList<>(foundBooks.size());
+		List<String> missing = new ArrayList<>();
+		for (String isbn : requestedIsbns) {
+			Book book = foundBooks.get(isbn);
+			if (book != null) {
+				books.add(book);
+			} else {
+				missing.add(isbn);
+			}
+		}
+		return new BookLookupResult(books, missing);
+	}
+	
+	/**
+	 * Reads the given books as just committed, bypassing the caches, which may not have caught up yet.
+	 */
+	public List<Book> viewCommittedBooks(Collection<String> isbns) {
+		return this.bookRepository.findAllByIsbn(isbns);
 	}
 	
+	@CachePut(key = "#result.isbn()")
+	public Book addBookToCatalog(Book book) {
+		Book createdBook = this.bookRepository.insertIfAbsent(book)
+			.orElseThrow(() -> new BookAlreadyExistsException(book.isbn()));
+		this.eventPublisher.publishEvent(new BookChangedEvent(BookChangeType.CREATED, createdBook.isbn(), createdBook));
+		return createdBook;
+	}
+	
+	@CacheEvict(key = "#isbn")
 	public void removeBookFromCatalog(String isbn) {
 		this.bookRepository.deleteByIsbn(isbn);
+		this.eventPublisher.publishEvent(new BookChangedEvent(BookChangeType.DELETED, isbn, null));
 	}
 	
+	@Caching(
+		evict = @CacheEvict(key = "#isbn", beforeInvocation = true),
+		put = @CachePut(key = "#result.isbn()")
+	)
 	public Book editBookDetails(String isbn, Book book) {
-		return this.bookRepository.findByIsbn(isbn)
-			.map(existingBook -> {
-				Book bookToUpdate = new Book(
-					existingBook.id(),
-					existingBook.isbn(),
-					book.title(),
-					book.author(),
-					book.price(),
-					book.publisher(),
-					existingBook.createdDate(),
-					existingBook.lastModifiedDate(),
-					existingBook.createdBy(),
-					existingBook.lastModifiedBy(),
-					existingBook.version()
-				);
-				return this.bookRepository.save(bookToUpdate);
+		return this.bookRepository.updateByIsbn(isbn, book)
+			.map(updatedBook -> {
+				this.eventPublisher.publishEvent(new BookChangedEvent(BookChangeType.UPDATED, isbn, updatedBook));
+				return updatedBook;
 			})
 			.orElseGet(() -> this.addBookToCatalog(book));
 	}
+	
+	// Also receives the changes made by other instances, whose cached copies would otherwise go stale
+	@EventListener
+	@CacheEvict(key = "#event.isbn()")
+	public void onBookChanged(BookChangedEvent event) {
+	}
+	
+	@EventListener(CatalogResyncEvent.class)
+	@CacheEvict(allEntries = true)
+	public void onCatalogResync() {
+	}
 }
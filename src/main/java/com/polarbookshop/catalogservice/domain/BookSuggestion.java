@@ -0,0 +1,7 @@
+package com.polarbookshop.catalogservice.domain;
+
+public record BookSuggestion(
+	String isbn,
+	String title,
+	String author
+) {}
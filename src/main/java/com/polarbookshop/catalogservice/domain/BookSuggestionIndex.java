@@ -0,0 +1,424 @@
+package com.polarbookshop.catalogservice.domain;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory prefix index over normalized title and author terms, used for type-ahead
+ * suggestions. Every term of a book is an entry of immutable arrays sorted by term, so a prefix
+ * lookup is a binary search followed by a scan of the matching entries, ranked as they are found.
+ * Rebuilds and batches of changes produce a new index off to the side, swapped in with a single
+ * volatile write, so lookups never see a partially built index. Changes are queued and applied by
+ * {@link #refresh()} to a small overlay on top of the arrays, and suggestions trail writes by up to
+ * the refresh interval.
+ * <p>
+ * Matches are ranked by where the prefix was found: the start of the title, a word of the title,
+ * the start of the author, then a word of the author. Whole-word matches come first within each,
+ * then shorter titles.
+ */
+@Component
+public class BookSuggestionIndex {
+	private static final Logger log = LoggerFactory.getLogger(BookSuggestionIndex.class);
+	private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+	private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+	private static final int FETCH_SIZE = 1000;
+	static final int MAX_OVERLAY_SIZE = 1024;
+	// Where a term comes from, in ranking order
+	private static final byte TITLE = 0;
+	private static final byte TITLE_WORD = 1;
+	private static final byte AUTHOR = 2;
+	private static final byte AUTHOR_WORD = 3;
+	
+	private final BookRepository bookRepository;
+	private final Object writeLock = new Object();
+	// Suggestions to add or replace, mapped to empty for books to remove
+	private final Map<String, Optional<BookSuggestion>> pending = new ConcurrentHashMap<>();
+	// Books changed by other instances, whose notifications only carry the ISBN
+	private final Set<String> stale = ConcurrentHashMap.newKeySet();
+	private volatile Index index = Index.EMPTY;
+	
+	public BookSuggestionIndex(BookRepository bookRepository) {
+		this.bookRepository = bookRepository;
+	}
+	
+	@EventListener({ ApplicationReadyEvent.class, CatalogResyncEvent.class })
+	@Order(Ordered.LOWEST_PRECEDENCE)
+	public void build() {
+		synchronized (this.writeLock) {
+			List<BookSuggestion> suggestions = new ArrayList<>();
+			this.bookRepository.streamAll(FETCH_SIZE, book -> suggestions.add(toSuggestion(book)));
+			// Changes queued meanwhile are applied again by the next refresh, which is harmless
+			this.index = Index.of(suggestions);
+		}
+		log.info("Indexed {} books for suggestions", this.index.size());
+	}
+	
+	@EventListener
+	public void onBookChanged(BookChangedEvent event) {
+		if (event.type() == BookChangeType.DELETED) {
+			remove(event.isbn());
+		} else if (event.book() != null) {
+			index(event.book());
+		} else {
+			this.stale.add(event.isbn());
+		}
+	}
+	
+	public void index(Book book) {
+		this.pending.put(book.isbn(), Optional.of(toSuggestion(book)));
+	}
+	
+	public void remove(String isbn) {
+		this.pending.put(isbn, Optional.empty());
+	}
+	
+	/**
+	 * Applies the queued changes, loading the books other instances changed with a single query.
+	 */
+	@Scheduled(
+		initialDelayString = "${polar.suggestions.refresh-interval:PT1S}",
+		fixedDelayString = "${polar.suggestions.refresh-interval:PT1S}"
+	)
+	public void refresh() {
+		synchronized (this.writeLock) {
+			Map<String, Optional<BookSuggestion>> changes = new HashMap<>();
+			for (String isbn : this.pending.keySet()) {
+				Optional<BookSuggestion> change = this.pending.remove(isbn);
+				if (change != null) {
+					changes.put(isbn, change);
+				}
+			}
+			if (!this.stale.isEmpty()) {
+				Set<String> isbns = new HashSet<>(this.stale);
+				this.stale.removeAll(isbns);
+				isbns.forEach(isbn -> changes.put(isbn, Optional.empty()));
+				this.bookRepository.findAllByIsbn(isbns)
+					.forEach(book -> changes.put(book.isbn(), Optional.of(toSuggestion(book))));
+			}
+			if (!changes.isEmpty()) {
+				this.index = this.index.withChanges(changes);
+			}
+		}
+	}
+	
+	public List<BookSuggestion> suggest(String prefix, int limit) {
+		String normalizedPrefix = normalize(prefix);
+		if (normalizedPrefix.isEmpty() || limit < 1) {
+			return List.of();
+		}
+		return this.index.suggest(normalizedPrefix, limit);
+	}
+	
+	public int size() {
+		return this.index.size();
+	}
+	
+	static String normalize(String text) {
+		if (text == null) {
+			return "";
+		}
+		String withoutDiacritics = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+		return SEPARATORS.matcher(withoutDiacritics.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+	}
+	
+	private static BookSuggestion toSuggestion(Book book) {
+		return new BookSuggestion(book.isbn(), book.title(), book.author());
+	}
+	
+	/**
+	 * Entries of the books as of the last compaction, and an overlay of the books changed since,
+	 * which hides their base entries. A batch of changes copies the overlay only, and the overlay
+	 * is folded into new base arrays once it holds more than {@value #MAX_OVERLAY_SIZE} books.
+	 */
+	private static final class Index {
+		static final Index EMPTY = new Index(Terms.EMPTY, Map.of(), Map.of(), Terms.EMPTY, 0);
+		
+		private final Terms base;
+		private final Map<String, BookSuggestion> baseByIsbn;
+		// Books changed since the base was built, mapped to null once removed
+		private final Map<String, BookSuggestion> changedByIsbn;
+		private final Terms changes;
+		private final int size;
+		
+		private Index(Terms base, Map<String, BookSuggestion> baseByIsbn, Map<String, BookSuggestion> changedByIsbn,
+				Terms changes, int size) {
+			this.base = base;
+			this.baseByIsbn = baseByIsbn;
+			this.changedByIsbn = changedByIsbn;
+			this.changes = changes;
+			this.size = size;
+		}
+		
+		static Index of(Collection<BookSuggestion> suggestions) {
+			Map<String, BookSuggestion> suggestionsByIsbn = new HashMap<>();
+			suggestions.forEach(suggestion -> suggestionsByIsbn.put(suggestion.isbn(), suggestion));
+			return new Index(Terms.of(suggestionsByIsbn.values()), Collections.unmodifiableMap(suggestionsByIsbn),
+				Map.of(), Terms.EMPTY, suggestionsByIsbn.size());
+		}
+		
+		/**
+		 * Returns an index with the given suggestions added or replaced, and the books mapped to empty removed.
+		 */
+		Index withChanges(Map<String, Optional<BookSuggestion>> changes) {
+			Map<String, BookSuggestion> changedByIsbn = new HashMap<>(this.changedByIsbn);
+			int newSize = this.size;
+			for (Map.Entry<String, Optional<BookSuggestion>> change : changes.entrySet()) {
+				BookSuggestion suggestion = change.getValue().orElse(null);
+				newSize += (suggestion != null ? 1 : 0) - (find(change.getKey()) != null ? 1 : 0);
+				changedByIsbn.put(change.getKey(), suggestion);
+			}
+			if (changedByIsbn.size() > MAX_OVERLAY_SIZE) {
+				return compact(changedByIsbn, newSize);
+			}
+			return new Index(this.base, this.baseByIsbn, Collections.unmodifiableMap(changedByIsbn),
+				Terms.of(present(changedByIsbn)), newSize);
+		}
+		
+		List<BookSuggestion> suggest(String prefix, int limit) {
+			TopMatches matches = new TopMatches(prefix.length(), limit);
+			this.base.collect(prefix, this.changedByIsbn, matches);
+			this.changes.collect(prefix, Map.of(), matches);
+			return matches.toList();
+		}
+		
+		int size() {
+			return this.size;
+		}
+		
+		private BookSuggestion find(String isbn) {
+			BookSuggestion changed = this.changedByIsbn.get(isbn);
+			if (changed != null || this.changedByIsbn.containsKey(isbn)) {
+				return changed;
+			}
+			return this.baseByIsbn.get(isbn);
+		}
+		
+		private Index compact(Map<String, BookSuggestion> changedByIsbn, int size) {
+			Map<String, BookSuggestion> suggestionsByIsbn = new HashMap<>(this.baseByIsbn);
+			changedByIsbn.forEach((isbn, suggestion) -> {
+				if (suggestion != null) {
+					suggestionsByIsbn.put(isbn, suggestion);
+				} else {
+					suggestionsByIsbn.remove(isbn);
+				}
+			});
+			Terms merged = this.base.merge(Terms.of(present(changedByIsbn)), changedByIsbn.keySet());
+			return new Index(merged, Collections.unmodifiableMap(suggestionsByIsbn), Map.of(), Terms.EMPTY, size);
+		}
+		
+		private static List<BookSuggestion> present(Map<String, BookSuggestion> changedByIsbn) {
+			List<BookSuggestion> suggestions = new ArrayList<>(changedByIsbn.size());
+			for (BookSuggestion suggestion : changedByIsbn.values()) {
+				if (suggestion != null) {
+					suggestions.add(suggestion);
+				}
+			}
+			return suggestions;
+		}
+	}
+	
+	/**
+	 * Immutable entries sorted by term, then ISBN, held in parallel arrays. The entries of a book
+	 * share its suggestion instance.
+	 */
+	private static final class Terms {
+		static final Terms EMPTY = new Terms(new String[0], new byte[0], new BookSuggestion[0]);
+		
+		private final String[] terms;
+		private final byte[] kinds;
+		private final BookSuggestion[] suggestions;
+		
+		private Terms(String[] terms, byte[] kinds, BookSuggestion[] suggestions) {
+			this.terms = terms;
+			this.kinds = kinds;
+			this.suggestions = suggestions;
+		}
+		
+		static Terms of(Collection<BookSuggestion> suggestions) {
+			return suggestions.isEmpty() ? EMPTY : EMPTY.merge(entriesOf(suggestions), Set.of());
+		}
+		
+		/**
+		 * Offers every entry starting with the prefix, except those of the hidden books.
+		 */
+		void collect(String prefix, Map<String, ?> hiddenIsbns, TopMatches matches) {
+			for (int i = lowerBound(prefix); i < this.terms.length && this.terms[i].startsWith(prefix); i++) {
+				BookSuggestion suggestion = this.suggestions[i];
+				if (hiddenIsbns.isEmpty() || !hiddenIsbns.containsKey(suggestion.isbn())) {
+					matches.offer(suggestion, this.kinds[i], this.terms[i].length());
+				}
+			}
+		}
+		
+		private int lowerBound(String prefix) {
+			int low = 0;
+			int high = this.terms.length;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (this.terms[middle].compareTo(prefix) < 0) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+			return low;
+		}
+		
+		/**
+		 * Merges sorted new entries into a copy of these, leaving out the entries of the replaced books.
+		 */
+		private Terms merge(Terms added, Set<String> replacedIsbns) {
+			int capacity = this.terms.length + added.terms.length;
+			String[] newTerms = new String[capacity];
+			byte[] newKinds = new byte[capacity];
+			BookSuggestion[] newSuggestions = new BookSuggestion[capacity];
+			int size = 0;
+			int next = 0;
+			for (int i = 0; i < this.terms.length; i++) {
+				if (replacedIsbns.contains(this.suggestions[i].isbn())) {
+					continue;
+				}
+				while (next < added.terms.length && added.compare(next, this.terms[i], this.suggestions[i].isbn()) < 0) {
+					newTerms[size] = added.terms[next];
+					newKinds[size] = added.kinds[next];
+					newSuggestions[size++] = added.suggestions[next++];
+				}
+				newTerms[size] = this.terms[i];
+				newKinds[size] = this.kinds[i];
+				newSuggestions[size++] = this.suggestions[i];
+			}
+			while (next < added.terms.length) {
+				newTerms[size] = added.terms[next];
+				newKinds[size] = added.kinds[next];
+				newSuggestions[size++] = added.suggestions[next++];
+			}
+			return new Terms(Arrays.copyOf(newTerms, size), Arrays.copyOf(newKinds, size), Arrays.copyOf(newSuggestions, size));
+		}
+		
+		private Terms merge(List<Entry> added, Set<String> replacedIsbns) {
+			String[] addedTerms = new String[added.size()];
+			byte[] addedKinds = new byte[added.size()];
+			BookSuggestion[] addedSuggestions = new BookSuggestion[added.size()];
+			for (int i = 0; i < added.size(); i++) {
+				addedTerms[i] = added.get(i).term();
+				addedKinds[i] = added.get(i).kind();
+				addedSuggestions[i] = added.get(i).suggestion();
+			}
+			return merge(new Terms(addedTerms, addedKinds, addedSuggestions), replacedIsbns);
+		}
+		
+		private int compare(int index, String otherTerm, String otherIsbn) {
+			int byTerm = this.terms[index].compareTo(otherTerm);
+			return byTerm != 0 ? byTerm : this.suggestions[index].isbn().compareTo(otherIsbn);
+		}
+		
+		private static List<Entry> entriesOf(Collection<BookSuggestion> suggestions) {
+			List<Entry> entries = new ArrayList<>();
+			for (BookSuggestion suggestion : suggestions) {
+				// Inserted in ranking order, so a term found twice keeps its best kind
+				Map<String, Byte> terms = new LinkedHashMap<>();
+				addTerms(terms, normalize(suggestion.title()), TITLE, TITLE_WORD);
+				addTerms(terms, normalize(suggestion.author()), AUTHOR, AUTHOR_WORD);
+				terms.forEach((term, kind) -> entries.add(new Entry(term, kind, suggestion)));
+			}
+			entries.sort(Comparator.comparing(Entry::term).thenComparing(entry -> entry.suggestion().isbn()));
+			return entries;
+		}
+		
+		private static void addTerms(Map<String, Byte> terms, String field, byte fieldKind, byte wordKind) {
+			if (field.isEmpty()) {
+				return;
+			}
+			terms.putIfAbsent(field, fieldKind);
+			for (String word : field.split(" ")) {
+				terms.putIfAbsent(word, wordKind);
+			}
+		}
+	}
+	
+	/**
+	 * The best matches seen so far, at most one per book, kept sorted in fixed-size arrays so
+	 * that a scan ranks its candidates as it goes without allocating.
+	 */
+	private static final class TopMatches {
+		private final int prefixLength;
+		private final BookSuggestion[] suggestions;
+		private final int[] ranks;
+		private int count;
+		
+		TopMatches(int prefixLength, int limit) {
+			this.prefixLength = prefixLength;
+			this.suggestions = new BookSuggestion[limit];
+			this.ranks = new int[limit];
+		}
+		
+		void offer(BookSuggestion suggestion, byte kind, int termLength) {
+			// Whole-word matches rank first within a kind
+			int rank = kind * 2 + (termLength == this.prefixLength ? 0 : 1);
+			// Only the best match of a book is kept. One worse than a match evicted earlier ranks after
+			// the last kept, which only improves, so it is turned away as well
+			for (int i = 0; i < this.count; i++) {
+				if (this.suggestions[i] == suggestion) {
+					if (compare(rank, suggestion, i) >= 0) {
+						return;
+					}
+					System.arraycopy(this.suggestions, i + 1, this.suggestions, i, this.count - i - 1);
+					System.arraycopy(this.ranks, i + 1, this.ranks, i, this.count - i - 1);
+					this.count--;
+					break;
+				}
+			}
+			if (this.count == this.suggestions.length && compare(rank, suggestion, this.count - 1) >= 0) {
+				return;
+			}
+			int i = Math.min(this.count, this.suggestions.length - 1);
+			while (i > 0 && compare(rank, suggestion, i - 1) < 0) {
+				this.suggestions[i] = this.suggestions[i - 1];
+				this.ranks[i] = this.ranks[i - 1];
+				i--;
+			}
+			this.suggestions[i] = suggestion;
+			this.ranks[i] = rank;
+			this.count = Math.min(this.count + 1, this.suggestions.length);
+		}
+		
+		List<BookSuggestion> toList() {
+			return List.of(Arrays.copyOf(this.suggestions, this.count));
+		}
+		
+		private int compare(int rank, BookSuggestion suggestion, int index) {
+			int byRank = Integer.compare(rank, this.ranks[index]);
+			if (byRank != 0) {
+				return byRank;
+			}
+			BookSuggestion other = this.suggestions[index];
+			int byLength = Integer.compare(suggestion.title().length(), other.title().length());
+			return byLength != 0 ? byLength : suggestion.isbn().compareTo(other.isbn());
+		}
+	}
+	
+	private record Entry(String term, byte kind, BookSuggestion suggestion) {}
+}
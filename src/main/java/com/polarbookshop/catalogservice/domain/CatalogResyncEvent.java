@@ -0,0 +1,7 @@
+package com.polarbookshop.catalogservice.domain;
+
+/**
+ * Published when change notifications may have been missed, for example after the listener
+ * lost its database connection. In-memory views of the catalog must be rebuilt from the database.
+ */
+public record CatalogResyncEvent() {}
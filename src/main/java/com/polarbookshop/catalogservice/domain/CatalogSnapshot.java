@@ -0,0 +1,190 @@
+package com.polarbookshop.catalogservice.domain;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Immutable view of the whole catalog indexed by ISBN and id. Changes produce a new snapshot,
+ * so readers never lock and always see a consistent catalog.
+ * <p>
+ * Changes are kept in a small overlay on top of base maps shared between snapshots, so a write
+ * copies the overlay rather than the whole catalog. The overlay is folded into new base maps once
+ * it grows past {@value #MAX_OVERLAY_SIZE} entries.
+ */
+final class CatalogSnapshot {
+	static final int MAX_OVERLAY_SIZE = 1024;
+	static final CatalogSnapshot EMPTY = new CatalogSnapshot(Map.of(), Collections.emptyNavigableMap(),
+		Map.of(), Collections.emptyNavigableMap(), Set.of(), 0, null);
+	
+	private final Map<String, Book> baseByIsbn;
+	private final NavigableMap<Long, Book> baseById;
+	// Books changed since the base maps were built, mapped to null when deleted
+	private final Map<String, Book> changedByIsbn;
+	private final NavigableMap<Long, Book> changedById;
+	// Ids in the base maps that were deleted or replaced since
+	private final Set<Long> hiddenIds;
+	private final int size;
+	private final Instant lastModifiedDate;
+	
+	private CatalogSnapshot(Map<String, Book> baseByIsbn, NavigableMap<Long, Book> baseById,
+			Map<String, Book> changedByIsbn, NavigableMap<Long, Book> changedById, Set<Long> hiddenIds,
+			int size, Instant lastModifiedDate) {
+		this.baseByIsbn = baseByIsbn;
+		this.baseById = baseById;
+		this.changedByIsbn = changedByIsbn;
+		this.changedById = changedById;
+		this.hiddenIds = hiddenIds;
+		this.size = size;
+		this.lastModifiedDate = lastModifiedDate;
+	}
+	
+	static CatalogSnapshot of(Collection<Book> books) {
+		return EMPTY.withChanges(books, List.of());
+	}
+	
+	/**
+	 * Returns a snapshot with the given books added or replaced, unless the snapshot already holds
+	 * the same or a later version of them, and the given ISBNs removed. The same snapshot is
+	 * returned when nothing changes.
+	 */
+	CatalogSnapshot withChanges(Collection<Book> changedBooks, Collection<String> deletedIsbns) {
+		Map<String, Book> newChangedByIsbn = null;
+		NavigableMap<Long, Book> newChangedById = null;
+		Set<Long> newHiddenIds = null;
+		int newSize = this.size;
+		Instant newLastModifiedDate = this.lastModifiedDate;
+		for (Book book : changedBooks) {
+			Book previous = newChangedByIsbn != null ? find(newChangedByIsbn, book.isbn()) : findByIsbn(book.isbn());
+			// A different id means the book was deleted and created again
+			if (previous != null && previous.id().equals(book.id()) && previous.version() >= book.version()) {
+				continue;
+			}
+			if (newChangedByIsbn == null) {
+				newChangedByIsbn = new HashMap<>(this.changedByIsbn);
+				newChangedById = new TreeMap<>(this.changedById);
+				newHiddenIds = new HashSet<>(this.hiddenIds);
+			}
+			if (previous != null) {
+				hide(previous.id(), newChangedById, newHiddenIds);
+			} else {
+				newSize++;
+			}
+			newChangedByIsbn.put(book.isbn(), book);
+			newChangedById.put(book.id(), book);
+			if (book.lastModifiedDate() != null
+					&& (newLastModifiedDate == null || book.lastModifiedDate().isAfter(newLastModifiedDate))) {
+				newLastModifiedDate = book.lastModifiedDate();
+			}
+		}
+		for (String isbn : deletedIsbns) {
+			Book previous = newChangedByIsbn != null ? find(newChangedByIsbn, isbn) : findByIsbn(isbn);
+			if (previous == null) {
+				continue;
+			}
+			if (newChangedByIsbn == null) {
+				newChangedByIsbn = new HashMap<>(this.changedByIsbn);
+				newChangedById = new TreeMap<>(this.changedById);
+				newHiddenIds = new HashSet<>(this.hiddenIds);
+			}
+			hide(previous.id(), newChangedById, newHiddenIds);
+			if (this.baseByIsbn.containsKey(isbn)) {
+				newChangedByIsbn.put(isbn, null);
+			} else {
+				newChangedByIsbn.remove(isbn);
+			}
+			newSize--;
+		}
+		if (newChangedByIsbn == null) {
+			return this;
+		}
+		if (newChangedByIsbn.size() + newHiddenIds.size() > MAX_OVERLAY_SIZE) {
+			return compact(newChangedByIsbn, newChangedById, newHiddenIds, newSize, newLastModifiedDate);
+		}
+		return new CatalogSnapshot(this.baseByIsbn, this.baseById, Collections.unmodifiableMap(newChangedByIsbn),
+			Collections.unmodifiableNavigableMap(newChangedById), Collections.unmodifiableSet(newHiddenIds),
+			newSize, newLastModifiedDate);
+	}
+	
+	Book findByIsbn(String isbn) {
+		return find(this.changedByIsbn, isbn);
+	}
+	
+	List<Book> findPageAfterId(long afterId, int limit) {
+		// Merges the base and the overlay, both ordered by id
+		List<Book> page = new ArrayList<>(Math.min(limit, this.size));
+		Iterator<Book> base = this.baseById.tailMap(afterId, false).values().iterator();
+		Iterator<Book> changed = this.changedById.tailMap(afterId, false).values().iterator();
+		Book nextBase = nextVisible(base);
+		Book nextChanged = changed.hasNext() ? changed.next() : null;
+		while (page.size() < limit && (nextBase != null || nextChanged != null)) {
+			if (nextChanged == null || (nextBase != null && nextBase.id() < nextChanged.id())) {
+				page.add(nextBase);
+				nextBase = nextVisible(base);
+			} else {
+				page.add(nextChanged);
+				nextChanged = changed.hasNext() ? changed.next() : null;
+			}
+		}
+		return page;
+	}
+	
+	int size() {
+		return this.size;
+	}
+	
+	Instant lastModifiedDate() {
+		return this.lastModifiedDate;
+	}
+	
+	private Book find(Map<String, Book> changedByIsbn, String isbn) {
+		Book changed = changedByIsbn.get(isbn);
+		if (changed != null || changedByIsbn.containsKey(isbn)) {
+			return changed;
+		}
+		return this.baseByIsbn.get(isbn);
+	}
+	
+	private void hide(Long id, NavigableMap<Long, Book> changedById, Set<Long> hiddenIds) {
+		changedById.remove(id);
+		if (this.baseById.containsKey(id)) {
+			hiddenIds.add(id);
+		}
+	}
+	
+	private Book nextVisible(Iterator<Book> books) {
+		while (books.hasNext()) {
+			Book book = books.next();
+			if (!this.hiddenIds.contains(book.id())) {
+				return book;
+			}
+		}
+		return null;
+	}
+	
+	private CatalogSnapshot compact(Map<String, Book> changedByIsbn, NavigableMap<Long, Book> changedById,
+			Set<Long> hiddenIds, int size, Instant lastModifiedDate) {
+		Map<String, Book> booksByIsbn = new HashMap<>(this.baseByIsbn);
+		changedByIsbn.forEach((isbn, book) -> {
+			if (book != null) {
+				booksByIsbn.put(isbn, book);
+			} else {
+				booksByIsbn.remove(isbn);
+			}
+		});
+		NavigableMap<Long, Book> booksById = new TreeMap<>(this.baseById);
+		booksById.keySet().removeAll(hiddenIds);
+		booksById.putAll(changedById);
+		return new CatalogSnapshot(Collections.unmodifiableMap(booksByIsbn), Collections.unmodifiableNavigableMap(booksById),
+			Map.of(), Collections.emptyNavigableMap(), Set.of(), size, lastModifiedDate);
+	}
+}
@@ -0,0 +1,33 @@
+package com.polarbookshop.catalogservice.domain;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.springframework.transaction.annotation.Transactional;
+
+public interface CustomBookRepository {
+	@Transactional(readOnly = true)
+	void streamAll(int fetchSize, Consumer<Book> action);
+	
+	// Fills caches, so it runs on the primary, see BookRepository
+	List<Book> findAllByIsbn(Collection<String> isbns);
+	
+	@Transactional(readOnly = true)
+	Optional<BookVersion> findVersionByIsbn(String isbn);
+	
+	@Transactional(readOnly = true)
+	List<BookChange> findChangesAfter(long sequence, Duration settleTime, int limit);
+	
+	@Transactional(readOnly = true)
+	List<BookSearchHit> search(String query, Float afterRank, long afterId, int limit);
+	
+	Optional<Book> insertIfAbsent(Book book);
+	
+	Optional<Book> updateByIsbn(String isbn, Book book);
+	
+	Set<String> insertAll(List<Book> books);
+}
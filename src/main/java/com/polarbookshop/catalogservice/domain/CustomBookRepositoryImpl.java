@@ -0,0 +1,201 @@
+package com.polarbookshop.catalogservice.domain;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+
+class CustomBookRepositoryImpl implements CustomBookRepository {
+	private final JdbcTemplate jdbcTemplate;
+	private final AuditorAware<String> auditorAware;
+	
+	CustomBookRepositoryImpl(JdbcTemplate jdbcTemplate, AuditorAware<String> auditorAware) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.auditorAware = auditorAware;
+	}
+	
+	@Override
+	public void streamAll(int fetchSize, Consumer<Book> action) {
+		// The PostgreSQL driver only uses a server-side cursor when the statement
+		// runs inside a transaction and has a fetch size.
+		this.jdbcTemplate.query(connection -> {
+			PreparedStatement statement = connection.prepareStatement(
+				"select " + BookRowMapper.COLUMNS + " from book order by id",
+				ResultSet.TYPE_FORWARD_ONLY,
+				ResultSet.CONCUR_READ_ONLY
+			);
+			statement.setFetchSize(fetchSize);
+			return statement;
+		}, (RowCallbackHandler) rs -> action.accept(BookRowMapper.INSTANCE.mapRow(rs, rs.getRow())));
+	}
+	
+	@Override
+	public List<Book> findAllByIsbn(Collection<String> isbns) {
+		// A single array parameter keeps the statement text identical whatever the number of ISBNs
+		return this.jdbcTemplate.query(
+			connection -> {
+				PreparedStatement statement = connection.prepareStatement(
+					"select " + BookRowMapper.COLUMNS + " from book where isbn = any(cast(? as varchar[]))");
+				statement.setArray(1, array(connection, "varchar", isbns.toArray(String[]::new)));
+				return statement;
+			},
+			BookRowMapper.INSTANCE
+		);
+	}
+	
+	@Override
+	public Optional<BookVersion> findVersionByIsbn(String isbn) {
+		return this.jdbcTemplate.query(
+			"select id, version from book where isbn = ?",
+			(rs, rowNum) -> new BookVersion(rs.getLong("id"), rs.getInt("version")),
+			isbn
+		).stream().findFirst();
+	}
+	
+	@Override
+	public List<BookChange> findChangesAfter(long sequence, Duration settleTime, int limit) {
+		// Books and tombstones are read with two range scans on their change_seq indexes and merged.
+		// Sequence values are drawn before commit, so a lower one may still become visible after a
+		// higher one was returned. The feed therefore stops at the first change written within the
+		// settle time, judged by the database clock that stamped it. A transaction that stays open
+		// longer than the settle time after drawing its sequence can still be skipped.
+		double settleSeconds = settleTime.toNanos() / 1_000_000_000d;
+		List<SequencedChange> changes = new ArrayList<>(this.jdbcTemplate.query(
+			"select change_seq, change_date <= statement_timestamp() - make_interval(secs => ?) as settled, "
+				+ BookRowMapper.COLUMNS + " from book where change_seq > ? order by change_seq limit ?",
+			(rs, rowNum) -> {
+				Book book = BookRowMapper.INSTANCE.mapRow(rs, rowNum);
+				BookChangeType type = book.version() <= 1 ? BookChangeType.CREATED : BookChangeType.UPDATED;
+				return new SequencedChange(new BookChange(rs.getLong("change_seq"), type, book.isbn(), book), rs.getBoolean("settled"));
+			},
+			settleSeconds, sequence, limit
+		));
+		changes.addAll(this.jdbcTemplate.query(
+			"select change_seq, change_date <= statement_timestamp() - make_interval(secs => ?) as settled, isbn"
+				+ " from book_tombstone where change_seq > ? order by change_seq limit ?",
+			(rs, rowNum) -> new SequencedChange(
+				new BookChange(rs.getLong("change_seq"), BookChangeType.DELETED, rs.getString("isbn"), null), rs.getBoolean("settled")),
+			settleSeconds, sequence, limit
+		));
+		changes.sort(Comparator.comparingLong(change -> change.change().sequence()));
+		
+		List<BookChange> settled = new ArrayList<>(Math.min(changes.size(), limit));
+		for (SequencedChange change : changes) {
+			if (!change.settled() || settled.size() == limit) {
+				break;
+			}
+			settled.add(change.change());
+		}
+		return settled;
+	}
+	
+	private record SequencedChange(BookChange change, boolean settled) {}
+	
+	@Override
+	public List<BookSearchHit> search(String query, Float afterRank, long afterId, int limit) {
+		// Ranked by relevance, then by id, so the pair (rank, id) works as a keyset cursor
+		String sql = "select " + BookRowMapper.COLUMNS + ", ts_rank(search_vector, query) as rank "
+			+ "from book, websearch_to_tsquery('english', ?) as query "
+			+ "where search_vector @@ query ";
+		RowMapper<BookSearchHit> rowMapper = (rs, rowNum) ->
+			new BookSearchHit(BookRowMapper.INSTANCE.mapRow(rs, rowNum), rs.getFloat("rank"));
+		if (afterRank == null) {
+			return this.jdbcTemplate.query(sql + " order by rank desc, id limit ?", rowMapper, query, limit);
+		}
+		return this.jdbcTemplate.query(
+			sql + """
+				and (ts_rank(search_vector, query) < cast(? as real)
+					or (ts_rank(search_vector, query) = cast(? as real) and id > ?))
+				order by rank desc, id limit ?
+				""",
+			rowMapper, query, afterRank, afterRank, afterId, limit
+		);
+	}
+	
+	@Override
+	public Optional<Book> insertIfAbsent(Book book) {
+		// The dates are stamped by the book_change_seq trigger with the database clock, so the
+		// near cache polling them sees the same clock whichever instance wrote.
+		String auditor = currentAuditor();
+		return this.jdbcTemplate.query(
+			"""
+			insert into book (isbn, title, author, price, publisher, created_by, last_modified_by, version)
+			values (?, ?, ?, ?, ?, ?, ?, 1)
+			on conflict (isbn) do nothing
+			returning """ + BookRowMapper.COLUMNS,
+			BookRowMapper.INSTANCE,
+			book.isbn(), book.title(), book.author(), book.price(), book.publisher(),
+			auditor, auditor
+		).stream().findFirst();
+	}
+	
+	@Override
+	public Optional<Book> updateByIsbn(String isbn, Book book) {
+		// The version is incremented by the statement itself, so concurrent edits
+		// can't overwrite each other's changes with a stale version. The modification
+		// date is stamped by the book_change_seq trigger.
+		return this.jdbcTemplate.query(
+			"""
+			update book
+			set title = ?, author = ?, price = ?, publisher = ?,
+				last_modified_by = ?, version = version + 1
+			where isbn = ?
+			returning """ + BookRowMapper.COLUMNS,
+			BookRowMapper.INSTANCE,
+			book.title(), book.author(), book.price(), book.publisher(),
+			currentAuditor(),
+			isbn
+		).stream().findFirst();
+	}
+	
+	@Override
+	public Set<String> insertAll(List<Book> books) {
+		String auditor = currentAuditor();
+		// All records of a batch are sent as arrays in a single statement, so the whole
+		// batch costs one round trip and duplicates are reported back through RETURNING.
+		Set<String> insertedIsbns = new HashSet<>();
+		this.jdbcTemplate.query(connection -> {
+			PreparedStatement statement = connection.prepareStatement("""
+				insert into book (isbn, title, author, price, publisher, created_by, last_modified_by, version)
+				select t.isbn, t.title, t.author, t.price, t.publisher, cast(? as varchar), cast(? as varchar), 1
+				from unnest(
+					cast(? as varchar[]), cast(? as varchar[]), cast(? as varchar[]), cast(? as float8[]), cast(? as varchar[])
+				) as t(isbn, title, author, price, publisher)
+				on conflict (isbn) do nothing
+				returning isbn
+				""");
+			statement.setString(1, auditor);
+			statement.setString(2, auditor);
+			statement.setArray(3, array(connection, "varchar", books.stream().map(Book::isbn).toArray(String[]::new)));
+			statement.setArray(4, array(connection, "varchar", books.stream().map(Book::title).toArray(String[]::new)));
+			statement.setArray(5, array(connection, "varchar", books.stream().map(Book::author).toArray(String[]::new)));
+			statement.setArray(6, array(connection, "float8", books.stream().map(Book::price).toArray(Double[]::new)));
+			statement.setArray(7, array(connection, "varchar", books.stream().map(Book::publisher).toArray(String[]::new)));
+			return statement;
+		}, (RowCallbackHandler) rs -> insertedIsbns.add(rs.getString("isbn")));
+		return insertedIsbns;
+	}
+	
+	private static Array array(Connection connection, String type, Object[] values) throws SQLException {
+		return connection.createArrayOf(type, values);
+	}
+	
+	private String currentAuditor() {
+		return this.auditorAware.getCurrentAuditor().orElse(null);
+	}
+}
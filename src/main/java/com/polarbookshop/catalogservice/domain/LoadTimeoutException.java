@@ -0,0 +1,9 @@
+package com.polarbookshop.catalogservice.domain;
+
+import java.time.Duration;
+
+public class LoadTimeoutException extends RuntimeException {
+	public LoadTimeoutException(String name, Object key, Duration timeout) {
+		super("Loading " + name + " " + key + " did not complete within " + timeout.toMillis() + "ms.");
+	}
+}
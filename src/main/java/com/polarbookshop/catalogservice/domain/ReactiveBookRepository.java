@@ -0,0 +1,112 @@
+package com.polarbookshop.catalogservice.domain;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+
+import io.r2dbc.spi.Row;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * R2DBC counterpart of {@link BookRepository} backing the reactive stack.
+ * Timestamps are converted through the system time zone, like the JDBC driver does,
+ * so both stacks read the same values.
+ */
+@Repository
+@Profile("reactive")
+public class ReactiveBookRepository {
+	private static final String COLUMNS = BookRowMapper.COLUMNS;
+	
+	private final DatabaseClient databaseClient;
+	
+	public ReactiveBookRepository(DatabaseClient databaseClient) {
+		this.databaseClient = databaseClient;
+	}
+	
+	public Flux<Book> findPageAfterId(long afterId, int limit) {
+		return this.databaseClient
+			.sql("select " + COLUMNS + " from book where id > :afterId order by id limit :limit")
+			.bind("afterId", afterId)
+			.bind("limit", limit)
+			.map(ReactiveBookRepository::toBook)
+			.all();
+	}
+	
+	public Mono<Book> findByIsbn(String isbn) {
+		return this.databaseClient
+			.sql("select " + COLUMNS + " from book where isbn = :isbn")
+			.bind("isbn", isbn)
+			.map(ReactiveBookRepository::toBook)
+			.one();
+	}
+	
+	public Mono<Book> insertIfAbsent(Book book, String auditor) {
+		// The dates are stamped by the book_change_seq trigger with the database clock
+		DatabaseClient.GenericExecuteSpec spec = this.databaseClient
+			.sql("""
+				insert into book (isbn, title, author, price, publisher, created_by, last_modified_by, version)
+				values (:isbn, :title, :author, :price, :publisher, :auditor, :auditor, 1)
+				on conflict (isbn) do nothing
+				returning\s""" + COLUMNS)
+			.bind("isbn", book.isbn());
+		return bindDetails(spec, book, auditor)
+			.map(ReactiveBookRepository::toBook)
+			.one();
+	}
+	
+	public Mono<Book> updateByIsbn(String isbn, Book book, String auditor) {
+		DatabaseClient.GenericExecuteSpec spec = this.databaseClient
+			.sql("""
+				update book set title = :title, author = :author, price = :price, publisher = :publisher,
+					last_modified_by = :auditor, version = version + 1
+				where isbn = :isbn
+				returning\s""" + COLUMNS)
+			.bind("isbn", isbn);
+		return bindDetails(spec, book, auditor)
+			.map(ReactiveBookRepository::toBook)
+			.one();
+	}
+	
+	public Mono<Integer> deleteByIsbn(String isbn) {
+		return this.databaseClient
+			.sql("delete from book where isbn = :isbn")
+			.bind("isbn", isbn)
+			.fetch()
+			.rowsUpdated();
+	}
+	
+	private static DatabaseClient.GenericExecuteSpec bindDetails(DatabaseClient.GenericExecuteSpec spec, Book book,
+			String auditor) {
+		spec = spec
+			.bind("title", book.title())
+			.bind("author", book.author())
+			.bind("price", book.price());
+		spec = book.publisher() != null ? spec.bind("publisher", book.publisher()) : spec.bindNull("publisher", String.class);
+		return auditor != null ? spec.bind("auditor", auditor) : spec.bindNull("auditor", String.class);
+	}
+	
+	private static Book toBook(Row row) {
+		return new Book(
+			row.get("id", Long.class),
+			row.get("isbn", String.class),
+			row.get("title", String.class),
+			row.get("author", String.class),
+			row.get("price", Double.class),
+			row.get("publisher", String.class),
+			toInstant(row.get("created_date", LocalDateTime.class)),
+			toInstant(row.get("last_modified_date", LocalDateTime.class)),
+			row.get("created_by", String.class),
+			row.get("last_modified_by", String.class),
+			row.get("version", Integer.class)
+		);
+	}
+	
+	private static Instant toInstant(LocalDateTime timestamp) {
+		return timestamp != null ? timestamp.atZone(ZoneId.systemDefault()).toInstant() : null;
+	}
+}
@@ -0,0 +1,76 @@
+package com.polarbookshop.catalogservice.domain;
+
+import java.util.Optional;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ReactiveAuditorAware;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.stereotype.Service;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of {@link BookService}. It publishes the same {@link BookChangedEvent}s,
+ * so in-memory views such as the suggestion index stay current whichever stack is running.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveBookService {
+	private final ReactiveBookRepository bookRepository;
+	private final ReactiveAuditorAware<String> auditorAware;
+	private final ApplicationEventPublisher eventPublisher;
+	
+	public ReactiveBookService(ReactiveBookRepository bookRepository, ReactiveAuditorAware<String> auditorAware,
+			ApplicationEventPublisher eventPublisher) {
+		this.bookRepository = bookRepository;
+		this.auditorAware = auditorAware;
+		this.eventPublisher = eventPublisher;
+	}
+	
+	public Mono<Slice<Book>> viewBookPage(long afterId, int limit) {
+		return this.bookRepository.findPageAfterId(afterId, limit + 1)
+			.collectList()
+			.map(books -> {
+				boolean hasNext = books.size() > limit;
+				return new SliceImpl<>(hasNext ? books.subList(0, limit) : books, PageRequest.ofSize(limit), hasNext);
+			});
+	}
+	
+	public Mono<Book> viewBookDetails(String isbn) {
+		return this.bookRepository.findByIsbn(isbn)
+			.switchIfEmpty(Mono.error(() -> new BookNotFoundException(isbn)));
+	}
+	
+	public Mono<Book> addBookToCatalog(Book book) {
+		return currentAuditor()
+			.flatMap(auditor -> this.bookRepository.insertIfAbsent(book, auditor.orElse(null)))
+			.switchIfEmpty(Mono.error(() -> new BookAlreadyExistsException(book.isbn())))
+			.doOnNext(savedBook -> publish(BookChangeType.CREATED, savedBook.isbn(), savedBook));
+	}
+	
+	public Mono<Void> removeBookFromCatalog(String isbn) {
+		return this.bookRepository.deleteByIsbn(isbn)
+			.doOnNext(deleted -> publish(BookChangeType.DELETED, isbn, null))
+			.then();
+	}
+	
+	public Mono<Book> editBookDetails(String isbn, Book book) {
+		return currentAuditor()
+			.flatMap(auditor -> this.bookRepository.updateByIsbn(isbn, book, auditor.orElse(null)))
+			.doOnNext(updatedBook -> publish(BookChangeType.UPDATED, isbn, updatedBook))
+			.switchIfEmpty(Mono.defer(() -> addBookToCatalog(book)));
+	}
+	
+	private Mono<Optional<String>> currentAuditor() {
+		return this.auditorAware.getCurrentAuditor()
+			.map(Optional::of)
+			.defaultIfEmpty(Optional.empty());
+	}
+	
+	private void publish(BookChangeType type, String isbn, Book book) {
+		this.eventPublisher.publishEvent(new BookChangedEvent(type, isbn, book));
+	}
+}
@@ -0,0 +1,91 @@
+package com.polarbookshop.catalogservice.domain;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Collapses concurrent loads of the same key into one. The first caller runs the loader while
+ * the others wait for its outcome, value or exception, for at most the configured timeout.
+ * Nothing is kept once the load completes: later callers trigger a fresh load.
+ */
+public class SingleFlight<K, V> implements MeterBinder {
+	private final String name;
+	private final Duration timeout;
+	private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+	private final LongAdder collapsed = new LongAdder();
+	private final LongAdder timedOut = new LongAdder();
+	
+	public SingleFlight(String name, Duration timeout) {
+		this.name = name;
+		this.timeout = timeout;
+	}
+	
+	public V load(K key, Supplier<V> loader) {
+		CompletableFuture<V> load = new CompletableFuture<>();
+		CompletableFuture<V> ongoingLoad = this.inFlight.putIfAbsent(key, load);
+		if (ongoingLoad != null) {
+			this.collapsed.increment();
+			return await(key, ongoingLoad);
+		}
+		try {
+			V value = loader.get();
+			load.complete(value);
+			return value;
+		} catch (RuntimeException | Error ex) {
+			load.completeExceptionally(ex);
+			throw ex;
+		} finally {
+			this.inFlight.remove(key, load);
+		}
+	}
+	
+	/**
+	 * Number of calls served by a load another caller started.
+	 */
+	public long getCollapsedCount() {
+		return this.collapsed.sum();
+	}
+	
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		FunctionCounter.builder("polar.single-flight.collapsed", this.collapsed, LongAdder::sum)
+			.description("Calls that shared an in-flight load instead of running their own")
+			.tag("name", this.name)
+			.register(registry);
+		FunctionCounter.builder("polar.single-flight.timeouts", this.timedOut, LongAdder::sum)
+			.description("Calls that gave up waiting for an in-flight load")
+			.tag("name", this.name)
+			.register(registry);
+	}
+	
+	private V await(K key, CompletableFuture<V> ongoingLoad) {
+		try {
+			return ongoingLoad.get(this.timeout.toMillis(), TimeUnit.MILLISECONDS);
+		} catch (ExecutionException ex) {
+			if (ex.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			if (ex.getCause() instanceof Error cause) {
+				throw cause;
+			}
+			throw new IllegalStateException(ex.getCause());
+		} catch (TimeoutException ex) {
+			this.timedOut.increment();
+			throw new LoadTimeoutException(this.name, key, this.timeout);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new LoadTimeoutException(this.name, key, this.timeout);
+		}
+	}
+}
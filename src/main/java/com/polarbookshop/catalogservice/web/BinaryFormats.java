@@ -0,0 +1,111 @@
+package com.polarbookshop.catalogservice.web;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * Compact binary alternatives to JSON for service-to-service calls: CBOR and Smile through
+ * Jackson, configured like the JSON mapper, and Protobuf following {@code proto/book.proto}.
+ * The converters come after the JSON one, so clients not asking for a binary format explicitly
+ * keep getting JSON, and error messages reach binary clients in their own format instead of as
+ * plain text. All converters record the catalog content they write as Flight Recorder events.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class BinaryFormats implements WebMvcConfigurer {
+	public static final String SMILE_VALUE = "application/x-jackson-smile";
+	public static final String PROTOBUF_VALUE = "application/x-protobuf";
+	/**
+	 * RFC 8742 CBOR sequence, used for streams.
+	 */
+	public static final String CBOR_SEQ_VALUE = "application/cbor-seq";
+	/**
+	 * Sequence of length-prefixed Protobuf messages, used for streams.
+	 */
+	public static final String PROTOBUF_DELIMITED_VALUE = "application/x-protobuf-delimited";
+
+	private static final List<MediaType> BINARY_MEDIA_TYPES = List.of(
+		MediaType.APPLICATION_CBOR,
+		MediaType.parseMediaType(SMILE_VALUE),
+		MediaType.parseMediaType(PROTOBUF_VALUE)
+	);
+
+	private final ObjectMapper cborMapper;
+	private final ObjectMapper smileMapper;
+
+	public BinaryFormats(Jackson2ObjectMapperBuilder objectMapperBuilder) {
+		this.cborMapper = objectMapperBuilder.factory(new CBORFactory()).build();
+		this.smileMapper = objectMapperBuilder.factory(new SmileFactory()).build();
+	}
+
+	public ObjectMapper getCborMapper() {
+		return this.cborMapper;
+	}
+
+	public ObjectMapper getSmileMapper() {
+		return this.smileMapper;
+	}
+
+	@Override
+	public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+		converters.replaceAll(converter -> converter instanceof StringHttpMessageConverter stringConverter
+			? new TextStringHttpMessageConverter(stringConverter.getDefaultCharset())
+			: converter);
+		converters.add(new MappingJackson2CborHttpMessageConverter(this.cborMapper));
+		converters.add(new MappingJackson2SmileHttpMessageConverter(this.smileMapper));
+		converters.add(new BookProtobufHttpMessageConverter());
+		converters.replaceAll(RecordingHttpMessageConverter::wrap);
+	}
+
+	static boolean isBinary(MediaType mediaType) {
+		return mediaType != null && BINARY_MEDIA_TYPES.stream().anyMatch(mediaType::isCompatibleWith) && mediaType.isConcrete();
+	}
+
+	/**
+	 * The binary format a request accepting the given types gets, picked like the message
+	 * converters do: the most specific and preferred acceptable type, first listed format on a tie.
+	 */
+	static MediaType negotiate(String accept) {
+		List<MediaType> acceptable = new ArrayList<>(MediaType.parseMediaTypes(accept));
+		MediaType.sortBySpecificityAndQuality(acceptable);
+		for (MediaType acceptableType : acceptable) {
+			for (MediaType binaryType : BINARY_MEDIA_TYPES) {
+				if (acceptableType.isCompatibleWith(binaryType)) {
+					return binaryType;
+				}
+			}
+		}
+		return BINARY_MEDIA_TYPES.get(0);
+	}
+
+	/**
+	 * Strings are writable as any media type, so without this the plain-text error messages of
+	 * {@link BookControllerAdvice} would be sent as is to clients expecting a binary format.
+	 */
+	private static class TextStringHttpMessageConverter extends StringHttpMessageConverter {
+		TextStringHttpMessageConverter(Charset defaultCharset) {
+			super(defaultCharset);
+			setWriteAcceptCharset(false);
+		}
+
+		@Override
+		public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+			return !isBinary(mediaType) && super.canWrite(clazz, mediaType);
+		}
+	}
+}
@@ -1,43 +1,257 @@
 package com.polarbookshop.catalogservice.web;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
+
 import javax.validation.Valid;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.google.protobuf.CodedOutputStream;
 
+import com.polarbookshop.catalogservice.config.PolarProperties;
 import com.polarbookshop.catalogservice.domain.Book;
+import com.polarbookshop.catalogservice.domain.BookChange;
+import com.polarbookshop.catalogservice.domain.BookLookupResult;
+import com.polarbookshop.catalogservice.domain.BookSearchHit;
 import com.polarbookshop.catalogservice.domain.BookService;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("books")
 public class BookController {
+	static final String LINK = "Link";
+	static final String TOTAL_COUNT_ESTIMATE = "X-Total-Count-Estimate";
+	static final String CHANGE_CURSOR = "X-Change-Cursor";
+	
 	private static final Logger log = LoggerFactory.getLogger(BookController.class);
+	private static final String JSON_VARY = HttpHeaders.ACCEPT + ", " + HttpHeaders.ACCEPT_ENCODING;
 	private final BookService bookService;
+	private final PolarProperties polarProperties;
+	private final BookRepresentationCache representationCache;
+	private final ObjectWriter ndjsonWriter;
+	private final ObjectWriter cborWriter;
 
-	public BookController(BookService bookService) {
+	public BookController(
+		BookService bookService,
+		PolarProperties polarProperties,
+		BookRepresentationCache representationCache,
+		BinaryFormats binaryFormats,
+		ObjectMapper objectMapper
+	) {
 		this.bookService = bookService;
+		this.polarProperties = polarProperties;
+		this.representationCache = representationCache;
+		this.ndjsonWriter = objectMapper.writerFor(Book.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+		this.cborWriter = binaryFormats.getCborMapper().writerFor(Book.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
 	}
 	
 	@GetMapping
-	public Iterable<Book> get() {
-		log.info("Fetching the list of books in the catalog");
-		return this.bookService.viewBookList();
+	public ResponseEntity<byte[]> get(
+		@RequestParam(required = false) String after,
+		@RequestParam(required = false) Integer limit,
+		@RequestParam(defaultValue = "false") boolean estimateTotal,
+		@RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+		@RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+	) {
+		log.info("Fetching a page of books in the catalog");
+		int pageSize = resolveLimit(limit);
+		long afterId = after != null ? PageCursor.parse(after, 1).getLong(0) : 0L;
+		Slice<Book> page = this.bookService.viewBookPage(afterId, pageSize);
+		String etag = EntityTags.ofPage(page);
+		String matchingEtag = EntityTags.match(ifNoneMatch, etag);
+		if (matchingEtag != null) {
+			return notModified(matchingEtag, JSON_VARY);
+		}
+		BookRepresentationCache.Representation representation = this.representationCache.page(etag, page);
+		return render(pageResponse(etag, representation.nextCursor(), pageSize, estimateTotal), etag, representation, acceptEncoding);
+	}
+	
+	@GetMapping(produces = { MediaType.APPLICATION_CBOR_VALUE, BinaryFormats.SMILE_VALUE, BinaryFormats.PROTOBUF_VALUE })
+	public ResponseEntity<List<Book>> getAsBinary(
+		@RequestParam(required = false) String after,
+		@RequestParam(required = false) Integer limit,
+		@RequestParam(defaultValue = "false") boolean estimateTotal,
+		@RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+		@RequestHeader(HttpHeaders.ACCEPT) String accept
+	) {
+		log.info("Fetching a page of books in the catalog in a binary format");
+		int pageSize = resolveLimit(limit);
+		long afterId = after != null ? PageCursor.parse(after, 1).getLong(0) : 0L;
+		Slice<Book> page = this.bookService.viewBookPage(afterId, pageSize);
+		MediaType mediaType = BinaryFormats.negotiate(accept);
+		String etag = EntityTags.variant(EntityTags.ofPage(page), mediaType.getSubtype());
+		String matchingEtag = EntityTags.match(ifNoneMatch, etag);
+		if (matchingEtag != null) {
+			return notModified(matchingEtag, HttpHeaders.ACCEPT);
+		}
+		String nextCursor = page.hasNext()
+			? PageCursor.encode(page.getContent().get(page.getNumberOfElements() - 1).id())
+			: null;
+		return pageResponse(etag, nextCursor, pageSize, estimateTotal)
+			.header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+			.contentType(mediaType)
+			.body(page.getContent());
+	}
+	
+	@GetMapping(params = "isbn")
+	public BookLookupResult lookup(@RequestParam List<String> isbn) {
+		log.info("Fetching {} books by ISBN from the catalog", isbn.size());
+		int maxIsbns = this.polarProperties.getLookup().getMaxIsbns();
+		if (isbn.size() > maxIsbns) {
+			throw new InvalidQueryException("At most " + maxIsbns + " ISBNs can be fetched at once.");
+		}
+		return this.bookService.lookupBooks(isbn);
+	}
+	
+	@GetMapping("search")
+	public ResponseEntity<List<Book>> search(
+		@RequestParam String q,
+		@RequestParam(required = false) String after,
+		@RequestParam(required = false) Integer limit
+	) {
+		log.info("Searching the catalog for '{}'", q);
+		if (q.isBlank()) {
+			throw new InvalidQueryException("The search query must be defined.");
+		}
+		int pageSize = resolveLimit(limit);
+		Float afterRank = null;
+		long afterId = 0L;
+		if (after != null) {
+			PageCursor cursor = PageCursor.parse(after, 2);
+			afterRank = cursor.getFloat(0);
+			afterId = cursor.getLong(1);
+		}
+		Slice<BookSearchHit> page = this.bookService.searchBooks(q, afterRank, afterId, pageSize);
+		
+		ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+		if (page.hasNext()) {
+			BookSearchHit lastHit = page.getContent().get(page.getNumberOfElements() - 1);
+			response.header(LINK, nextLink(PageCursor.encode(lastHit.rank(), lastHit.book().id()), pageSize));
+		}
+		return response.body(page.map(BookSearchHit::book).getContent());
+	}
+	
+	@GetMapping("changes")
+	public ResponseEntity<List<BookChange>> changes(
+		@RequestParam(required = false) String since,
+		@RequestParam(required = false) Integer limit
+	) {
+		log.info("Fetching the catalog changes since {}", since);
+		int pageSize = resolveLimit(limit);
+		long afterSequence = since != null ? PageCursor.parse(since, 1).getLong(0) : 0L;
+		Duration settleTime = this.polarProperties.getChangeFeed().getSettleTime();
+		Slice<BookChange> page = this.bookService.viewChanges(afterSequence, settleTime, pageSize);
+		
+		// Consumers keep the cursor to resume from, even when there was nothing new
+		String cursor = page.hasContent()
+			? PageCursor.encode(page.getContent().get(page.getNumberOfElements() - 1).sequence())
+			: PageCursor.encode(afterSequence);
+		ResponseEntity.BodyBuilder response = ResponseEntity.ok().header(CHANGE_CURSOR, cursor);
+		if (page.hasNext()) {
+			response.header(LINK, nextLink("since", cursor, pageSize));
+		}
+		return response.body(page.getContent());
+	}
+	
+	@GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public StreamingResponseBody export() {
+		log.info("Streaming the whole catalog");
+		return streamWith(this.ndjsonWriter, true, MediaType.APPLICATION_NDJSON_VALUE);
+	}
+	
+	@GetMapping(produces = BinaryFormats.CBOR_SEQ_VALUE)
+	public StreamingResponseBody exportAsCbor() {
+		log.info("Streaming the whole catalog as CBOR");
+		return streamWith(this.cborWriter, false, BinaryFormats.CBOR_SEQ_VALUE);
+	}
+	
+	@GetMapping(produces = BinaryFormats.PROTOBUF_DELIMITED_VALUE)
+	public StreamingResponseBody exportAsProtobuf() {
+		log.info("Streaming the whole catalog as Protobuf");
+		int fetchSize = this.polarProperties.getExport().getFetchSize();
+		return outputStream -> {
+			ExportRecording recording = new ExportRecording(outputStream);
+			CodedOutputStream output = CodedOutputStream.newInstance(recording.output());
+			this.bookService.exportCatalog(fetchSize, book -> {
+				long start = System.nanoTime();
+				try {
+					BookProtobuf.writeDelimitedBook(output, book);
+				} catch (IOException ex) {
+					throw new UncheckedIOException(ex);
+				}
+				recording.written(start);
+			});
+			output.flush();
+			recording.commit(BinaryFormats.PROTOBUF_DELIMITED_VALUE);
+		};
 	}
 	
 	@GetMapping("{isbn}")
-	public Book getByIsbn(@PathVariable String isbn) {
+	public ResponseEntity<byte[]> getByIsbn(
+		@PathVariable String isbn,
+		@RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+		@RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+	) {
 		log.info("Fetching the book with ISBN {} from the catalog", isbn);
-		return this.bookService.viewBookDetails(isbn);
+		String matchingEtag = matchingBookEtag(isbn, null, ifNoneMatch);
+		if (matchingEtag != null) {
+			return notModified(matchingEtag, JSON_VARY);
+		}
+		Book book = this.bookService.viewBookDetails(isbn);
+		String etag = EntityTags.of(book);
+		ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+			.cacheControl(cacheControl());
+		return render(response, etag, this.representationCache.book(etag, book), acceptEncoding);
+	}
+	
+	@GetMapping(path = "{isbn}", produces = { MediaType.APPLICATION_CBOR_VALUE, BinaryFormats.SMILE_VALUE, BinaryFormats.PROTOBUF_VALUE })
+	public ResponseEntity<Book> getByIsbnAsBinary(
+		@PathVariable String isbn,
+		@RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+		@RequestHeader(HttpHeaders.ACCEPT) String accept
+	) {
+		log.info("Fetching the book with ISBN {} from the catalog in a binary format", isbn);
+		MediaType mediaType = BinaryFormats.negotiate(accept);
+		String matchingEtag = matchingBookEtag(isbn, mediaType.getSubtype(), ifNoneMatch);
+		if (matchingEtag != null) {
+			return notModified(matchingEtag, HttpHeaders.ACCEPT);
+		}
+		Book book = this.bookService.viewBookDetails(isbn);
+		return ResponseEntity.ok()
+			.eTag(EntityTags.variant(EntityTags.of(book), mediaType.getSubtype()))
+			.cacheControl(cacheControl())
+			.header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+			.contentType(mediaType)
+			.body(book);
 	}
 	
 	@PostMapping
@@ -59,4 +273,140 @@ public class BookController {
 		log.info("Updating book with ISBN {}", isbn);
 		return this.bookService.editBookDetails(isbn, book);
 	}
+	
+	private int resolveLimit(Integer limit) {
+		PolarProperties.Pagination pagination = this.polarProperties.getPagination();
+		if (limit == null) {
+			return pagination.getDefaultLimit();
+		}
+		if (limit < 1) {
+			throw new InvalidQueryException("The page limit must be greater than zero.");
+		}
+		return Math.min(limit, pagination.getMaxLimit());
+	}
+	
+	private <T> ResponseEntity<T> notModified(String etag, String vary) {
+		// Same validators and Vary as the full response would have had
+		return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+			.eTag(etag)
+			.cacheControl(cacheControl())
+			.header(HttpHeaders.VARY, vary)
+			.build();
+	}
+	
+	private String matchingBookEtag(String isbn, String variant, String ifNoneMatch) {
+		if (ifNoneMatch == null) {
+			return null;
+		}
+		return EntityTags.match(ifNoneMatch, EntityTags.variant(EntityTags.of(this.bookService.viewBookVersion(isbn)), variant));
+	}
+	
+	private ResponseEntity.BodyBuilder pageResponse(String etag, String nextCursor, int pageSize, boolean estimateTotal) {
+		ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+			.eTag(etag)
+			.cacheControl(cacheControl());
+		if (nextCursor != null) {
+			response.header(LINK, nextLink(nextCursor, pageSize));
+		}
+		if (estimateTotal) {
+			response.header(TOTAL_COUNT_ESTIMATE, String.valueOf(this.bookService.estimateBookCount()));
+		}
+		return response;
+	}
+	
+	private StreamingResponseBody streamWith(ObjectWriter writer, boolean newlineDelimited, String format) {
+		int fetchSize = this.polarProperties.getExport().getFetchSize();
+		return outputStream -> {
+			ExportRecording recording = new ExportRecording(outputStream);
+			JsonGenerator generator = writer.createGenerator(recording.output());
+			generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+			this.bookService.exportCatalog(fetchSize, book -> {
+				long start = System.nanoTime();
+				try {
+					writer.writeValue(generator, book);
+					if (newlineDelimited) {
+						generator.writeRaw('\n');
+					}
+				} catch (IOException ex) {
+					throw new UncheckedIOException(ex);
+				}
+				recording.written(start);
+			});
+			generator.close();
+			recording.commit(format);
+		};
+	}
+	
+	private static ResponseEntity<byte[]> render(
+		ResponseEntity.BodyBuilder response,
+		String etag,
+		BookRepresentationCache.Representation representation,
+		String acceptEncoding
+	) {
+		boolean acceptsGzip = BookRepresentationCache.acceptsGzip(acceptEncoding);
+		String contentEncoding = representation.contentEncoding(acceptsGzip);
+		if (contentEncoding != null) {
+			response.header(HttpHeaders.CONTENT_ENCODING, contentEncoding);
+		}
+		return response
+			.eTag(EntityTags.variant(etag, contentEncoding))
+			.header(HttpHeaders.VARY, JSON_VARY)
+			.contentType(MediaType.APPLICATION_JSON)
+			.body(representation.body(acceptsGzip));
+	}
+	
+	private CacheControl cacheControl() {
+		PolarProperties.HttpCache httpCache = this.polarProperties.getHttpCache();
+		return CacheControl.maxAge(httpCache.getMaxAge())
+			.staleWhileRevalidate(httpCache.getStaleWhileRevalidate());
+	}
+	
+	private static String nextLink(String cursor, int limit) {
+		return nextLink("after", cursor, limit);
+	}
+	
+	private static String nextLink(String cursorParam, String cursor, int limit) {
+		String uri = ServletUriComponentsBuilder.fromCurrentRequest()
+			.replaceQueryParam(cursorParam, cursor)
+			.replaceQueryParam("limit", limit)
+			.toUriString();
+		return "<" + uri + ">; rel=\"next\"";
+	}
+	
+	/**
+	 * Serialization event of a catalog export, timing the writes alone rather than the loading of
+	 * the books in between.
+	 */
+	private static final class ExportRecording {
+		private final CatalogSerializationEvent event = new CatalogSerializationEvent();
+		private final CountingOutputStream output;
+		private int rows;
+		private long serializationTime;
+		
+		ExportRecording(OutputStream target) {
+			this.output = new CountingOutputStream(target);
+			this.event.begin();
+		}
+		
+		OutputStream output() {
+			return this.output;
+		}
+		
+		void written(long startNanos) {
+			this.rows++;
+			this.serializationTime += System.nanoTime() - startNanos;
+		}
+		
+		void commit(String format) {
+			this.event.end();
+			if (this.event.shouldCommit()) {
+				this.event.operation = "export";
+				this.event.format = format;
+				this.event.rows = this.rows;
+				this.event.serializationTime = this.serializationTime;
+				this.event.size = this.output.getCount();
+				this.event.commit();
+			}
+		}
+	}
 }
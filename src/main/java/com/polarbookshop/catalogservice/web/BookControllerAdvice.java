@@ -3,15 +3,19 @@ package com.polarbookshop.catalogservice.web;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
 import com.polarbookshop.catalogservice.domain.BookAlreadyExistsException;
 import com.polarbookshop.catalogservice.domain.BookNotFoundException;
+import com.polarbookshop.catalogservice.domain.LoadTimeoutException;
 
 @RestControllerAdvice
 public class BookControllerAdvice {
@@ -27,6 +31,32 @@ public class BookControllerAdvice {
 		return ex.getMessage();
 	}
 	
+	@ExceptionHandler(InvalidQueryException.class)
+	@ResponseStatus(HttpStatus.BAD_REQUEST)
+	String invalidQueryHandler(InvalidQueryException ex) {
+		return ex.getMessage();
+	}
+	
+	@ExceptionHandler(RuntimeJsonMappingException.class)
+	@ResponseStatus(HttpStatus.BAD_REQUEST)
+	String malformedRecordHandler(RuntimeJsonMappingException ex) {
+		return ex.getOriginalMessage();
+	}
+	
+	@ExceptionHandler(LoadTimeoutException.class)
+	ResponseEntity<String> loadTimeoutHandler(LoadTimeoutException ex) {
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+			.header(HttpHeaders.RETRY_AFTER, "1")
+			.body(ex.getMessage());
+	}
+	
+	@ExceptionHandler(TooManySubscribersException.class)
+	ResponseEntity<String> tooManySubscribersHandler(TooManySubscribersException ex) {
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+			.header(HttpHeaders.RETRY_AFTER, "5")
+			.body(ex.getMessage());
+	}
+	
 	@ExceptionHandler(MethodArgumentNotValidException.class)
 	@ResponseStatus(HttpStatus.BAD_REQUEST)
 	public Map<String, String> handleValidationExceptions(MethodArgumentNotValidException ex) {
@@ -0,0 +1,320 @@
+package com.polarbookshop.catalogservice.web;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import com.polarbookshop.catalogservice.config.PolarProperties;
+import com.polarbookshop.catalogservice.domain.Book;
+import com.polarbookshop.catalogservice.domain.BookChange;
+import com.polarbookshop.catalogservice.domain.BookChangeType;
+import com.polarbookshop.catalogservice.domain.BookChangesCommittedEvent;
+import com.polarbookshop.catalogservice.domain.BookService;
+import com.polarbookshop.catalogservice.domain.CatalogResyncEvent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Fans {@link BookChangesCommittedEvent}s out to Server-Sent Events subscribers. Subscriptions are
+ * async requests, so idle subscribers hold no thread; a small pool writes events to them.
+ * Each subscriber has a bounded queue, and one that falls behind is disconnected rather than
+ * buffered for. Changes come from the database notifications, whichever instance wrote, so every
+ * instance sends the same events, and event ids are {@code /books/changes} cursors holding the
+ * change sequence. A client reconnecting with its Last-Event-ID gets the events it missed from a
+ * bounded replay log, or a {@code resync} event when they are no longer there, giving the cursor
+ * to catch up from through {@code /books/changes}. A change may be delivered twice; events carry
+ * the latest state of the book, so applying them again is harmless. The book is read back once
+ * per burst of changes, and only while someone is subscribed, so replayed events may lack it. A
+ * {@link CatalogResyncEvent} is passed on as a {@code resync} event as well.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class BookEventBroadcaster implements MeterBinder, DisposableBean {
+	static final String RESYNC_EVENT = "resync";
+
+	private static final Logger log = LoggerFactory.getLogger(BookEventBroadcaster.class);
+
+	private final PolarProperties.Events properties;
+	private final ObjectWriter changeWriter;
+	private final Function<Collection<String>, List<Book>> committedBooks;
+	private final Executor senders;
+	private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+	// Ring buffer of the latest events, guarded by this; new subscribers register under the same
+	// lock so no event falls between their replay and their queue. Events arrive in commit order
+	// rather than sequence order, so each keeps the sequence of the one before it
+	private final OutboundEvent[] replayLog;
+	private final long[] previousSequences;
+	private long appended;
+	private long lastSequence = -1;
+	private Counter dropped;
+
+	@Autowired
+	public BookEventBroadcaster(PolarProperties polarProperties, ObjectMapper objectMapper, BookService bookService) {
+		this(polarProperties.getEvents(), objectMapper, bookService::viewCommittedBooks, Executors.newFixedThreadPool(
+			polarProperties.getEvents().getSenderThreads(), new CustomizableThreadFactory("book-events-")));
+	}
+
+	BookEventBroadcaster(PolarProperties.Events properties, ObjectMapper objectMapper,
+			Function<Collection<String>, List<Book>> committedBooks, Executor senders) {
+		this.properties = properties;
+		this.changeWriter = objectMapper.writerFor(BookChange.class);
+		this.committedBooks = committedBooks;
+		this.senders = senders;
+		this.replayLog = new OutboundEvent[properties.getReplayCapacity()];
+		this.previousSequences = new long[properties.getReplayCapacity()];
+	}
+
+	public SseEmitter subscribe(String lastEventId) {
+		if (this.subscribers.size() >= this.properties.getMaxSubscribers()) {
+			throw new TooManySubscribersException();
+		}
+		SseEmitter emitter = new SseEmitter(this.properties.getTimeout().toMillis());
+		Subscriber subscriber = new Subscriber(emitter, this.properties.getQueueCapacity());
+		emitter.onCompletion(() -> this.subscribers.remove(subscriber));
+		emitter.onTimeout(subscriber::close);
+		emitter.onError(ex -> subscriber.close());
+		synchronized (this) {
+			backlog(lastEventId).forEach(subscriber::offer);
+			this.subscribers.add(subscriber);
+		}
+		return emitter;
+	}
+
+	@EventListener
+	public void onBookChangesCommitted(BookChangesCommittedEvent event) {
+		Map<String, Book> books = readBooks(event.changes());
+		List<OutboundEvent> outbound = new ArrayList<>(event.changes().size());
+		synchronized (this) {
+			for (BookChange change : event.changes()) {
+				Book book = change.type() != BookChangeType.DELETED ? books.get(change.isbn()) : null;
+				OutboundEvent next = new OutboundEvent(PageCursor.encode(change.sequence()),
+					change.type().name().toLowerCase(Locale.ROOT),
+					toJson(new BookChange(change.sequence(), change.type(), change.isbn(), book)));
+				int slot = (int) (this.appended++ % this.replayLog.length);
+				this.replayLog[slot] = next;
+				this.previousSequences[slot] = this.lastSequence;
+				this.lastSequence = change.sequence();
+				outbound.add(next);
+			}
+		}
+		outbound.forEach(this::broadcast);
+	}
+
+	@EventListener(CatalogResyncEvent.class)
+	public void onCatalogResync() {
+		// Changes may have been missed, or were too many to announce one by one
+		long since;
+		synchronized (this) {
+			since = this.lastSequence;
+		}
+		broadcast(resync(since));
+	}
+
+	@Scheduled(fixedDelayString = "${polar.events.heartbeat-interval:PT15S}")
+	public void sendHeartbeats() {
+		// Keeps proxies from closing idle streams and finds subscribers that went away
+		broadcast(OutboundEvent.HEARTBEAT);
+	}
+
+	public int subscriberCount() {
+		return this.subscribers.size();
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		Gauge.builder("polar.events.subscribers", this, BookEventBroadcaster::subscriberCount)
+			.description("Open book event stream subscriptions")
+			.register(registry);
+		this.dropped = Counter.builder("polar.events.dropped")
+			.description("Subscribers disconnected for falling behind")
+			.register(registry);
+	}
+
+	@Override
+	public void destroy() {
+		this.subscribers.forEach(Subscriber::close);
+		if (this.senders instanceof ExecutorService executorService) {
+			executorService.shutdown();
+		}
+	}
+
+	synchronized List<OutboundEvent> backlog(String lastEventId) {
+		List<OutboundEvent> events = new ArrayList<>();
+		if (lastEventId == null || lastEventId.isBlank()) {
+			return events;
+		}
+		long lastEventSequence;
+		try {
+			lastEventSequence = PageCursor.parse(lastEventId, 1).getLong(0);
+		} catch (InvalidQueryException ex) {
+			// Not one of our ids, so the client has to start over
+			events.add(resync(-1));
+			return events;
+		}
+		if (lastEventSequence == this.lastSequence) {
+			return events;
+		}
+		// What is missed must still be in the log and fit in the subscriber queue
+		long kept = Math.min(this.appended, Math.min(this.replayLog.length, this.properties.getQueueCapacity()));
+		for (long first = this.appended - 1; first >= this.appended - kept; first--) {
+			if (this.previousSequences[(int) (first % this.replayLog.length)] == lastEventSequence) {
+				for (long next = first; next < this.appended; next++) {
+					events.add(this.replayLog[(int) (next % this.replayLog.length)]);
+				}
+				return events;
+			}
+		}
+		events.add(resync(lastEventSequence));
+		return events;
+	}
+
+	private static OutboundEvent resync(long sinceSequence) {
+		String data = sinceSequence >= 0 ? "{\"since\":\"" + PageCursor.encode(sinceSequence) + "\"}" : "{}";
+		return new OutboundEvent(null, RESYNC_EVENT, data);
+	}
+
+	private Map<String, Book> readBooks(List<BookChange> changes) {
+		Map<String, Book> books = new HashMap<>();
+		List<String> isbns = changes.stream()
+			.filter(change -> change.type() != BookChangeType.DELETED)
+			.map(BookChange::isbn)
+			.toList();
+		if (isbns.isEmpty() || this.subscribers.isEmpty()) {
+			return books;
+		}
+		try {
+			this.committedBooks.apply(isbns).forEach(book -> books.put(book.isbn(), book));
+		} catch (DataAccessException ex) {
+			log.warn("Sending book events without their books, which could not be read: {}", ex.getMessage());
+		}
+		return books;
+	}
+
+	private void broadcast(OutboundEvent event) {
+		for (Subscriber subscriber : this.subscribers) {
+			if (!subscriber.offer(event)) {
+				log.debug("Disconnecting a book event subscriber that fell behind");
+				if (this.dropped != null) {
+					this.dropped.increment();
+				}
+				subscriber.close();
+			}
+		}
+	}
+
+	private String toJson(BookChange change) {
+		try {
+			return this.changeWriter.writeValueAsString(change);
+		} catch (JsonProcessingException ex) {
+			throw new IllegalStateException("Cannot serialize the change of book " + change.isbn(), ex);
+		}
+	}
+
+	record OutboundEvent(String id, String name, String data) {
+		static final OutboundEvent HEARTBEAT = new OutboundEvent(null, null, null);
+
+		SseEmitter.SseEventBuilder toSse() {
+			if (this.data == null) {
+				return SseEmitter.event().comment("");
+			}
+			SseEmitter.SseEventBuilder builder = SseEmitter.event().name(this.name).data(this.data, MediaType.APPLICATION_JSON);
+			return this.id != null ? builder.id(this.id) : builder;
+		}
+	}
+
+	/**
+	 * Queue of events waiting to be written to one subscriber. At most one sender drains it at a
+	 * time. Closing only marks it: the emitter is completed by the sender, since a write blocked on
+	 * a slow client holds the emitter lock.
+	 */
+	private final class Subscriber implements Runnable {
+		private final SseEmitter emitter;
+		private final Queue<OutboundEvent> queue;
+		private final AtomicBoolean scheduled = new AtomicBoolean();
+		private volatile boolean closed;
+		private boolean completed;
+
+		Subscriber(SseEmitter emitter, int capacity) {
+			this.emitter = emitter;
+			this.queue = new ArrayBlockingQueue<>(capacity);
+		}
+
+		boolean offer(OutboundEvent event) {
+			if (this.closed || !this.queue.offer(event)) {
+				return false;
+			}
+			schedule();
+			return true;
+		}
+
+		void close() {
+			this.closed = true;
+			subscribers.remove(this);
+			schedule();
+		}
+
+		private void schedule() {
+			if (this.scheduled.compareAndSet(false, true)) {
+				senders.execute(this);
+			}
+		}
+
+		@Override
+		public void run() {
+			try {
+				OutboundEvent event;
+				while (!this.closed && (event = this.queue.poll()) != null) {
+					this.emitter.send(event.toSse());
+				}
+			} catch (IOException | IllegalStateException ex) {
+				// The client went away, or the emitter already completed
+				this.closed = true;
+				subscribers.remove(this);
+			} finally {
+				this.scheduled.set(false);
+			}
+			if (this.closed) {
+				this.queue.clear();
+				if (!this.completed) {
+					this.completed = true;
+					this.emitter.complete();
+				}
+			} else if (!this.queue.isEmpty()) {
+				schedule();
+			}
+		}
+	}
+}
@@ -0,0 +1,35 @@
+package com.polarbookshop.catalogservice.web;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("books/events")
+public class BookEventController {
+	static final String LAST_EVENT_ID = "Last-Event-ID";
+	
+	private static final Logger log = LoggerFactory.getLogger(BookEventController.class);
+	private final BookEventBroadcaster bookEventBroadcaster;
+	
+	public BookEventController(BookEventBroadcaster bookEventBroadcaster) {
+		this.bookEventBroadcaster = bookEventBroadcaster;
+	}
+	
+	@GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public ResponseEntity<SseEmitter> events(@RequestHeader(name = LAST_EVENT_ID, required = false) String lastEventId) {
+		log.info("Subscribing to book events after {}", lastEventId);
+		return ResponseEntity.ok()
+			// Reverse proxies would otherwise hold events back to fill their buffers
+			.header("X-Accel-Buffering", "no")
+			.body(this.bookEventBroadcaster.subscribe(lastEventId));
+	}
+}
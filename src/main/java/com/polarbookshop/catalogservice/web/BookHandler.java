@@ -0,0 +1,128 @@
+package com.polarbookshop.catalogservice.web;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import com.polarbookshop.catalogservice.config.PolarProperties;
+import com.polarbookshop.catalogservice.domain.Book;
+import com.polarbookshop.catalogservice.domain.ReactiveBookService;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * WebFlux handlers mirroring the {@link BookController} endpoints on top of {@link ReactiveBookService}.
+ */
+@Component
+@Profile("reactive")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class BookHandler {
+	private static final Logger log = LoggerFactory.getLogger(BookHandler.class);
+	private final ReactiveBookService bookService;
+	private final PolarProperties polarProperties;
+	private final Validator validator;
+
+	public BookHandler(ReactiveBookService bookService, PolarProperties polarProperties, Validator validator) {
+		this.bookService = bookService;
+		this.polarProperties = polarProperties;
+		this.validator = validator;
+	}
+	
+	public Mono<ServerResponse> get(ServerRequest request) {
+		log.info("Fetching a page of books in the catalog");
+		int pageSize = resolveLimit(request.queryParam("limit").map(Integer::valueOf).orElse(null));
+		long afterId = request.queryParam("after").map(after -> PageCursor.parse(after, 1).getLong(0)).orElse(0L);
+		return this.bookService.viewBookPage(afterId, pageSize)
+			.flatMap(page -> {
+				ServerResponse.BodyBuilder response = ServerResponse.ok();
+				if (page.hasNext()) {
+					Book lastBook = page.getContent().get(page.getNumberOfElements() - 1);
+					response.header(BookController.LINK, nextLink(request, PageCursor.encode(lastBook.id()), pageSize));
+				}
+				return response.bodyValue(page.getContent());
+			});
+	}
+	
+	public Mono<ServerResponse> getByIsbn(ServerRequest request) {
+		String isbn = request.pathVariable("isbn");
+		log.info("Fetching the book with ISBN {} from the catalog", isbn);
+		return this.bookService.viewBookDetails(isbn)
+			.flatMap(book -> ServerResponse.ok().eTag(EntityTags.of(book)).bodyValue(book));
+	}
+	
+	public Mono<ServerResponse> post(ServerRequest request) {
+		return request.bodyToMono(Book.class)
+			.flatMap(this::validate)
+			.doOnNext(book -> log.info("Adding a new book to the catalog with ISBN {}", book.isbn()))
+			.flatMap(this.bookService::addBookToCatalog)
+			.flatMap(book -> ServerResponse.status(HttpStatus.CREATED).bodyValue(book));
+	}
+	
+	public Mono<ServerResponse> delete(ServerRequest request) {
+		String isbn = request.pathVariable("isbn");
+		log.info("Deleting book with ISBN {}", isbn);
+		return this.bookService.removeBookFromCatalog(isbn)
+			.then(ServerResponse.noContent().build());
+	}
+	
+	public Mono<ServerResponse> put(ServerRequest request) {
+		String isbn = request.pathVariable("isbn");
+		log.info("Updating book with ISBN {}", isbn);
+		return request.bodyToMono(Book.class)
+			.flatMap(this::validate)
+			.flatMap(book -> this.bookService.editBookDetails(isbn, book))
+			.flatMap(book -> ServerResponse.ok().bodyValue(book));
+	}
+	
+	private Mono<Book> validate(Book book) {
+		Map<String, String> errors = new HashMap<>();
+		for (ConstraintViolation<Book> violation : this.validator.validate(book)) {
+			errors.put(violation.getPropertyPath().toString(), violation.getMessage());
+		}
+		return errors.isEmpty() ? Mono.just(book) : Mono.error(new InvalidBookException(errors));
+	}
+	
+	private int resolveLimit(Integer limit) {
+		PolarProperties.Pagination pagination = this.polarProperties.getPagination();
+		if (limit == null) {
+			return pagination.getDefaultLimit();
+		}
+		if (limit < 1) {
+			throw new InvalidQueryException("The page limit must be greater than zero.");
+		}
+		return Math.min(limit, pagination.getMaxLimit());
+	}
+	
+	private static String nextLink(ServerRequest request, String cursor, int limit) {
+		String uri = UriComponentsBuilder.fromUri(request.uri())
+			.replaceQueryParam("after", cursor)
+			.replaceQueryParam("limit", limit)
+			.toUriString();
+		return "<" + uri + ">; rel=\"next\"";
+	}
+	
+	static class InvalidBookException extends RuntimeException {
+		private final Map<String, String> errors;
+		
+		InvalidBookException(Map<String, String> errors) {
+			super("The book is not valid.");
+			this.errors = errors;
+		}
+		
+		Map<String, String> getErrors() {
+			return errors;
+		}
+	}
+}
@@ -0,0 +1,56 @@
+package com.polarbookshop.catalogservice.web;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.polarbookshop.catalogservice.config.PolarProperties;
+import com.polarbookshop.catalogservice.domain.Book;
+import com.polarbookshop.catalogservice.domain.BookImportResult;
+import com.polarbookshop.catalogservice.domain.BookImportService;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("books/bulk")
+public class BookImportController {
+	private static final Logger log = LoggerFactory.getLogger(BookImportController.class);
+	private final BookImportService bookImportService;
+	private final PolarProperties polarProperties;
+	private final ObjectReader bookReader;
+	
+	public BookImportController(BookImportService bookImportService, PolarProperties polarProperties, ObjectMapper objectMapper) {
+		this.bookImportService = bookImportService;
+		this.polarProperties = polarProperties;
+		this.bookReader = objectMapper.readerFor(Book.class);
+	}
+	
+	@PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+	public BookImportResult importArray(@RequestBody List<Book> books) {
+		log.info("Importing {} books into the catalog", books.size());
+		return this.bookImportService.importBooks(books.iterator(), batchSize());
+	}
+	
+	@PostMapping(consumes = MediaType.APPLICATION_NDJSON_VALUE)
+	public BookImportResult importStream(InputStream body) throws IOException {
+		log.info("Importing a stream of books into the catalog");
+		try (MappingIterator<Book> books = this.bookReader.readValues(body)) {
+			return this.bookImportService.importBooks(books, batchSize());
+		}
+	}
+	
+	private int batchSize() {
+		return this.polarProperties.getBulkImport().getBatchSize();
+	}
+}
@@ -0,0 +1,334 @@
+package com.polarbookshop.catalogservice.web;
+
+import java.io.IOException;
+import java.time.Instant;
+
+import org.springframework.boot.jackson.JsonComponent;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import com.polarbookshop.catalogservice.domain.Book;
+
+/**
+ * Hand-written mapping of {@link Book}, producing the same output as the reflective record
+ * mapping with the application's settings: properties in declaration order, nulls included and
+ * instants as ISO-8601 strings. Property names are pre-encoded, instants and prices are formatted
+ * into a reused buffer instead of intermediate strings, and canonical instants are parsed straight
+ * from the parser buffer. Anything unusual is handed back to the regular Jackson handling.
+ */
+@JsonComponent
+public class BookJsonComponent {
+	private static final SerializableString ID = new SerializedString("id");
+	private static final SerializableString ISBN = new SerializedString("isbn");
+	private static final SerializableString TITLE = new SerializedString("title");
+	private static final SerializableString AUTHOR = new SerializedString("author");
+	private static final SerializableString PRICE = new SerializedString("price");
+	private static final SerializableString PUBLISHER = new SerializedString("publisher");
+	private static final SerializableString CREATED_DATE = new SerializedString("createdDate");
+	private static final SerializableString LAST_MODIFIED_DATE = new SerializedString("lastModifiedDate");
+	private static final SerializableString CREATED_BY = new SerializedString("createdBy");
+	private static final SerializableString LAST_MODIFIED_BY = new SerializedString("lastModifiedBy");
+	private static final SerializableString VERSION = new SerializedString("version");
+	// Long enough for "yyyy-MM-ddTHH:mm:ss.nnnnnnnnnZ" and for prices below 10^7
+	private static final ThreadLocal<char[]> BUFFERS = ThreadLocal.withInitial(() -> new char[32]);
+	private static final int SECONDS_PER_DAY = 86_400;
+
+	public static class Serializer extends JsonSerializer<Book> {
+		@Override
+		public void serialize(Book book, JsonGenerator generator, SerializerProvider provider) throws IOException {
+			JsonInclude.Include inclusion = provider.getConfig().getDefaultPropertyInclusion(Book.class).getValueInclusion();
+			boolean writeNulls = inclusion == JsonInclude.Include.ALWAYS || inclusion == JsonInclude.Include.USE_DEFAULTS;
+			generator.writeStartObject(book);
+			if (book.id() != null) {
+				generator.writeFieldName(ID);
+				generator.writeNumber(book.id());
+			} else if (writeNulls) {
+				generator.writeFieldName(ID);
+				generator.writeNull();
+			}
+			writeString(generator, ISBN, book.isbn(), writeNulls);
+			writeString(generator, TITLE, book.title(), writeNulls);
+			writeString(generator, AUTHOR, book.author(), writeNulls);
+			if (book.price() != null) {
+				generator.writeFieldName(PRICE);
+				writePrice(generator, book.price());
+			} else if (writeNulls) {
+				generator.writeFieldName(PRICE);
+				generator.writeNull();
+			}
+			writeString(generator, PUBLISHER, book.publisher(), writeNulls);
+			writeInstant(generator, provider, CREATED_DATE, book.createdDate(), writeNulls);
+			writeInstant(generator, provider, LAST_MODIFIED_DATE, book.lastModifiedDate(), writeNulls);
+			writeString(generator, CREATED_BY, book.createdBy(), writeNulls);
+			writeString(generator, LAST_MODIFIED_BY, book.lastModifiedBy(), writeNulls);
+			generator.writeFieldName(VERSION);
+			generator.writeNumber(book.version());
+			generator.writeEndObject();
+		}
+
+		private static void writeString(JsonGenerator generator, SerializableString name, String value, boolean writeNulls) throws IOException {
+			if (value != null || writeNulls) {
+				generator.writeFieldName(name);
+				generator.writeString(value);
+			}
+		}
+
+		private static void writeInstant(
+			JsonGenerator generator,
+			SerializerProvider provider,
+			SerializableString name,
+			Instant value,
+			boolean writeNulls
+		) throws IOException {
+			if (value == null) {
+				if (writeNulls) {
+					generator.writeFieldName(name);
+					generator.writeNull();
+				}
+				return;
+			}
+			generator.writeFieldName(name);
+			if (provider.isEnabled(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)) {
+				provider.findValueSerializer(Instant.class).serialize(value, generator, provider);
+				return;
+			}
+			char[] buffer = BUFFERS.get();
+			int length = formatInstant(value, buffer);
+			if (length < 0) {
+				generator.writeString(value.toString());
+			} else {
+				generator.writeString(buffer, 0, length);
+			}
+		}
+
+		private static void writePrice(JsonGenerator generator, double price) throws IOException {
+			// Prices are almost always whole cents, for which the digits are the shortest representation
+			// Double.toString would produce too; binary formats encode the double itself
+			long cents = Math.round(price * 100);
+			if (!generator.canWriteFormattedNumbers() || price < 0.01 || price >= 1e7 || cents / 100.0 != price) {
+				generator.writeNumber(price);
+				return;
+			}
+			char[] buffer = BUFFERS.get();
+			int length = formatDigits(cents / 100, buffer, 0);
+			buffer[length++] = '.';
+			int fraction = (int) (cents % 100);
+			buffer[length++] = (char) ('0' + fraction / 10);
+			if (fraction % 10 != 0) {
+				buffer[length++] = (char) ('0' + fraction % 10);
+			}
+			generator.writeNumber(buffer, 0, length);
+		}
+	}
+
+	public static class Deserializer extends JsonDeserializer<Book> {
+		@Override
+		public Book deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+			JsonToken token = parser.currentToken();
+			if (token == JsonToken.START_OBJECT) {
+				token = parser.nextToken();
+			} else if (token != JsonToken.FIELD_NAME && token != JsonToken.END_OBJECT) {
+				return (Book) context.handleUnexpectedToken(Book.class, parser);
+			}
+			Long id = null;
+			String isbn = null;
+			String title = null;
+			String author = null;
+			Double price = null;
+			String publisher = null;
+			Instant createdDate = null;
+			Instant lastModifiedDate = null;
+			String createdBy = null;
+			String lastModifiedBy = null;
+			int version = 0;
+			for (; token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+				String name = parser.currentName();
+				JsonToken value = parser.nextToken();
+				switch (name) {
+					case "id" -> id = value == JsonToken.VALUE_NUMBER_INT ? Long.valueOf(parser.getLongValue()) : readValue(parser, context, value, Long.class);
+					case "isbn" -> isbn = readString(parser, context, value);
+					case "title" -> title = readString(parser, context, value);
+					case "author" -> author = readString(parser, context, value);
+					case "price" -> price = value == JsonToken.VALUE_NUMBER_FLOAT || value == JsonToken.VALUE_NUMBER_INT
+						? Double.valueOf(parser.getDoubleValue())
+						: readValue(parser, context, value, Double.class);
+					case "publisher" -> publisher = readString(parser, context, value);
+					case "createdDate" -> createdDate = readInstant(parser, context, value);
+					case "lastModifiedDate" -> lastModifiedDate = readInstant(parser, context, value);
+					case "createdBy" -> createdBy = readString(parser, context, value);
+					case "lastModifiedBy" -> lastModifiedBy = readString(parser, context, value);
+					case "version" -> {
+						Integer parsed = value == JsonToken.VALUE_NUMBER_INT ? Integer.valueOf(parser.getIntValue()) : readValue(parser, context, value, Integer.class);
+						version = parsed != null ? parsed : 0;
+					}
+					default -> context.handleUnknownProperty(parser, this, Book.class, name);
+				}
+			}
+			if (token != JsonToken.END_OBJECT) {
+				return (Book) context.handleUnexpectedToken(Book.class, parser);
+			}
+			return new Book(id, isbn, title, author, price, publisher, createdDate, lastModifiedDate, createdBy, lastModifiedBy, version);
+		}
+
+		private static String readString(JsonParser parser, DeserializationContext context, JsonToken value) throws IOException {
+			return value == JsonToken.VALUE_STRING ? parser.getText() : readValue(parser, context, value, String.class);
+		}
+
+		private static Instant readInstant(JsonParser parser, DeserializationContext context, JsonToken value) throws IOException {
+			if (value == JsonToken.VALUE_STRING) {
+				Instant instant = parseInstant(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+				if (instant != null) {
+					return instant;
+				}
+			}
+			return readValue(parser, context, value, Instant.class);
+		}
+
+		private static <T> T readValue(JsonParser parser, DeserializationContext context, JsonToken value, Class<T> type) throws IOException {
+			return value == JsonToken.VALUE_NULL ? null : context.readValue(parser, type);
+		}
+	}
+
+	/**
+	 * Writes the instant as {@link Instant#toString()} does, returning the length, or -1 for
+	 * years outside 0000-9999 which it writes differently.
+	 */
+	static int formatInstant(Instant instant, char[] buffer) {
+		long epochSecond = instant.getEpochSecond();
+		long epochDay = Math.floorDiv(epochSecond, SECONDS_PER_DAY);
+		int secondOfDay = (int) Math.floorMod(epochSecond, SECONDS_PER_DAY);
+		// Civil date from days since the epoch, in 400-year eras starting on March 1st
+		long shifted = epochDay + 719_468;
+		long era = Math.floorDiv(shifted, 146_097);
+		int dayOfEra = (int) (shifted - era * 146_097);
+		int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36_524 - dayOfEra / 146_096) / 365;
+		int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+		int shiftedMonth = (5 * dayOfYear + 2) / 153;
+		int day = dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+		int month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+		long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+		if (year < 0 || year > 9999) {
+			return -1;
+		}
+		writeFixed(buffer, 0, (int) year, 4);
+		buffer[4] = '-';
+		writeFixed(buffer, 5, month, 2);
+		buffer[7] = '-';
+		writeFixed(buffer, 8, day, 2);
+		buffer[10] = 'T';
+		writeFixed(buffer, 11, secondOfDay / 3600, 2);
+		buffer[13] = ':';
+		writeFixed(buffer, 14, secondOfDay / 60 % 60, 2);
+		buffer[16] = ':';
+		writeFixed(buffer, 17, secondOfDay % 60, 2);
+		int length = 19;
+		int nano = instant.getNano();
+		if (nano > 0) {
+			buffer[length++] = '.';
+			if (nano % 1_000_000 == 0) {
+				writeFixed(buffer, length, nano / 1_000_000, 3);
+				length += 3;
+			} else if (nano % 1000 == 0) {
+				writeFixed(buffer, length, nano / 1000, 6);
+				length += 6;
+			} else {
+				writeFixed(buffer, length, nano, 9);
+				length += 9;
+			}
+		}
+		buffer[length++] = 'Z';
+		return length;
+	}
+
+	/**
+	 * Parses instants in the form {@link #formatInstant} writes, returning {@code null} for
+	 * anything else, such as offsets or leap seconds.
+	 */
+	static Instant parseInstant(char[] text, int offset, int length) {
+		if (length < 20 || text[offset + length - 1] != 'Z' || text[offset + 4] != '-' || text[offset + 7] != '-'
+			|| text[offset + 10] != 'T' || text[offset + 13] != ':' || text[offset + 16] != ':') {
+			return null;
+		}
+		int year = readFixed(text, offset, 4);
+		int month = readFixed(text, offset + 5, 2);
+		int day = readFixed(text, offset + 8, 2);
+		int hour = readFixed(text, offset + 11, 2);
+		int minute = readFixed(text, offset + 14, 2);
+		int second = readFixed(text, offset + 17, 2);
+		if (year < 0 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)
+			|| hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+			return null;
+		}
+		int nano = 0;
+		int fractionDigits = length - 21;
+		if (length > 20) {
+			if (text[offset + 19] != '.' || fractionDigits < 1 || fractionDigits > 9) {
+				return null;
+			}
+			nano = readFixed(text, offset + 20, fractionDigits);
+			if (nano < 0) {
+				return null;
+			}
+			for (int i = fractionDigits; i < 9; i++) {
+				nano *= 10;
+			}
+		}
+		// Days since the epoch from the civil date, in 400-year eras starting on March 1st
+		int shiftedYear = month <= 2 ? year - 1 : year;
+		int era = Math.floorDiv(shiftedYear, 400);
+		int yearOfEra = shiftedYear - era * 400;
+		int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+		int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+		long epochDay = era * 146_097L + dayOfEra - 719_468;
+		return Instant.ofEpochSecond(epochDay * SECONDS_PER_DAY + hour * 3600L + minute * 60L + second, nano);
+	}
+
+	private static int formatDigits(long value, char[] buffer, int offset) {
+		int digits = 1;
+		for (long rest = value / 10; rest > 0; rest /= 10) {
+			digits++;
+		}
+		for (int i = offset + digits - 1; i >= offset; i--) {
+			buffer[i] = (char) ('0' + value % 10);
+			value /= 10;
+		}
+		return offset + digits;
+	}
+
+	private static void writeFixed(char[] buffer, int offset, int value, int digits) {
+		for (int i = offset + digits - 1; i >= offset; i--) {
+			buffer[i] = (char) ('0' + value % 10);
+			value /= 10;
+		}
+	}
+
+	private static int readFixed(char[] text, int offset, int digits) {
+		int value = 0;
+		for (int i = offset; i < offset + digits; i++) {
+			char c = text[i];
+			if (c < '0' || c > '9') {
+				return -1;
+			}
+			value = value * 10 + (c - '0');
+		}
+		return value;
+	}
+
+	private static int lengthOfMonth(int year, int month) {
+		return switch (month) {
+			case 2 -> (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+			case 4, 6, 9, 11 -> 30;
+			default -> 31;
+		};
+	}
+}
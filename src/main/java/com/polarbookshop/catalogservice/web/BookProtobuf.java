@@ -0,0 +1,214 @@
+package com.polarbookshop.catalogservice.web;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+
+import com.polarbookshop.catalogservice.domain.Book;
+
+/**
+ * Encodes books following the messages in {@code proto/book.proto}. The wire format is written
+ * by hand rather than through generated classes, so books go to the stream without being copied
+ * into intermediate message objects first.
+ */
+final class BookProtobuf {
+	private static final int ID = 1;
+	private static final int ISBN = 2;
+	private static final int TITLE = 3;
+	private static final int AUTHOR = 4;
+	private static final int PRICE = 5;
+	private static final int PUBLISHER = 6;
+	private static final int CREATED_DATE = 7;
+	private static final int LAST_MODIFIED_DATE = 8;
+	private static final int CREATED_BY = 9;
+	private static final int LAST_MODIFIED_BY = 10;
+	private static final int VERSION = 11;
+	private static final int BOOKS = 1;
+	private static final int ERROR_MESSAGE = 1;
+	private static final int ERROR_FIELDS = 2;
+	private static final int SECONDS = 1;
+	private static final int NANOS = 2;
+	private static final int KEY = 1;
+	private static final int VALUE = 2;
+
+	private BookProtobuf() {
+	}
+
+	static void writeBook(CodedOutputStream output, Book book) throws IOException {
+		if (book.id() != null) {
+			output.writeInt64(ID, book.id());
+		}
+		writeString(output, ISBN, book.isbn());
+		writeString(output, TITLE, book.title());
+		writeString(output, AUTHOR, book.author());
+		if (book.price() != null) {
+			output.writeDouble(PRICE, book.price());
+		}
+		writeString(output, PUBLISHER, book.publisher());
+		writeTimestamp(output, CREATED_DATE, book.createdDate());
+		writeTimestamp(output, LAST_MODIFIED_DATE, book.lastModifiedDate());
+		writeString(output, CREATED_BY, book.createdBy());
+		writeString(output, LAST_MODIFIED_BY, book.lastModifiedBy());
+		if (book.version() != 0) {
+			output.writeInt32(VERSION, book.version());
+		}
+	}
+
+	static void writeDelimitedBook(CodedOutputStream output, Book book) throws IOException {
+		output.writeUInt32NoTag(bookSize(book));
+		writeBook(output, book);
+	}
+
+	static void writeBookList(CodedOutputStream output, List<?> books) throws IOException {
+		for (Object book : books) {
+			output.writeTag(BOOKS, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+			writeDelimitedBook(output, (Book) book);
+		}
+	}
+
+	static void writeError(CodedOutputStream output, String message, Map<?, ?> fields) throws IOException {
+		writeString(output, ERROR_MESSAGE, message);
+		for (Map.Entry<?, ?> field : fields.entrySet()) {
+			String key = String.valueOf(field.getKey());
+			String value = String.valueOf(field.getValue());
+			output.writeTag(ERROR_FIELDS, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+			output.writeUInt32NoTag(CodedOutputStream.computeStringSize(KEY, key) + CodedOutputStream.computeStringSize(VALUE, value));
+			output.writeString(KEY, key);
+			output.writeString(VALUE, value);
+		}
+	}
+
+	static Book readBook(CodedInputStream input) throws IOException {
+		Long id = null;
+		String isbn = null;
+		String title = null;
+		String author = null;
+		Double price = null;
+		String publisher = null;
+		Instant createdDate = null;
+		Instant lastModifiedDate = null;
+		String createdBy = null;
+		String lastModifiedBy = null;
+		int version = 0;
+		int tag;
+		while ((tag = input.readTag()) != 0) {
+			switch (WireFormat.getTagFieldNumber(tag)) {
+				case ID -> id = input.readInt64();
+				case ISBN -> isbn = input.readString();
+				case TITLE -> title = input.readString();
+				case AUTHOR -> author = input.readString();
+				case PRICE -> price = input.readDouble();
+				case PUBLISHER -> publisher = input.readString();
+				case CREATED_DATE -> createdDate = readTimestamp(input);
+				case LAST_MODIFIED_DATE -> lastModifiedDate = readTimestamp(input);
+				case CREATED_BY -> createdBy = input.readString();
+				case LAST_MODIFIED_BY -> lastModifiedBy = input.readString();
+				case VERSION -> version = input.readInt32();
+				default -> input.skipField(tag);
+			}
+		}
+		return new Book(id, isbn, title, author, price, publisher, createdDate, lastModifiedDate, createdBy, lastModifiedBy, version);
+	}
+
+	static List<Book> readBookList(CodedInputStream input) throws IOException {
+		List<Book> books = new ArrayList<>();
+		int tag;
+		while ((tag = input.readTag()) != 0) {
+			if (WireFormat.getTagFieldNumber(tag) == BOOKS) {
+				int limit = input.pushLimit(input.readRawVarint32());
+				books.add(readBook(input));
+				input.popLimit(limit);
+			} else {
+				input.skipField(tag);
+			}
+		}
+		return books;
+	}
+
+	static int bookSize(Book book) {
+		int size = 0;
+		if (book.id() != null) {
+			size += CodedOutputStream.computeInt64Size(ID, book.id());
+		}
+		size += stringSize(ISBN, book.isbn());
+		size += stringSize(TITLE, book.title());
+		size += stringSize(AUTHOR, book.author());
+		if (book.price() != null) {
+			size += CodedOutputStream.computeDoubleSize(PRICE, book.price());
+		}
+		size += stringSize(PUBLISHER, book.publisher());
+		size += timestampFieldSize(CREATED_DATE, book.createdDate());
+		size += timestampFieldSize(LAST_MODIFIED_DATE, book.lastModifiedDate());
+		size += stringSize(CREATED_BY, book.createdBy());
+		size += stringSize(LAST_MODIFIED_BY, book.lastModifiedBy());
+		if (book.version() != 0) {
+			size += CodedOutputStream.computeInt32Size(VERSION, book.version());
+		}
+		return size;
+	}
+
+	private static void writeString(CodedOutputStream output, int field, String value) throws IOException {
+		if (value != null) {
+			output.writeString(field, value);
+		}
+	}
+
+	private static int stringSize(int field, String value) {
+		return value != null ? CodedOutputStream.computeStringSize(field, value) : 0;
+	}
+
+	private static void writeTimestamp(CodedOutputStream output, int field, Instant instant) throws IOException {
+		if (instant == null) {
+			return;
+		}
+		output.writeTag(field, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+		output.writeUInt32NoTag(timestampSize(instant));
+		if (instant.getEpochSecond() != 0) {
+			output.writeInt64(SECONDS, instant.getEpochSecond());
+		}
+		if (instant.getNano() != 0) {
+			output.writeInt32(NANOS, instant.getNano());
+		}
+	}
+
+	private static Instant readTimestamp(CodedInputStream input) throws IOException {
+		int limit = input.pushLimit(input.readRawVarint32());
+		long seconds = 0;
+		int nanos = 0;
+		int tag;
+		while ((tag = input.readTag()) != 0) {
+			switch (WireFormat.getTagFieldNumber(tag)) {
+				case SECONDS -> seconds = input.readInt64();
+				case NANOS -> nanos = input.readInt32();
+				default -> input.skipField(tag);
+			}
+		}
+		input.popLimit(limit);
+		return Instant.ofEpochSecond(seconds, nanos);
+	}
+
+	private static int timestampSize(Instant instant) {
+		int size = 0;
+		if (instant.getEpochSecond() != 0) {
+			size += CodedOutputStream.computeInt64Size(SECONDS, instant.getEpochSecond());
+		}
+		if (instant.getNano() != 0) {
+			size += CodedOutputStream.computeInt32Size(NANOS, instant.getNano());
+		}
+		return size;
+	}
+
+	private static int timestampFieldSize(int field, Instant instant) {
+		if (instant == null) {
+			return 0;
+		}
+		int size = timestampSize(instant);
+		return CodedOutputStream.computeTagSize(field) + CodedOutputStream.computeUInt32SizeNoTag(size) + size;
+	}
+}
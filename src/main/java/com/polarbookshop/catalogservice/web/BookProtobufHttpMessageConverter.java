@@ -0,0 +1,88 @@
+package com.polarbookshop.catalogservice.web;
+
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+
+import com.polarbookshop.catalogservice.domain.Book;
+
+/**
+ * Reads and writes books and book lists as the {@code Book} and {@code BookList} messages of
+ * {@code proto/book.proto}. Error bodies, either a message or the invalid fields of a book, are
+ * written as the {@code Error} message.
+ */
+class BookProtobufHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+	private static final String VALIDATION_FAILED = "The book is not valid.";
+
+	BookProtobufHttpMessageConverter() {
+		super(MediaType.parseMediaType(BinaryFormats.PROTOBUF_VALUE));
+	}
+
+	@Override
+	protected boolean supports(Class<?> clazz) {
+		return Book.class == clazz || List.class.isAssignableFrom(clazz)
+			|| String.class == clazz || Map.class.isAssignableFrom(clazz);
+	}
+
+	@Override
+	public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+		return (type == Book.class || isBookList(type)) && canRead(mediaType);
+	}
+
+	@Override
+	public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+		if (type instanceof ParameterizedType && List.class.isAssignableFrom(clazz) && !isBookList(type)) {
+			return false;
+		}
+		return canWrite(clazz, mediaType);
+	}
+
+	@Override
+	public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+		CodedInputStream input = CodedInputStream.newInstance(inputMessage.getBody());
+		try {
+			return isBookList(type) ? BookProtobuf.readBookList(input) : BookProtobuf.readBook(input);
+		} catch (InvalidProtocolBufferException ex) {
+			throw new HttpMessageNotReadableException("The book message is not valid.", ex, inputMessage);
+		}
+	}
+
+	@Override
+	protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+		return read(clazz, null, inputMessage);
+	}
+
+	@Override
+	protected void writeInternal(Object value, Type type, HttpOutputMessage outputMessage) throws IOException {
+		CodedOutputStream output = CodedOutputStream.newInstance(outputMessage.getBody());
+		if (value instanceof Book book) {
+			BookProtobuf.writeBook(output, book);
+		} else if (value instanceof List<?> books) {
+			BookProtobuf.writeBookList(output, books);
+		} else if (value instanceof String message) {
+			BookProtobuf.writeError(output, message, Map.of());
+		} else {
+			BookProtobuf.writeError(output, VALIDATION_FAILED, (Map<?, ?>) value);
+		}
+		output.flush();
+	}
+
+	private static boolean isBookList(Type type) {
+		return type instanceof ParameterizedType parameterizedType
+			&& parameterizedType.getRawType() instanceof Class<?> rawType
+			&& List.class.isAssignableFrom(rawType)
+			&& parameterizedType.getActualTypeArguments()[0] == Book.class;
+	}
+}
@@ -0,0 +1,141 @@
+package com.polarbookshop.catalogservice.web;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.data.domain.Slice;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import com.polarbookshop.catalogservice.config.PolarProperties;
+import com.polarbookshop.catalogservice.domain.Book;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Serialized JSON bodies of books and catalog pages, kept together with a gzip-compressed copy
+ * so repeated reads skip both serialization and compression. Entries are keyed by entity tag:
+ * a new version of a book, or a page whose books changed, gets a new entry, and the stale one
+ * ages out of the size-bounded cache without any invalidation.
+ */
+@Component
+class BookRepresentationCache implements MeterBinder {
+	private static final String GZIP = "gzip";
+
+	private final ObjectWriter bookWriter;
+	private final ObjectWriter pageWriter;
+	private final Cache<String, Representation> representations;
+
+	BookRepresentationCache(PolarProperties polarProperties, ObjectMapper objectMapper) {
+		this.bookWriter = objectMapper.writerFor(Book.class);
+		this.pageWriter = objectMapper.writerFor(new TypeReference<List<Book>>() {});
+		this.representations = Caffeine.newBuilder()
+			.maximumWeight(polarProperties.getResponseCache().getMaxSize().toBytes())
+			.weigher((String key, Representation representation) -> representation.weight())
+			.recordStats()
+			.build();
+	}
+
+	Representation book(String etag, Book book) {
+		if (book.id() == null) {
+			// Not persisted, so the tag does not identify its content
+			return serialize(this.bookWriter, book, null);
+		}
+		return this.representations.get("book:" + etag, key -> serialize(this.bookWriter, book, null));
+	}
+
+	Representation page(String etag, Slice<Book> page) {
+		return this.representations.get("page:" + etag, key -> {
+			String nextCursor = page.hasNext()
+				? PageCursor.encode(page.getContent().get(page.getNumberOfElements() - 1).id())
+				: null;
+			return serialize(this.pageWriter, page.getContent(), nextCursor);
+		});
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		CaffeineCacheMetrics.monitor(registry, this.representations, "representations");
+	}
+
+	static boolean acceptsGzip(String acceptEncoding) {
+		if (acceptEncoding == null) {
+			return false;
+		}
+		for (String candidate : acceptEncoding.split(",")) {
+			String[] parts = candidate.trim().split(";");
+			if (parts[0].trim().equalsIgnoreCase(GZIP)) {
+				return parts.length == 1 || !parts[1].trim().matches("q=0(\\.0*)?");
+			}
+		}
+		return false;
+	}
+
+	private static Representation serialize(ObjectWriter writer, Object value, String nextCursor) {
+		CatalogSerializationEvent event = new CatalogSerializationEvent();
+		event.begin();
+		try {
+			long start = System.nanoTime();
+			byte[] json = writer.writeValueAsBytes(value);
+			long serializationTime = System.nanoTime() - start;
+			byte[] gzip = gzip(json);
+			event.end();
+			if (event.shouldCommit()) {
+				event.operation = value instanceof Book ? "book" : "page";
+				event.format = MediaType.APPLICATION_JSON_VALUE;
+				event.isbn = value instanceof Book book ? book.isbn() : null;
+				event.rows = value instanceof List<?> books ? books.size() : 1;
+				event.serializationTime = serializationTime;
+				event.size = json.length;
+				event.compressedSize = gzip.length;
+				event.commit();
+			}
+			// Small bodies can grow when compressed, in which case they are always sent as is
+			return new Representation(json, gzip.length < json.length ? gzip : null, nextCursor);
+		} catch (JsonProcessingException ex) {
+			throw new IllegalStateException("Cannot serialize the book representation", ex);
+		}
+	}
+
+	private static byte[] gzip(byte[] content) {
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream(content.length / 4 + 32);
+		// Compressed once per version, so the slowest level pays off
+		try (GZIPOutputStream gzip = new GZIPOutputStream(compressed) {{ this.def.setLevel(Deflater.BEST_COMPRESSION); }}) {
+			gzip.write(content);
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+		return compressed.toByteArray();
+	}
+
+	/**
+	 * JSON body with its gzip-compressed copy, {@code null} when compression does not shrink it.
+	 * For pages, the cursor of the next page is kept too.
+	 */
+	record Representation(byte[] json, byte[] gzip, String nextCursor) {
+		String contentEncoding(boolean acceptsGzip) {
+			return acceptsGzip && this.gzip != null ? GZIP : null;
+		}
+
+		byte[] body(boolean acceptsGzip) {
+			return acceptsGzip && this.gzip != null ? this.gzip : this.json;
+		}
+
+		int weight() {
+			return this.json.length + (this.gzip != null ? this.gzip.length : 0);
+		}
+	}
+}
@@ -0,0 +1,61 @@
+package com.polarbookshop.catalogservice.web;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ServerWebInputException;
+
+import com.polarbookshop.catalogservice.domain.BookAlreadyExistsException;
+import com.polarbookshop.catalogservice.domain.BookNotFoundException;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Routes of the reactive stack. Errors are mapped to the same statuses and bodies as {@link BookControllerAdvice}.
+ * Endpoints only the servlet stack serves answer 501 instead of falling through to the ISBN routes.
+ */
+@Configuration
+@Profile("reactive")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class BookRouter {
+	@Bean
+	RouterFunction<ServerResponse> bookRoutes(BookHandler handler) {
+		return RouterFunctions.route()
+			.path("/books", builder -> builder
+				.GET("", handler::get)
+				// Served by the servlet stack only, and not to be taken for an ISBN
+				.GET("/search", BookRouter::notImplemented)
+				.GET("/suggest", BookRouter::notImplemented)
+				.GET("/changes", BookRouter::notImplemented)
+				.GET("/events", BookRouter::notImplemented)
+				.POST("/bulk", BookRouter::notImplemented)
+				.GET("/{isbn}", handler::getByIsbn)
+				.POST("", handler::post)
+				.PUT("/{isbn}", handler::put)
+				.DELETE("/{isbn}", handler::delete)
+			)
+			.onError(BookNotFoundException.class, (ex, request) -> error(HttpStatus.NOT_FOUND, ex.getMessage()))
+			.onError(BookAlreadyExistsException.class, (ex, request) -> error(HttpStatus.UNPROCESSABLE_ENTITY, ex.getMessage()))
+			.onError(InvalidQueryException.class, (ex, request) -> error(HttpStatus.BAD_REQUEST, ex.getMessage()))
+			.onError(NumberFormatException.class, (ex, request) -> error(HttpStatus.BAD_REQUEST, "The page limit must be a number."))
+			.onError(ServerWebInputException.class, (ex, request) -> error(HttpStatus.BAD_REQUEST, ex.getReason()))
+			.onError(BookHandler.InvalidBookException.class, (ex, request) -> ServerResponse.badRequest()
+				.bodyValue(((BookHandler.InvalidBookException) ex).getErrors()))
+			.build();
+	}
+	
+	private static Mono<ServerResponse> notImplemented(ServerRequest request) {
+		return error(HttpStatus.NOT_IMPLEMENTED, "This endpoint is not available on the reactive stack.");
+	}
+	
+	private static Mono<ServerResponse> error(HttpStatus status, String message) {
+		return ServerResponse.status(status).contentType(MediaType.TEXT_PLAIN).bodyValue(message);
+	}
+}
@@ -0,0 +1,31 @@
+package com.polarbookshop.catalogservice.web;
+
+import java.util.List;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.polarbookshop.catalogservice.config.PolarProperties;
+import com.polarbookshop.catalogservice.domain.BookSuggestion;
+import com.polarbookshop.catalogservice.domain.BookSuggestionIndex;
+
+@RestController
+@RequestMapping("books/suggest")
+public class BookSuggestionController {
+	private final BookSuggestionIndex bookSuggestionIndex;
+	private final PolarProperties polarProperties;
+	
+	public BookSuggestionController(BookSuggestionIndex bookSuggestionIndex, PolarProperties polarProperties) {
+		this.bookSuggestionIndex = bookSuggestionIndex;
+		this.polarProperties = polarProperties;
+	}
+	
+	@GetMapping
+	public List<BookSuggestion> suggest(@RequestParam String prefix, @RequestParam(required = false) Integer limit) {
+		PolarProperties.Suggestions suggestions = this.polarProperties.getSuggestions();
+		int size = limit != null ? Math.min(Math.max(limit, 1), suggestions.getMaxLimit()) : suggestions.getDefaultLimit();
+		return this.bookSuggestionIndex.suggest(prefix, size);
+	}
+}
@@ -0,0 +1,47 @@
+package com.polarbookshop.catalogservice.web;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event for catalog content serialized for a response. JSON representations are
+ * serialized and compressed once for the response cache, the event duration covering both steps,
+ * and cache hits emit nothing. Binary formats, lookups, searches, changes and exports are
+ * serialized on every request and emit one event each.
+ */
+@Name("polar.CatalogSerialization")
+@Label("Catalog Serialization")
+@Category({ "Polar", "Catalog" })
+@Description("Book, catalog page or export serialized for a response")
+@StackTrace(false)
+class CatalogSerializationEvent extends Event {
+	@Label("Operation")
+	String operation;
+	
+	@Label("Format")
+	String format;
+	
+	@Label("ISBN")
+	String isbn;
+	
+	@Label("Rows")
+	int rows;
+	
+	@Label("Serialization Time")
+	@Timespan(Timespan.NANOSECONDS)
+	long serializationTime;
+	
+	@Label("Size")
+	@DataAmount
+	long size;
+	
+	@Label("Compressed Size")
+	@DataAmount
+	long compressedSize;
+}
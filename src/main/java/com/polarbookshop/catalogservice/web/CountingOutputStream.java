@@ -0,0 +1,32 @@
+package com.polarbookshop.catalogservice.web;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Counts the bytes written through to the target stream, for the size of serialization events.
+ */
+class CountingOutputStream extends FilterOutputStream {
+	private long count;
+
+	CountingOutputStream(OutputStream out) {
+		super(out);
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		this.out.write(b);
+		this.count++;
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		this.out.write(b, off, len);
+		this.count += len;
+	}
+
+	long getCount() {
+		return this.count;
+	}
+}
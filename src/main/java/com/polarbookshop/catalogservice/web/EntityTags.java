@@ -0,0 +1,78 @@
+package com.polarbookshop.catalogservice.web;
+
+import java.util.List;
+
+import org.springframework.data.domain.Slice;
+
+import com.polarbookshop.catalogservice.domain.Book;
+import com.polarbookshop.catalogservice.domain.BookVersion;
+
+/**
+ * Strong entity tags derived from the identity and version of books, so that conditional
+ * requests can be answered without loading or serializing the representation. Representations
+ * of the same resource that differ in media type or content coding get their own tag, as a strong
+ * tag promises byte-for-byte identical bodies. Binary formats are tagged with the subtype of their
+ * media type, such as {@code "12-3-cbor"}.
+ */
+final class EntityTags {
+	// Content codings a representation may come in
+	private static final List<String> VARIANTS = List.of("gzip");
+	
+	private EntityTags() {
+	}
+	
+	static String of(Book book) {
+		return quote(book.id() + "-" + book.version());
+	}
+	
+	static String of(BookVersion version) {
+		return quote(version.id() + "-" + version.version());
+	}
+	
+	/**
+	 * Tag of a catalog page, derived from the identity and version of the books it holds rather
+	 * than from the whole catalog, so it costs nothing beyond the page query itself.
+	 */
+	static String ofPage(Slice<Book> page) {
+		// 64-bit FNV-1a over the ids and versions, and whether another page follows
+		long hash = 0xcbf29ce484222325L;
+		for (Book book : page) {
+			hash = (hash ^ book.id()) * 0x100000001b3L;
+			hash = (hash ^ book.version()) * 0x100000001b3L;
+		}
+		hash = (hash ^ (page.hasNext() ? 1 : 0)) * 0x100000001b3L;
+		return quote("p" + page.getNumberOfElements() + "-" + Long.toHexString(hash));
+	}
+	
+	/**
+	 * Tag of one variant of the resource tagged {@code etag}, or that tag itself when the variant is {@code null}.
+	 */
+	static String variant(String etag, String variant) {
+		return variant != null ? etag.substring(0, etag.length() - 1) + "-" + variant + "\"" : etag;
+	}
+	
+	/**
+	 * Returns the tag listed in {@code If-None-Match} that matches the resource tagged {@code etag}
+	 * or one of its variants, or {@code null} when none does.
+	 */
+	static String match(String ifNoneMatch, String etag) {
+		if (ifNoneMatch == null) {
+			return null;
+		}
+		for (String candidate : ifNoneMatch.split(",")) {
+			String tag = candidate.trim();
+			if (tag.equals("*")) {
+				return etag;
+			}
+			String strongTag = tag.startsWith("W/") ? tag.substring(2) : tag;
+			if (strongTag.equals(etag) || VARIANTS.stream().anyMatch(variant -> strongTag.equals(variant(etag, variant)))) {
+				return strongTag;
+			}
+		}
+		return null;
+	}
+	
+	private static String quote(String value) {
+		return "\"" + value + "\"";
+	}
+}
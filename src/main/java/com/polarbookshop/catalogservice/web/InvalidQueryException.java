@@ -0,0 +1,7 @@
+package com.polarbookshop.catalogservice.web;
+
+public class InvalidQueryException extends RuntimeException {
+	public InvalidQueryException(String message) {
+		super(message);
+	}
+}
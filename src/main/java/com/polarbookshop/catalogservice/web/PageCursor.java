@@ -0,0 +1,59 @@
+package com.polarbookshop.catalogservice.web;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.stream.Collectors;
+
+/**
+ * Opaque keyset cursor handed out to clients as the position of the last returned element.
+ */
+final class PageCursor {
+	private static final String SEPARATOR = ":";
+	
+	private final String[] values;
+	
+	private PageCursor(String[] values) {
+		this.values = values;
+	}
+	
+	static String encode(Object... values) {
+		String joined = Arrays.stream(values)
+			.map(String::valueOf)
+			.collect(Collectors.joining(SEPARATOR));
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(joined.getBytes(StandardCharsets.UTF_8));
+	}
+	
+	static PageCursor parse(String cursor, int size) {
+		try {
+			String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+			String[] values = decoded.split(SEPARATOR, -1);
+			if (values.length != size) {
+				throw invalid();
+			}
+			return new PageCursor(values);
+		} catch (IllegalArgumentException ex) {
+			throw invalid();
+		}
+	}
+	
+	long getLong(int index) {
+		try {
+			return Long.parseLong(this.values[index]);
+		} catch (NumberFormatException ex) {
+			throw invalid();
+		}
+	}
+	
+	float getFloat(int index) {
+		try {
+			return Float.parseFloat(this.values[index]);
+		} catch (NumberFormatException ex) {
+			throw invalid();
+		}
+	}
+	
+	private static InvalidQueryException invalid() {
+		return new InvalidQueryException("The page cursor is not valid.");
+	}
+}
@@ -0,0 +1,151 @@
+package com.polarbookshop.catalogservice.web;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.util.List;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.GenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageConverter;
+
+import com.polarbookshop.catalogservice.domain.Book;
+import com.polarbookshop.catalogservice.domain.BookLookupResult;
+
+/**
+ * Emits a {@link CatalogSerializationEvent} for the catalog content written by another converter,
+ * covering the responses that bypass the {@link BookRepresentationCache}: binary formats, lookups,
+ * searches and changes. Other bodies, such as error messages, emit nothing.
+ */
+class RecordingHttpMessageConverter implements GenericHttpMessageConverter<Object> {
+	private final GenericHttpMessageConverter<Object> delegate;
+
+	private RecordingHttpMessageConverter(GenericHttpMessageConverter<Object> delegate) {
+		this.delegate = delegate;
+	}
+
+	@SuppressWarnings("unchecked")
+	static HttpMessageConverter<?> wrap(HttpMessageConverter<?> converter) {
+		return converter instanceof GenericHttpMessageConverter<?> genericConverter
+			? new RecordingHttpMessageConverter((GenericHttpMessageConverter<Object>) genericConverter)
+			: converter;
+	}
+
+	@Override
+	public boolean canRead(Class<?> clazz, MediaType mediaType) {
+		return this.delegate.canRead(clazz, mediaType);
+	}
+
+	@Override
+	public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+		return this.delegate.canRead(type, contextClass, mediaType);
+	}
+
+	@Override
+	public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+		return this.delegate.canWrite(clazz, mediaType);
+	}
+
+	@Override
+	public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+		return this.delegate.canWrite(type, clazz, mediaType);
+	}
+
+	@Override
+	public List<MediaType> getSupportedMediaTypes() {
+		return this.delegate.getSupportedMediaTypes();
+	}
+
+	@Override
+	public List<MediaType> getSupportedMediaTypes(Class<?> clazz) {
+		return this.delegate.getSupportedMediaTypes(clazz);
+	}
+
+	@Override
+	public Object read(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+		return this.delegate.read(clazz, inputMessage);
+	}
+
+	@Override
+	public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+		return this.delegate.read(type, contextClass, inputMessage);
+	}
+
+	@Override
+	public void write(Object value, MediaType contentType, HttpOutputMessage outputMessage) throws IOException {
+		write(value, null, contentType, outputMessage);
+	}
+
+	@Override
+	public void write(Object value, Type type, MediaType contentType, HttpOutputMessage outputMessage) throws IOException {
+		String operation = operationOf(value);
+		if (operation == null) {
+			writeThrough(value, type, contentType, outputMessage);
+			return;
+		}
+		CatalogSerializationEvent event = new CatalogSerializationEvent();
+		CountingOutputMessage countingMessage = new CountingOutputMessage(outputMessage);
+		event.begin();
+		long start = System.nanoTime();
+		writeThrough(value, type, contentType, countingMessage);
+		long serializationTime = System.nanoTime() - start;
+		event.end();
+		if (event.shouldCommit()) {
+			event.operation = operation;
+			event.format = String.valueOf(outputMessage.getHeaders().getContentType());
+			event.isbn = value instanceof Book book ? book.isbn() : null;
+			event.rows = value instanceof List<?> books ? books.size()
+				: value instanceof BookLookupResult result ? result.books().size() : 1;
+			event.serializationTime = serializationTime;
+			event.size = countingMessage.getCount();
+			event.commit();
+		}
+	}
+
+	private void writeThrough(Object value, Type type, MediaType contentType, HttpOutputMessage outputMessage) throws IOException {
+		if (type != null) {
+			this.delegate.write(value, type, contentType, outputMessage);
+		} else {
+			this.delegate.write(value, contentType, outputMessage);
+		}
+	}
+
+	private static String operationOf(Object value) {
+		if (value instanceof Book) {
+			return "book";
+		}
+		if (value instanceof BookLookupResult) {
+			return "lookup";
+		}
+		return value instanceof List<?> ? "page" : null;
+	}
+
+	private static class CountingOutputMessage implements HttpOutputMessage {
+		private final HttpOutputMessage target;
+		private CountingOutputStream body;
+
+		CountingOutputMessage(HttpOutputMessage target) {
+			this.target = target;
+		}
+
+		@Override
+		public HttpHeaders getHeaders() {
+			return this.target.getHeaders();
+		}
+
+		@Override
+		public OutputStream getBody() throws IOException {
+			if (this.body == null) {
+				this.body = new CountingOutputStream(this.target.getBody());
+			}
+			return this.body;
+		}
+
+		long getCount() {
+			return this.body != null ? this.body.getCount() : 0;
+		}
+	}
+}
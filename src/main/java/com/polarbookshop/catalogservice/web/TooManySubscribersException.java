@@ -0,0 +1,7 @@
+package com.polarbookshop.catalogservice.web;
+
+public class TooManySubscribersException extends RuntimeException {
+	public TooManySubscribersException() {
+		super("The book event stream has reached its maximum number of subscribers.");
+	}
+}
@@ -0,0 +1,27 @@
+CREATE OR REPLACE FUNCTION notify_book_change() RETURNS trigger AS $$
+DECLARE
+  origin text := coalesce(current_setting('application_name', true), '');
+BEGIN
+  PERFORM pg_notify('book_changes', TG_OP || ':' || NEW.isbn || ':' || NEW.change_seq || ':' || origin);
+  RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Deletions, ISBN changes included, are announced by their tombstones, which hold their sequence
+CREATE FUNCTION notify_book_tombstone() RETURNS trigger AS $$
+DECLARE
+  origin text := coalesce(current_setting('application_name', true), '');
+BEGIN
+  PERFORM pg_notify('book_changes', 'DELETE:' || NEW.isbn || ':' || NEW.change_seq || ':' || origin);
+  RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER book_change_notify ON book;
+CREATE TRIGGER book_change_notify
+  AFTER INSERT OR UPDATE ON book
+  FOR EACH ROW EXECUTE FUNCTION notify_book_change();
+
+CREATE TRIGGER book_tombstone_notify
+  AFTER INSERT OR UPDATE ON book_tombstone
+  FOR EACH ROW EXECUTE FUNCTION notify_book_tombstone();
@@ -0,0 +1,16 @@
+-- The near cache polls on last_modified_date, so every instance must stamp it with the same clock.
+-- The creation date is only filled in when the statement leaves it out.
+CREATE OR REPLACE FUNCTION assign_book_change_seq() RETURNS trigger AS $$
+BEGIN
+  IF TG_OP = 'UPDATE' AND NEW.isbn <> OLD.isbn THEN
+    PERFORM record_book_tombstone(OLD.isbn, OLD.id);
+  END IF;
+  NEW.change_seq := nextval('book_change_seq');
+  NEW.change_date := clock_timestamp();
+  NEW.last_modified_date := NEW.change_date;
+  IF TG_OP = 'INSERT' THEN
+    NEW.created_date := coalesce(NEW.created_date, NEW.change_date);
+  END IF;
+  RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
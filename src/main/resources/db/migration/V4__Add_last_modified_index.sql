@@ -0,0 +1 @@
+CREATE INDEX book_last_modified_date_idx ON book (last_modified_date);
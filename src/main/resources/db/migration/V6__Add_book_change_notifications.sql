@@ -0,0 +1,17 @@
+CREATE FUNCTION notify_book_change() RETURNS trigger AS $$
+BEGIN
+  IF TG_OP = 'DELETE' THEN
+    PERFORM pg_notify('book_changes', 'DELETE:' || OLD.isbn);
+  ELSE
+    IF TG_OP = 'UPDATE' AND NEW.isbn <> OLD.isbn THEN
+      PERFORM pg_notify('book_changes', 'DELETE:' || OLD.isbn);
+    END IF;
+    PERFORM pg_notify('book_changes', TG_OP || ':' || NEW.isbn);
+  END IF;
+  RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER book_change_notify
+  AFTER INSERT OR UPDATE OR DELETE ON book
+  FOR EACH ROW EXECUTE FUNCTION notify_book_change();
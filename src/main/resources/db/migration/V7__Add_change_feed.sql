@@ -0,0 +1,46 @@
+CREATE SEQUENCE book_change_seq;
+
+ALTER TABLE book ADD COLUMN change_seq bigint;
+UPDATE book SET change_seq = nextval('book_change_seq');
+ALTER TABLE book ALTER COLUMN change_seq SET NOT NULL;
+CREATE INDEX book_change_seq_idx ON book (change_seq);
+
+CREATE TABLE book_tombstone (
+	isbn varchar(255) PRIMARY KEY NOT NULL,
+	id bigint NOT NULL,
+	change_seq bigint NOT NULL,
+	deleted_date timestamp NOT NULL
+);
+CREATE INDEX book_tombstone_change_seq_idx ON book_tombstone (change_seq);
+
+CREATE FUNCTION record_book_tombstone(deleted_isbn varchar, deleted_id bigint) RETURNS void AS $$
+  INSERT INTO book_tombstone (isbn, id, change_seq, deleted_date)
+  VALUES (deleted_isbn, deleted_id, nextval('book_change_seq'), localtimestamp)
+  ON CONFLICT (isbn) DO UPDATE
+    SET id = excluded.id, change_seq = excluded.change_seq, deleted_date = excluded.deleted_date;
+$$ LANGUAGE sql;
+
+CREATE FUNCTION assign_book_change_seq() RETURNS trigger AS $$
+BEGIN
+  IF TG_OP = 'UPDATE' AND NEW.isbn <> OLD.isbn THEN
+    PERFORM record_book_tombstone(OLD.isbn, OLD.id);
+  END IF;
+  NEW.change_seq := nextval('book_change_seq');
+  RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE FUNCTION tombstone_deleted_book() RETURNS trigger AS $$
+BEGIN
+  PERFORM record_book_tombstone(OLD.isbn, OLD.id);
+  RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER book_change_seq
+  BEFORE INSERT OR UPDATE ON book
+  FOR EACH ROW EXECUTE FUNCTION assign_book_change_seq();
+
+CREATE TRIGGER book_tombstone
+  AFTER DELETE ON book
+  FOR EACH ROW EXECUTE FUNCTION tombstone_deleted_book();
@@ -0,0 +1,26 @@
+ALTER TABLE book ADD COLUMN change_date timestamptz;
+UPDATE book SET change_date = now();
+ALTER TABLE book ALTER COLUMN change_date SET NOT NULL;
+
+ALTER TABLE book_tombstone ADD COLUMN change_date timestamptz;
+UPDATE book_tombstone SET change_date = now();
+ALTER TABLE book_tombstone ALTER COLUMN change_date SET NOT NULL;
+
+CREATE OR REPLACE FUNCTION record_book_tombstone(deleted_isbn varchar, deleted_id bigint) RETURNS void AS $$
+  INSERT INTO book_tombstone (isbn, id, change_seq, change_date, deleted_date)
+  VALUES (deleted_isbn, deleted_id, nextval('book_change_seq'), clock_timestamp(), localtimestamp)
+  ON CONFLICT (isbn) DO UPDATE
+    SET id = excluded.id, change_seq = excluded.change_seq,
+      change_date = excluded.change_date, deleted_date = excluded.deleted_date;
+$$ LANGUAGE sql;
+
+CREATE OR REPLACE FUNCTION assign_book_change_seq() RETURNS trigger AS $$
+BEGIN
+  IF TG_OP = 'UPDATE' AND NEW.isbn <> OLD.isbn THEN
+    PERFORM record_book_tombstone(OLD.isbn, OLD.id);
+  END IF;
+  NEW.change_seq := nextval('book_change_seq');
+  NEW.change_date := clock_timestamp();
+  RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,15 @@
+CREATE OR REPLACE FUNCTION notify_book_change() RETURNS trigger AS $$
+DECLARE
+  origin text := coalesce(current_setting('application_name', true), '');
+BEGIN
+  IF TG_OP = 'DELETE' THEN
+    PERFORM pg_notify('book_changes', 'DELETE:' || OLD.isbn || ':' || origin);
+  ELSE
+    IF TG_OP = 'UPDATE' AND NEW.isbn <> OLD.isbn THEN
+      PERFORM pg_notify('book_changes', 'DELETE:' || OLD.isbn || ':' || origin);
+    END IF;
+    PERFORM pg_notify('book_changes', TG_OP || ':' || NEW.isbn || ':' || origin);
+  END IF;
+  RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
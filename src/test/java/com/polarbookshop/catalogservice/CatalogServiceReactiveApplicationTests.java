@@ -0,0 +1,19 @@
+package com.polarbookshop.catalogservice;
+
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * Runs the end-to-end scenarios against the WebFlux and R2DBC stack.
+ */
+@ActiveProfiles("reactive")
+class CatalogServiceReactiveApplicationTests extends CatalogServiceApplicationTests {
+	@DynamicPropertySource
+	static void r2dbcProperties(DynamicPropertyRegistry registry) {
+		registry.add("spring.r2dbc.url", () -> "r2dbc:postgresql://" + postgresql.getHost() + ":"
+			+ postgresql.getFirstMappedPort() + "/" + postgresql.getDatabaseName());
+		registry.add("spring.r2dbc.username", postgresql::getUsername);
+		registry.add("spring.r2dbc.password", postgresql::getPassword);
+	}
+}
@@ -0,0 +1,93 @@
+package com.polarbookshop.catalogservice.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+import java.util.Map;
+import java.util.Optional;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import com.polarbookshop.catalogservice.domain.Book;
+import com.polarbookshop.catalogservice.domain.BookAlreadyExistsException;
+import com.polarbookshop.catalogservice.domain.BookRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class CatalogOperationInterceptorTest {
+	private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final CatalogOperationInterceptor interceptor = new CatalogOperationInterceptor(
+		new StaticListableBeanFactory(Map.of("meterRegistry", this.meterRegistry)).getBeanProvider(MeterRegistry.class));
+	private final BookRepository target = mock(BookRepository.class);
+	private final BookRepository bookRepository = instrumented(this.target);
+	
+	@Test
+	void callsAreTimedAndFailuresCountedByOutcome() {
+		Book book = Book.of("1234567890", "Title", "Author", 9.90, "Polarsophia");
+		given(this.target.findByIsbn("1234567890")).willReturn(Optional.of(book));
+		given(this.target.insertIfAbsent(any())).willThrow(new BookAlreadyExistsException("1234567890"));
+		
+		this.bookRepository.findByIsbn("1234567890");
+		this.bookRepository.findByIsbn("1234567890");
+		assertThatThrownBy(() -> this.bookRepository.insertIfAbsent(book)).isInstanceOf(BookAlreadyExistsException.class);
+		
+		assertThat(this.meterRegistry.get("polar.catalog.operation").tags("component", "BookRepository", "operation", "findByIsbn").timer().count())
+			.isEqualTo(2);
+		assertThat(this.meterRegistry.get("polar.catalog.operation").tags("operation", "insertIfAbsent").timer().count())
+			.isEqualTo(1);
+		assertThat(this.meterRegistry.get("polar.catalog.outcome").tags("operation", "insertIfAbsent", "outcome", "already_exists").counter().count())
+			.isEqualTo(1);
+		assertThat(this.meterRegistry.find("polar.catalog.outcome").tags("operation", "findByIsbn").counter()).isNull();
+	}
+	
+	@Test
+	void connectionWaitIsAttributedToTheRunningOperation() throws Exception {
+		DataSource dataSource = new ConnectionWaitTimingDataSource(mock(DataSource.class), this.interceptor);
+		given(this.target.findByIsbn("1234567890")).willAnswer(invocation -> {
+			dataSource.getConnection();
+			return Optional.empty();
+		});
+		
+		this.bookRepository.findByIsbn("1234567890");
+		dataSource.getConnection();
+		
+		assertThat(this.meterRegistry.get("polar.catalog.connection.wait").tags("operation", "findByIsbn").timer().count()).isEqualTo(1);
+		assertThat(this.meterRegistry.get("polar.catalog.connection.wait").tags("operation", "none").timer().count()).isEqualTo(1);
+	}
+	
+	@Test
+	void staleVersionsAreCountedAsConflicts() {
+		RuntimeException wrapped = new IllegalStateException("Failed to execute", new OptimisticLockingFailureException("stale"));
+		
+		assertThat(CatalogOperationInterceptor.outcomeOf(wrapped)).isEqualTo("conflict");
+		assertThat(CatalogOperationInterceptor.outcomeOf(new IllegalStateException())).isEqualTo("error");
+	}
+	
+	@Test
+	void endpointSummarizesRecordedOperations() {
+		this.bookRepository.findByIsbn("1234567890");
+		this.bookRepository.existsByIsbn("1234567890");
+		
+		Map<String, CatalogPerformanceEndpoint.OperationSummary> summary = new CatalogPerformanceEndpoint(this.meterRegistry).operations();
+		
+		assertThat(summary).containsOnlyKeys("BookRepository.findByIsbn", "BookRepository.existsByIsbn");
+		assertThat(summary.get("BookRepository.findByIsbn").count()).isEqualTo(1);
+		assertThat(summary.get("BookRepository.findByIsbn").failures()).isEmpty();
+	}
+	
+	private BookRepository instrumented(BookRepository repository) {
+		ProxyFactory proxyFactory = new ProxyFactory(repository);
+		proxyFactory.addInterface(BookRepository.class);
+		proxyFactory.addAdvice(this.interceptor);
+		return (BookRepository) proxyFactory.getProxy();
+	}
+}
@@ -0,0 +1,94 @@
+package com.polarbookshop.catalogservice.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+public class ConnectionLimitingDataSourceTest {
+	@Mock
+	private DataSource targetDataSource;
+	
+	@Mock
+	private Connection targetConnection;
+	
+	@Test
+	void whenPermitsExhaustedThenAcquisitionTimesOut() throws Exception {
+		when(this.targetDataSource.getConnection()).thenReturn(this.targetConnection);
+		ConnectionLimitingDataSource dataSource = new ConnectionLimitingDataSource(this.targetDataSource, 1, Duration.ofMillis(10));
+		
+		Connection connection = dataSource.getConnection();
+		assertThat(dataSource.getActivePermits()).isEqualTo(1);
+		assertThatThrownBy(dataSource::getConnection).isInstanceOf(SQLTransientConnectionException.class);
+		
+		connection.close();
+		verify(this.targetConnection).close();
+		assertThat(dataSource.getActivePermits()).isZero();
+	}
+	
+	@Test
+	void whenPoolSizeReachedThenNextCallerWaitsForRelease() throws Exception {
+		when(this.targetDataSource.getConnection()).thenReturn(this.targetConnection);
+		int poolSize = 3;
+		ConnectionLimitingDataSource dataSource = new ConnectionLimitingDataSource(this.targetDataSource, poolSize, Duration.ofSeconds(5));
+		List<Connection> connections = new ArrayList<>();
+		for (int i = 0; i < poolSize; i++) {
+			connections.add(dataSource.getConnection());
+		}
+		
+		CompletableFuture<Connection> waiting = CompletableFuture.supplyAsync(() -> {
+			try {
+				return dataSource.getConnection();
+			} catch (SQLException ex) {
+				throw new IllegalStateException(ex);
+			}
+		});
+		while (dataSource.getQueueLength() == 0) {
+			Thread.onSpinWait();
+		}
+		assertThat(waiting).isNotDone();
+		
+		connections.get(0).close();
+		assertThat(waiting.get(2, TimeUnit.SECONDS)).isNotNull();
+		assertThat(dataSource.getQueueLength()).isZero();
+		assertThat(dataSource.getActivePermits()).isEqualTo(poolSize);
+	}
+	
+	@Test
+	void whenConnectionClosedTwiceThenPermitReleasedOnce() throws Exception {
+		when(this.targetDataSource.getConnection()).thenReturn(this.targetConnection);
+		ConnectionLimitingDataSource dataSource = new ConnectionLimitingDataSource(this.targetDataSource, 2, Duration.ofMillis(10));
+		
+		Connection first = dataSource.getConnection();
+		dataSource.getConnection();
+		first.close();
+		first.close();
+		assertThat(dataSource.getActivePermits()).isEqualTo(1);
+	}
+	
+	@Test
+	void whenTargetFailsThenPermitReleased() throws Exception {
+		when(this.targetDataSource.getConnection()).thenThrow(new SQLTransientConnectionException("down"));
+		ConnectionLimitingDataSource dataSource = new ConnectionLimitingDataSource(this.targetDataSource, 1, Duration.ofMillis(10));
+		
+		assertThatThrownBy(dataSource::getConnection).hasMessage("down");
+		assertThat(dataSource.getActivePermits()).isZero();
+	}
+}
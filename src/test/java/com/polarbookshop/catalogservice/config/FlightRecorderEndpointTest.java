@@ -0,0 +1,72 @@
+package com.polarbookshop.catalogservice.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.core.io.Resource;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public class FlightRecorderEndpointTest {
+	private final FlightRecorderEndpoint endpoint = new FlightRecorderEndpoint(new PolarProperties.FlightRecorder());
+	
+	@TempDir
+	Path tempDir;
+	
+	@AfterEach
+	void tearDown() {
+		this.endpoint.destroy();
+	}
+	
+	@Test
+	void recordingIncludesCatalogEventsAndCanBeDownloadedWhileRunning() throws Exception {
+		WebEndpointResponse<FlightRecorderEndpoint.RecordingDescriptor> started = this.endpoint.start(Duration.ofMinutes(1));
+		assertThat(started.getStatus()).isEqualTo(WebEndpointResponse.STATUS_OK);
+		assertThat(started.getBody().state()).isEqualTo("RUNNING");
+		
+		CatalogOperationEvent event = new CatalogOperationEvent();
+		event.operation = "viewBookDetails";
+		event.isbn = "1234567890";
+		event.rows = 1;
+		event.commit();
+		
+		Resource resource = this.endpoint.download(started.getBody().id());
+		Path file = this.tempDir.resolve("recording.jfr");
+		try (InputStream content = resource.getInputStream()) {
+			Files.copy(content, file);
+		}
+		List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+		assertThat(events)
+			.filteredOn(recorded -> recorded.getEventType().getName().equals("polar.CatalogOperation"))
+			.singleElement()
+			.satisfies(recorded -> assertThat(recorded.getString("isbn")).isEqualTo("1234567890"));
+	}
+	
+	@Test
+	void onlyOneTimeBoxedRecordingRunsAtATime() {
+		assertThat(this.endpoint.start(Duration.ofHours(1)).getStatus()).isEqualTo(WebEndpointResponse.STATUS_BAD_REQUEST);
+		assertThat(this.endpoint.recording()).isNull();
+		
+		assertThat(this.endpoint.start(null).getBody().duration()).isEqualTo(Duration.ofMinutes(1));
+		assertThat(this.endpoint.start(null).getStatus()).isEqualTo(FlightRecorderEndpoint.STATUS_CONFLICT);
+		
+		assertThat(this.endpoint.stop().state()).isEqualTo("STOPPED");
+		assertThat(this.endpoint.start(Duration.ofSeconds(30)).getStatus()).isEqualTo(WebEndpointResponse.STATUS_OK);
+	}
+	
+	@Test
+	void unknownRecordingsAreNotFound() throws Exception {
+		assertThat(this.endpoint.download(42)).isNull();
+		assertThat(this.endpoint.stop()).isNull();
+	}
+}
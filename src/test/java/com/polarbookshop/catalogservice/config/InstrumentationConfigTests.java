@@ -0,0 +1,109 @@
+package com.polarbookshop.catalogservice.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.framework.Advised;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.cache.CacheAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.interceptor.CacheInterceptor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.interceptor.TransactionInterceptor;
+
+import com.polarbookshop.catalogservice.domain.Book;
+import com.polarbookshop.catalogservice.domain.BookIsbnFilter;
+import com.polarbookshop.catalogservice.domain.BookNearCache;
+import com.polarbookshop.catalogservice.domain.BookRepository;
+import com.polarbookshop.catalogservice.domain.BookService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@SpringBootTest(
+	classes = { BookService.class, CacheConfig.class, InstrumentationConfig.class, InstrumentationConfigTests.Infrastructure.class },
+	properties = { "spring.cache.type=caffeine", "spring.cache.cache-names=books" }
+)
+@ImportAutoConfiguration(CacheAutoConfiguration.class)
+@EnableConfigurationProperties(PolarProperties.class)
+public class InstrumentationConfigTests {
+	@Autowired
+	private BookService bookService;
+	
+	@Autowired
+	private BookRepository bookRepository;
+	
+	@Autowired
+	private MeterRegistry meterRegistry;
+	
+	@MockBean
+	private BookIsbnFilter isbnFilter;
+	
+	@MockBean
+	private BookNearCache nearCache;
+	
+	@Test
+	void whenBookServiceProxiedThenTimedAheadOfCaching() {
+		Advisor[] advisors = ((Advised) this.bookService).getAdvisors();
+		
+		assertThat(advisors[0].getAdvice()).isInstanceOf(CatalogOperationInterceptor.class);
+		assertThat(advisors).anyMatch(advisor -> advisor.getAdvice() instanceof CacheInterceptor);
+	}
+	
+	@Test
+	void whenBookRepositoryProxiedThenTimedAheadOfTransactions() {
+		Advisor[] advisors = ((Advised) this.bookRepository).getAdvisors();
+		
+		assertThat(advisors[0].getAdvice()).isInstanceOf(CatalogOperationInterceptor.class);
+		assertThat(advisors).anyMatch(advisor -> advisor.getAdvice() instanceof TransactionInterceptor);
+	}
+	
+	@Test
+	void whenBookServedFromCacheThenStillTimed() {
+		String isbn = "1234561270";
+		BookRepository target = AopTestUtils.getUltimateTargetObject(this.bookRepository);
+		given(target.findByIsbn(isbn)).willReturn(Optional.of(Book.of(isbn, "Title", "Author", 9.90, "Polarsophia")));
+		given(this.isbnFilter.mightContain(anyString())).willReturn(true);
+		
+		this.bookService.viewBookDetails(isbn);
+		this.bookService.viewBookDetails(isbn);
+		
+		assertThat(this.meterRegistry.get(CatalogOperationInterceptor.OPERATION_TIMER)
+			.tags("component", "BookService", "operation", "viewBookDetails").timer().count()).isEqualTo(2);
+		assertThat(this.meterRegistry.get(CatalogOperationInterceptor.OPERATION_TIMER)
+			.tags("component", "BookRepository", "operation", "findByIsbn").timer().count()).isEqualTo(1);
+	}
+	
+	@Configuration(proxyBeanMethods = false)
+	@EnableTransactionManagement
+	static class Infrastructure {
+		@Bean
+		MeterRegistry meterRegistry() {
+			return new SimpleMeterRegistry();
+		}
+		
+		@Bean
+		PlatformTransactionManager transactionManager() {
+			return mock(PlatformTransactionManager.class);
+		}
+		
+		@Bean
+		BookRepository bookRepository() {
+			// Defined as a bean, unlike a @MockBean, so that it goes through the proxy creator
+			return mock(BookRepository.class);
+		}
+	}
+}
@@ -0,0 +1,100 @@
+package com.polarbookshop.catalogservice.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class ReplicaRoutingTest {
+	private final DataSource primary = mock(DataSource.class);
+	
+	@AfterEach
+	void tearDown() {
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+		ReplicaRouting.unpin();
+	}
+	
+	@Test
+	void readOnlyTransactionsAreSpreadOverReplicasAndWritesGoToPrimary() throws Exception {
+		ReplicaRouting routing = newRouting(replicaLagging(0), replicaLagging(0.2));
+		routing.checkReplicas();
+		
+		assertThat(routing.determineTarget()).isEqualTo("primary");
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+		assertThat(routing.determineTarget()).isEqualTo("replica-0");
+		assertThat(routing.determineTarget()).isEqualTo("replica-1");
+		assertThat(routing.determineTarget()).isEqualTo("replica-0");
+	}
+	
+	@Test
+	void laggingOrFailingReplicasAreSkippedUntilTheyRecover() throws Exception {
+		DataSource lagging = replicaLagging(5);
+		DataSource failing = mock(DataSource.class);
+		when(failing.getConnection()).thenThrow(new SQLTransientConnectionException("down"));
+		ReplicaRouting routing = newRouting(lagging, failing);
+		routing.checkReplicas();
+		
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+		assertThat(routing.determineTarget()).isEqualTo("primary");
+		
+		DataSource caughtUp = replicaLagging(0.5);
+		Connection connection = caughtUp.getConnection();
+		when(lagging.getConnection()).thenReturn(connection);
+		routing.checkReplicas();
+		assertThat(routing.determineTarget()).isEqualTo("replica-0");
+		assertThat(routing.determineTarget()).isEqualTo("replica-0");
+	}
+	
+	@Test
+	void readsOfRecentWritersArePinnedToPrimary() throws Exception {
+		ReplicaRouting routing = newRouting(replicaLagging(0));
+		routing.checkReplicas();
+		routing.recordWrite("isabelle");
+		
+		assertThat(routing.hasRecentlyWritten("isabelle")).isTrue();
+		assertThat(routing.hasRecentlyWritten("bjorn")).isFalse();
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+		ReplicaRouting.pinToPrimary();
+		assertThat(routing.determineTarget()).isEqualTo("primary");
+		ReplicaRouting.unpin();
+		assertThat(routing.determineTarget()).isEqualTo("replica-0");
+	}
+	
+	private ReplicaRouting newRouting(DataSource... replicas) {
+		PolarProperties.Replicas properties = new PolarProperties.Replicas();
+		properties.setMaxLag(Duration.ofSeconds(1));
+		Map<String, DataSource> replicaPools = new LinkedHashMap<>();
+		for (int i = 0; i < replicas.length; i++) {
+			replicaPools.put("replica-" + i, replicas[i]);
+		}
+		return new ReplicaRouting(this.primary, replicaPools, properties);
+	}
+	
+	private static DataSource replicaLagging(double lagSeconds) throws SQLException {
+		DataSource dataSource = mock(DataSource.class);
+		Connection connection = mock(Connection.class);
+		Statement statement = mock(Statement.class);
+		ResultSet resultSet = mock(ResultSet.class);
+		when(dataSource.getConnection()).thenReturn(connection);
+		when(connection.createStatement()).thenReturn(statement);
+		when(statement.executeQuery(anyString())).thenReturn(resultSet);
+		when(resultSet.next()).thenReturn(true);
+		when(resultSet.getDouble(1)).thenReturn(lagSeconds);
+		return dataSource;
+	}
+}
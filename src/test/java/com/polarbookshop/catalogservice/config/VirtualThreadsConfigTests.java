@@ -0,0 +1,78 @@
+package com.polarbookshop.catalogservice.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledIf;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.runner.WebApplicationContextRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+public class VirtualThreadsConfigTests {
+	private final WebApplicationContextRunner contextRunner = new WebApplicationContextRunner()
+		.withUserConfiguration(DataSourceConfiguration.class, VirtualThreadsConfig.class)
+		.withPropertyValues("polar.virtual-threads.enabled=true");
+	
+	@Test
+	@EnabledIf("supportsVirtualThreads")
+	void whenEnabledThenTasksRunOnVirtualThreads() {
+		this.contextRunner.run(context -> {
+			AsyncTaskExecutor executor = context.getBean(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME, AsyncTaskExecutor.class);
+			String threadName = CompletableFuture.supplyAsync(() -> Thread.currentThread().getName(), executor)
+				.get(5, TimeUnit.SECONDS);
+			assertThat(threadName).startsWith("task-vt-");
+		});
+	}
+	
+	@Test
+	@EnabledIf("supportsVirtualThreads")
+	void whenEnabledThenDataSourceLimitedToPoolSize() {
+		this.contextRunner.run(context -> {
+			DataSource dataSource = context.getBean(DataSource.class);
+			assertThat(dataSource).isInstanceOf(ConnectionLimitingDataSource.class);
+			assertThat(dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize()).isEqualTo(4);
+			assertThat(((ConnectionLimitingDataSource) dataSource).getMaxPermits()).isEqualTo(4);
+		});
+	}
+	
+	@Test
+	@DisabledIf("supportsVirtualThreads")
+	void whenEnabledOnOlderRuntimeThenStartupFails() {
+		this.contextRunner.run(context -> assertThat(context).getFailure()
+			.hasMessageContaining("Virtual threads require a Java 21 or later runtime"));
+	}
+	
+	@Test
+	void whenNotEnabledThenDataSourceLeftAlone() {
+		new WebApplicationContextRunner()
+			.withUserConfiguration(DataSourceConfiguration.class, VirtualThreadsConfig.class)
+			.run(context -> assertThat(context.getBean(DataSource.class)).isInstanceOf(HikariDataSource.class));
+	}
+	
+	static boolean supportsVirtualThreads() {
+		return Runtime.version().feature() >= 21;
+	}
+	
+	@Configuration(proxyBeanMethods = false)
+	@EnableConfigurationProperties(PolarProperties.class)
+	static class DataSourceConfiguration {
+		@Bean
+		HikariDataSource dataSource() {
+			// Never started, as no connection is requested
+			HikariDataSource dataSource = new HikariDataSource();
+			dataSource.setMaximumPoolSize(4);
+			return dataSource;
+		}
+	}
+}
@@ -0,0 +1,68 @@
+package com.polarbookshop.catalogservice.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import javax.validation.Validation;
+import javax.validation.Validator;
+
+import org.junit.jupiter.api.Test;
+
+import com.polarbookshop.catalogservice.domain.Book;
+
+public class BookCatalogGeneratorTest {
+	private static final int BOOKS = 10_000;
+	
+	private final BookCatalogGenerator generator = new BookCatalogGenerator(42, BOOKS);
+	
+	@Test
+	void whenSameSeedThenSameBooks() {
+		BookCatalogGenerator otherGenerator = new BookCatalogGenerator(42, BOOKS);
+		assertThat(otherGenerator.book(1234)).isEqualTo(this.generator.book(1234));
+		assertThat(new BookCatalogGenerator(43, BOOKS).book(1234)).isNotEqualTo(this.generator.book(1234));
+	}
+	
+	@Test
+	void whenGeneratedThenBooksValidWithUniqueIsbns() {
+		Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+		Set<String> isbns = new HashSet<>();
+		for (int index = 0; index < BOOKS; index++) {
+			Book book = this.generator.book(index);
+			assertThat(validator.validate(book)).isEmpty();
+			assertThat(isValidChecksum(book.isbn())).as(book.isbn()).isTrue();
+			isbns.add(book.isbn());
+		}
+		assertThat(isbns).hasSize(BOOKS);
+	}
+	
+	@Test
+	void whenGeneratedThenAuthorsSkewed() {
+		List<Book> books = LongStream.range(0, BOOKS).mapToObj(this.generator::book).toList();
+		Map<String, Long> booksByAuthor = books.stream().collect(Collectors.groupingBy(Book::author, Collectors.counting()));
+		long topAuthorBooks = booksByAuthor.values().stream().mapToLong(Long::longValue).max().orElseThrow();
+		assertThat(topAuthorBooks).isGreaterThan(20L * BOOKS / booksByAuthor.size());
+		assertThat(books.stream().map(Book::isbn).map(String::length).collect(Collectors.groupingBy(Function.identity(),
+			Collectors.counting()))).containsKeys(10, 13);
+	}
+	
+	private static boolean isValidChecksum(String isbn) {
+		int sum = 0;
+		if (isbn.length() == 10) {
+			for (int i = 0; i < 10; i++) {
+				sum += (10 - i) * (isbn.charAt(i) - '0');
+			}
+			return sum % 11 == 0;
+		}
+		for (int i = 0; i < 13; i++) {
+			sum += (i % 2 == 0 ? 1 : 3) * (isbn.charAt(i) - '0');
+		}
+		return sum % 10 == 0;
+	}
+}
@@ -0,0 +1,28 @@
+package com.polarbookshop.catalogservice.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+public class BloomFilterTest {
+	@Test
+	void whenAddedThenAlwaysReportedPresent() {
+		BloomFilter filter = new BloomFilter(10_000, 0.01);
+		IntStream.range(0, 10_000).parallel().forEach(i -> filter.add(String.valueOf(9_780_000_000_000L + i)));
+		
+		assertThat(IntStream.range(0, 10_000).allMatch(i -> filter.mightContain(String.valueOf(9_780_000_000_000L + i)))).isTrue();
+	}
+	
+	@Test
+	void whenNotAddedThenMostlyReportedAbsent() {
+		BloomFilter filter = new BloomFilter(10_000, 0.01);
+		IntStream.range(0, 10_000).forEach(i -> filter.add(String.valueOf(9_780_000_000_000L + i)));
+		
+		long falsePositives = IntStream.range(0, 10_000)
+			.filter(i -> filter.mightContain(String.valueOf(1_000_000_000L + i)))
+			.count();
+		assertThat(falsePositives).isLessThan(200);
+	}
+}
@@ -0,0 +1,99 @@
+package com.polarbookshop.catalogservice.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.ApplicationEventPublisher;
+
+@ExtendWith(MockitoExtension.class)
+public class BookChangeNotificationListenerTest {
+	@Mock
+	private ApplicationEventPublisher eventPublisher;
+	
+	private BookChangeNotificationListener listener;
+	
+	@BeforeEach
+	void setUp() {
+		this.listener = new BookChangeNotificationListener(this.eventPublisher, new DataSourceProperties(), false);
+	}
+	
+	@Test
+	void whenUpdateNotifiedByAnotherInstanceThenChangeParsed() {
+		assertThat(this.listener.parse("UPDATE:1234561310:7:catalog-service:other"))
+			.isEqualTo(notification(7, BookChangeType.UPDATED, "1234561310", false));
+	}
+	
+	@Test
+	void whenDeleteNotifiedThenDeletionParsed() {
+		assertThat(this.listener.parse("DELETE:1234561311:8:catalog-service:other"))
+			.isEqualTo(notification(8, BookChangeType.DELETED, "1234561311", false));
+	}
+	
+	@Test
+	void whenNotifiedWithoutOriginThenTreatedAsAnotherInstance() {
+		assertThat(this.listener.parse("INSERT:1234561312:9"))
+			.isEqualTo(notification(9, BookChangeType.CREATED, "1234561312", false));
+	}
+	
+	@Test
+	void whenNotifiedByThisInstanceThenMarked() {
+		assertThat(this.listener.parse("UPDATE:1234561313:10:" + BookChangeNotificationListener.ORIGIN))
+			.isEqualTo(notification(10, BookChangeType.UPDATED, "1234561313", true));
+	}
+	
+	@Test
+	void whenNotifiedWithoutSequenceThenIgnored() {
+		assertThat(this.listener.parse("UPDATE:1234561315")).isNull();
+		assertThat(this.listener.parse("UPDATE:1234561315:catalog-service:other")).isNull();
+	}
+	
+	@Test
+	void whenFewChangesThenEachPublished() {
+		BookChangeNotificationListener.Notification notification = notification(11, BookChangeType.UPDATED, "1234561314", false);
+		
+		this.listener.publish(List.of(notification));
+		
+		verify(this.eventPublisher).publishEvent(new BookChangedEvent(BookChangeType.UPDATED, "1234561314", null));
+		verify(this.eventPublisher).publishEvent(new BookChangesCommittedEvent(List.of(notification.change())));
+	}
+	
+	@Test
+	void whenChangedByThisInstanceThenOnlyCommittedChangePublished() {
+		BookChangeNotificationListener.Notification notification = notification(12, BookChangeType.UPDATED, "1234561316", true);
+		
+		this.listener.publish(List.of(notification));
+		
+		verify(this.eventPublisher, never()).publishEvent(any(BookChangedEvent.class));
+		verify(this.eventPublisher).publishEvent(new BookChangesCommittedEvent(List.of(notification.change())));
+	}
+	
+	@Test
+	void whenBurstOfChangesThenSingleResyncPublished() {
+		List<BookChangeNotificationListener.Notification> burst = new ArrayList<>();
+		for (int i = 0; i <= BookChangeNotificationListener.MAX_NOTIFICATIONS_PER_BURST; i++) {
+			burst.add(notification(i + 1, BookChangeType.CREATED, String.valueOf(1_000_000_000L + i), false));
+		}
+		
+		this.listener.publish(burst);
+		
+		verify(this.eventPublisher).publishEvent(new CatalogResyncEvent());
+		verify(this.eventPublisher, never()).publishEvent(any(BookChangedEvent.class));
+		verify(this.eventPublisher, never()).publishEvent(any(BookChangesCommittedEvent.class));
+	}
+	
+	private static BookChangeNotificationListener.Notification notification(long sequence, BookChangeType type, String isbn,
+			boolean fromThisInstance) {
+		return new BookChangeNotificationListener.Notification(new BookChange(sequence, type, isbn, null), fromThisInstance);
+	}
+}
@@ -0,0 +1,74 @@
+package com.polarbookshop.catalogservice.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Set;
+
+import javax.validation.Validation;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+@ExtendWith(MockitoExtension.class)
+public class BookImportServiceTest {
+	@Mock
+	private BookRepository bookRepository;
+	
+	@Mock
+	private ApplicationEventPublisher eventPublisher;
+	
+	private BookImportService bookImportService;
+	
+	@BeforeEach
+	void setUp() {
+		this.bookImportService = new BookImportService(
+			this.bookRepository,
+			Validation.buildDefaultValidatorFactory().getValidator(),
+			this.eventPublisher
+		);
+	}
+	
+	@Test
+	void whenRecordsInvalidOrDuplicatedThenReportedWithoutAbortingBatch() {
+		Book validBook = Book.of("1234561270", "Title", "Author", 9.90, "Polarsophia");
+		Book existingBook = Book.of("1234561271", "Title", "Author", 9.90, "Polarsophia");
+		Book invalidBook = Book.of("1234561272", "", "Author", 9.90, "Polarsophia");
+		when(this.bookRepository.insertAll(anyList())).thenReturn(Set.of(validBook.isbn()));
+		
+		BookImportResult result = this.bookImportService.importBooks(
+			List.of(validBook, existingBook, invalidBook, validBook).iterator(), 10);
+		
+		assertThat(result.imported()).isEqualTo(1);
+		assertThat(result.errors())
+			.extracting(BookImportError::index)
+			.containsExactlyInAnyOrder(1, 2, 3);
+		verify(this.bookRepository, times(1)).insertAll(anyList());
+		verify(this.eventPublisher).publishEvent(new BookChangedEvent(BookChangeType.CREATED, validBook.isbn(), null));
+	}
+	
+	@Test
+	void whenMoreRecordsThanBatchSizeThenWrittenInBatches() {
+		Book book1 = Book.of("1234561273", "Title", "Author", 9.90, "Polarsophia");
+		Book book2 = Book.of("1234561274", "Title", "Author", 9.90, "Polarsophia");
+		Book book3 = Book.of("1234561275", "Title", "Author", 9.90, "Polarsophia");
+		when(this.bookRepository.insertAll(anyList())).thenAnswer(invocation -> {
+			List<Book> books = invocation.getArgument(0);
+			return Set.copyOf(books.stream().map(Book::isbn).toList());
+		});
+		
+		BookImportResult result = this.bookImportService.importBooks(List.of(book1, book2, book3).iterator(), 2);
+		
+		assertThat(result.imported()).isEqualTo(3);
+		assertThat(result.errors()).isEmpty();
+		verify(this.bookRepository, times(2)).insertAll(anyList());
+	}
+}
@@ -0,0 +1,62 @@
+package com.polarbookshop.catalogservice.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+public class BookIsbnFilterTest {
+	@Mock
+	private BookRepository bookRepository;
+	
+	@Mock
+	private BookChangeNotificationListener changeListener;
+	
+	private BookIsbnFilter isbnFilter;
+	
+	@BeforeEach
+	void setUp() {
+		when(this.bookRepository.estimateCount()).thenReturn(1L);
+		doAnswer(invocation -> {
+			Consumer<Book> action = invocation.getArgument(1);
+			action.accept(Book.of("1234561320", "Title", "Author", 9.90, "Polarsophia"));
+			return null;
+		}).when(this.bookRepository).streamAll(anyInt(), any());
+		this.isbnFilter = new BookIsbnFilter(this.bookRepository, this.changeListener);
+		this.isbnFilter.build();
+	}
+	
+	@Test
+	void whenListeningThenUnknownIsbnReportedAbsent() {
+		when(this.changeListener.isMissingChanges()).thenReturn(false);
+		
+		assertThat(this.isbnFilter.mightContain("1234561320")).isTrue();
+		assertThat(this.isbnFilter.mightContain("1234561321")).isFalse();
+	}
+	
+	@Test
+	void whenMissingChangesThenUnknownIsbnReportedPresent() {
+		when(this.changeListener.isMissingChanges()).thenReturn(true);
+		
+		assertThat(this.isbnFilter.mightContain("1234561321")).isTrue();
+	}
+	
+	@Test
+	void whenImportedElsewhereThenAddedFromEvent() {
+		when(this.changeListener.isMissingChanges()).thenReturn(false);
+		
+		this.isbnFilter.onBookChanged(new BookChangedEvent(BookChangeType.CREATED, "1234561322", null));
+		
+		assertThat(this.isbnFilter.mightContain("1234561322")).isTrue();
+	}
+}
@@ -2,6 +2,8 @@ package com.polarbookshop.catalogservice.domain;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.time.Duration;
+import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
@@ -12,6 +14,7 @@ import org.springframework.boot.test.autoconfigure.data.jdbc.DataJdbcTest;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.context.annotation.Import;
 import org.springframework.data.jdbc.core.JdbcAggregateTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.DynamicPropertyRegistry;
@@ -35,6 +38,9 @@ public class BookRepositoryJdbcTests {
 	@Autowired
 	private JdbcAggregateTemplate jdbcAggregateTemplate;
 	
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+	
 	@Container
 	static PostgreSQLContainer<?> postgresql = new PostgreSQLContainer<>(DockerImageName.parse("postgres:14.4"));
 	
@@ -60,6 +66,69 @@ public class BookRepositoryJdbcTests {
 		).hasSize(2);
 	}
 	
+	@Test
+	void findPageAfterIdReturnsBooksInIdOrder() {
+		Book book1 = this.jdbcAggregateTemplate.insert(Book.of("1234561250", "Title", "Author", 12.90, "Polarsophia"));
+		Book book2 = this.jdbcAggregateTemplate.insert(Book.of("1234561251", "Another Title", "Author", 12.90, "Polarsophia"));
+		Book book3 = this.jdbcAggregateTemplate.insert(Book.of("1234561252", "Yet Another Title", "Author", 12.90, "Polarsophia"));
+		
+		List<Book> actualBooks = this.bookRepository.findPageAfterId(book1.id(), 2);
+		
+		assertThat(actualBooks).extracting(Book::id).containsExactly(book2.id(), book3.id());
+	}
+	
+	@Test
+	void findModifiedSinceReturnsOnlyRecentlyModifiedBooks() {
+		Book book = this.jdbcAggregateTemplate.insert(Book.of("1234561253", "Title", "Author", 12.90, "Polarsophia"));
+		
+		assertThat(this.bookRepository.findModifiedSince(book.lastModifiedDate()))
+			.extracting(Book::isbn).contains(book.isbn());
+		assertThat(this.bookRepository.findModifiedSince(book.lastModifiedDate().plusSeconds(1)))
+			.extracting(Book::isbn).doesNotContain(book.isbn());
+	}
+	
+	@Test
+	void findChangesAfterReturnsLatestChangesAndTombstonesInSequenceOrder() {
+		this.jdbcAggregateTemplate.insert(Book.of("1234561256", "Title", "Author", 12.90, "Polarsophia"));
+		this.jdbcAggregateTemplate.insert(Book.of("1234561257", "Title", "Author", 12.90, "Polarsophia"));
+		this.bookRepository.updateByIsbn("1234561256", Book.of("1234561256", "Title", "Author", 7.95, "Polarsophia"));
+		this.bookRepository.deleteByIsbn("1234561257");
+		
+		List<BookChange> changes = this.bookRepository.findChangesAfter(0L, Duration.ZERO, 100);
+		
+		assertThat(changes).extracting(BookChange::isbn).containsSubsequence("1234561256", "1234561257");
+		assertThat(changes).extracting(BookChange::sequence).isSorted();
+		BookChange deletion = changes.get(changes.size() - 1);
+		assertThat(deletion.type()).isEqualTo(BookChangeType.DELETED);
+		assertThat(deletion.book()).isNull();
+		assertThat(this.bookRepository.findChangesAfter(deletion.sequence(), Duration.ZERO, 100)).isEmpty();
+	}
+	
+	@Test
+	void findChangesAfterStopsAtFirstUnsettledChange() {
+		this.jdbcAggregateTemplate.insert(Book.of("1234561258", "Title", "Author", 12.90, "Polarsophia"));
+		this.jdbcAggregateTemplate.insert(Book.of("1234561259", "Title", "Author", 12.90, "Polarsophia"));
+		
+		assertThat(this.bookRepository.findChangesAfter(0L, Duration.ZERO, 1000))
+			.extracting(BookChange::isbn).contains("1234561258", "1234561259");
+		assertThat(this.bookRepository.findChangesAfter(0L, Duration.ofMinutes(1), 1000))
+			.extracting(BookChange::isbn).doesNotContain("1234561258", "1234561259");
+	}
+	
+	@Test
+	void searchRanksTitleMatchesFirstAndPagesWithKeyset() {
+		this.jdbcAggregateTemplate.insert(Book.of("1234561253", "Arctic Tales", "Glacier Author", 12.90, "Polarsophia"));
+		this.jdbcAggregateTemplate.insert(Book.of("1234561254", "Desert Songs", "Arctic Writer", 12.90, "Polarsophia"));
+		this.jdbcAggregateTemplate.insert(Book.of("1234561255", "Tropical Nights", "Someone Else", 12.90, "Polarsophia"));
+		
+		List<BookSearchHit> firstPage = this.bookRepository.search("arctic", null, 0L, 1);
+		BookSearchHit lastHit = firstPage.get(0);
+		List<BookSearchHit> secondPage = this.bookRepository.search("arctic", lastHit.rank(), lastHit.book().id(), 1);
+		
+		assertThat(firstPage).extracting(hit -> hit.book().isbn()).containsExactly("1234561253");
+		assertThat(secondPage).extracting(hit -> hit.book().isbn()).containsExactly("1234561254");
+	}
+	
 	@Test
 	void findByIsbnWhenExisting() {
 		String bookIsbn = "1234561237";
@@ -114,6 +183,60 @@ public class BookRepositoryJdbcTests {
 		assertThat(createdBook.lastModifiedBy()).isEqualTo("john");
 	}
 	
+	@Test
+	@WithMockUser("john")
+	void insertIfAbsentWhenNotExistingThenInsertedWithAuditMetadata() {
+		Book bookToCreate = Book.of("1234561242", "Title", "Author", 12.90, "Polarsophia");
+		
+		Optional<Book> createdBook = this.bookRepository.insertIfAbsent(bookToCreate);
+		
+		assertThat(createdBook).isPresent();
+		assertThat(createdBook.get().id()).isNotNull();
+		assertThat(createdBook.get().version()).isEqualTo(1);
+		assertThat(createdBook.get().createdBy()).isEqualTo("john");
+		assertThat(createdBook.get().createdDate()).isNotNull();
+	}
+	
+	@Test
+	void insertIfAbsentWhenExistingThenEmpty() {
+		Book bookToCreate = Book.of("1234561243", "Title", "Author", 12.90, "Polarsophia");
+		this.jdbcAggregateTemplate.insert(bookToCreate);
+		
+		assertThat(this.bookRepository.insertIfAbsent(bookToCreate)).isEmpty();
+	}
+	
+	@Test
+	void updateByIsbnWhenExistingThenVersionIncremented() {
+		String bookIsbn = "1234561244";
+		Book persistedBook = this.jdbcAggregateTemplate.insert(Book.of(bookIsbn, "Title", "Author", 12.90, "Polarsophia"));
+		
+		Optional<Book> updatedBook = this.bookRepository.updateByIsbn(bookIsbn, Book.of(bookIsbn, "Title", "Author", 7.95, "Polarsophia"));
+		
+		assertThat(updatedBook).isPresent();
+		assertThat(updatedBook.get().price()).isEqualTo(7.95);
+		assertThat(updatedBook.get().version()).isEqualTo(persistedBook.version() + 1);
+		assertThat(updatedBook.get().createdDate()).isEqualTo(persistedBook.createdDate());
+	}
+	
+	@Test
+	void updateByIsbnStampsModificationWithDatabaseClock() {
+		String bookIsbn = "1234561265";
+		this.jdbcAggregateTemplate.insert(Book.of(bookIsbn, "Title", "Author", 12.90, "Polarsophia"));
+		
+		Optional<Book> updatedBook = this.bookRepository.updateByIsbn(bookIsbn, Book.of(bookIsbn, "Title", "Author", 7.95, "Polarsophia"));
+		
+		assertThat(this.jdbcTemplate.queryForObject(
+			"select last_modified_date = change_date from book where isbn = ?", Boolean.class, bookIsbn)).isTrue();
+		assertThat(this.bookRepository.findModifiedSince(updatedBook.orElseThrow().lastModifiedDate()))
+			.extracting(Book::isbn).contains(bookIsbn);
+	}
+	
+	@Test
+	void updateByIsbnWhenNotExistingThenEmpty() {
+		Book book = Book.of("1234561245", "Title", "Author", 12.90, "Polarsophia");
+		assertThat(this.bookRepository.updateByIsbn(book.isbn(), book)).isEmpty();
+	}
+	
 	@Test
 	void deleteByIsbn() {
 		String bookIsbn = "1234561241";
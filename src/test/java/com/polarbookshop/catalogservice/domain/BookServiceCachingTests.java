@@ -0,0 +1,89 @@
+package com.polarbookshop.catalogservice.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.cache.CacheAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import com.polarbookshop.catalogservice.config.CacheConfig;
+import com.polarbookshop.catalogservice.config.PolarProperties;
+
+@SpringBootTest(
+	classes = { BookService.class, CacheConfig.class },
+	properties = { "spring.cache.type=caffeine", "spring.cache.cache-names=books" }
+)
+@ImportAutoConfiguration(CacheAutoConfiguration.class)
+@EnableConfigurationProperties(PolarProperties.class)
+public class BookServiceCachingTests {
+	@Autowired
+	private BookService bookService;
+	
+	@MockBean
+	private BookRepository bookRepository;
+	
+	@MockBean
+	private BookIsbnFilter isbnFilter;
+	
+	@MockBean
+	private BookNearCache nearCache;
+	
+	@BeforeEach
+	void setUp() {
+		given(this.isbnFilter.mightContain(anyString())).willReturn(true);
+	}
+	
+	@Test
+	void whenBookReadTwiceThenLoadedOnce() {
+		String bookIsbn = "1234561260";
+		Book book = Book.of(bookIsbn, "Title", "Author", 9.90, "Polarsophia");
+		given(this.bookRepository.findByIsbn(bookIsbn)).willReturn(Optional.of(book));
+		
+		this.bookService.viewBookDetails(bookIsbn);
+		Book actualBook = this.bookService.viewBookDetails(bookIsbn);
+		
+		assertThat(actualBook).isEqualTo(book);
+		verify(this.bookRepository, times(1)).findByIsbn(bookIsbn);
+	}
+	
+	@Test
+	void whenBookRemovedThenEvicted() {
+		String bookIsbn = "1234561261";
+		Book book = Book.of(bookIsbn, "Title", "Author", 9.90, "Polarsophia");
+		given(this.bookRepository.findByIsbn(bookIsbn)).willReturn(Optional.of(book));
+		
+		this.bookService.viewBookDetails(bookIsbn);
+		this.bookService.removeBookFromCatalog(bookIsbn);
+		this.bookService.viewBookDetails(bookIsbn);
+		
+		verify(this.bookRepository, times(2)).findByIsbn(bookIsbn);
+	}
+	
+	@Test
+	void whenBooksLookedUpThenCachedBooksNotQueried() {
+		Book cachedBook = Book.of("1234561262", "Title", "Author", 9.90, "Polarsophia");
+		Book storedBook = Book.of("1234561263", "Title", "Author", 9.90, "Polarsophia");
+		given(this.bookRepository.findByIsbn(cachedBook.isbn())).willReturn(Optional.of(cachedBook));
+		given(this.bookRepository.findAllByIsbn(List.of(storedBook.isbn(), "1234561264"))).willReturn(List.of(storedBook));
+		this.bookService.viewBookDetails(cachedBook.isbn());
+		
+		BookLookupResult result = this.bookService.lookupBooks(List.of(cachedBook.isbn(), storedBook.isbn(), "1234561264"));
+		
+		assertThat(result.books()).containsExactly(cachedBook, storedBook);
+		assertThat(result.missing()).containsExactly("1234561264");
+		assertThat(this.bookService.viewBookDetails(storedBook.isbn())).isEqualTo(storedBook);
+		verify(this.bookRepository, times(0)).findByIsbn(storedBook.isbn());
+	}
+}
@@ -1,21 +1,46 @@
 package com.polarbookshop.catalogservice.domain;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.time.Duration;
 import java.util.Optional;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.context.ApplicationEventPublisher;
 
 @ExtendWith(MockitoExtension.class)
 public class BookServiceTest {
 	@Mock
 	private BookRepository bookRepository;
 	
+	@Mock
+	private ApplicationEventPublisher eventPublisher;
+	
+	@Mock
+	private CacheManager cacheManager;
+	
+	@Spy
+	private SingleFlight<String, Book> bookLoads = new SingleFlight<>("book", Duration.ofSeconds(1));
+	
+	// Not built, so every ISBN is reported as possibly present
+	@Spy
+	private BookIsbnFilter isbnFilter = new BookIsbnFilter(null, null);
+	
+	@Spy
+	private BookNearCache nearCache = new BookNearCache(null, false, Duration.ZERO);
+	
 	@InjectMocks
 	private BookService bookService;
 	
@@ -23,12 +48,22 @@ public class BookServiceTest {
 	void whenBookToCreateAlreadyExistsThenThrows() {
 		String bookIsbn = "1234561232";
 		Book bookToCreate = Book.of(bookIsbn, "Title", "Author", 9.90, "Polarsophia");
-		when(this.bookRepository.existsByIsbn(bookIsbn)).thenReturn(true);
+		when(this.bookRepository.insertIfAbsent(bookToCreate)).thenReturn(Optional.empty());
 		assertThatThrownBy(() -> this.bookService.addBookToCatalog(bookToCreate))
 			.isInstanceOf(BookAlreadyExistsException.class)
 			.hasMessage("A book with ISBN " + bookIsbn + " already exists.");
 	}
 	
+	@Test
+	void whenBookToEditDoesNotExistThenCreated() {
+		String bookIsbn = "1234561233";
+		Book book = Book.of(bookIsbn, "Title", "Author", 9.90, "Polarsophia");
+		when(this.bookRepository.updateByIsbn(bookIsbn, book)).thenReturn(Optional.empty());
+		when(this.bookRepository.insertIfAbsent(book)).thenReturn(Optional.of(book));
+		assertThat(this.bookService.editBookDetails(bookIsbn, book)).isEqualTo(book);
+		verify(this.eventPublisher).publishEvent(new BookChangedEvent(BookChangeType.CREATED, bookIsbn, book));
+	}
+	
 	@Test
 	void whenBookToReadDoesNotExistThenThrows() {
 		String bookIsbn = "1234561232";
@@ -37,4 +72,15 @@ public class BookServiceTest {
 			.isInstanceOf(BookNotFoundException.class)
 			.hasMessage("The book with ISBN " + bookIsbn + " was not found.");
 	}
+	
+	@Test
+	void whenBookCachedThenVersionTakenFromCache() {
+		String bookIsbn = "1234561234";
+		Cache cache = new ConcurrentMapCache(BookService.BOOKS_CACHE);
+		cache.put(bookIsbn, new Book(42L, bookIsbn, "Title", "Author", 9.90, "Polarsophia", null, null, null, null, 3));
+		when(this.cacheManager.getCache(BookService.BOOKS_CACHE)).thenReturn(cache);
+		
+		assertThat(this.bookService.viewBookVersion(bookIsbn)).isEqualTo(new BookVersion(42L, 3));
+		verify(this.bookRepository, never()).findVersionByIsbn(bookIsbn);
+	}
 }
@@ -0,0 +1,106 @@
+package com.polarbookshop.catalogservice.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class BookSuggestionIndexTests {
+	private final BookRepository bookRepository = mock(BookRepository.class);
+	private BookSuggestionIndex index;
+	
+	@BeforeEach
+	void setUp() {
+		this.index = new BookSuggestionIndex(this.bookRepository);
+		this.index.index(Book.of("1234567891", "Northern Lights", "Lyra Silverstar", 9.90, "Polarsophia"));
+		this.index.index(Book.of("1234567892", "Polar Journey", "Iorek Polarson", 12.90, "Polarsophia"));
+		this.index.refresh();
+	}
+	
+	@Test
+	void whenPrefixMatchesTitleOrAuthorTermsThenSuggested() {
+		assertThat(this.index.suggest("pol", 10))
+			.extracting(BookSuggestion::isbn)
+			.containsExactly("1234567892");
+		assertThat(this.index.suggest("Lyr", 10))
+			.extracting(BookSuggestion::isbn)
+			.containsExactly("1234567891");
+	}
+	
+	@Test
+	void whenPrefixHasDiacriticsAndSeveralWordsThenNormalized() {
+		assertThat(this.index.suggest("N\u00f6rthern  li", 10))
+			.extracting(BookSuggestion::isbn)
+			.containsExactly("1234567891");
+	}
+	
+	@Test
+	void whenBookEditedThenOldTermsNoLongerSuggested() {
+		this.index.onBookChanged(new BookChangedEvent(BookChangeType.UPDATED, "1234567892",
+			Book.of("1234567892", "Arctic Journey", "Iorek Polarson", 12.90, "Polarsophia")));
+		this.index.refresh();
+		
+		assertThat(this.index.suggest("polar j", 10)).isEmpty();
+		assertThat(this.index.suggest("arc", 10)).extracting(BookSuggestion::isbn).containsExactly("1234567892");
+	}
+	
+	@Test
+	void whenBookDeletedThenNoLongerSuggested() {
+		this.index.onBookChanged(new BookChangedEvent(BookChangeType.DELETED, "1234567891", null));
+		this.index.refresh();
+		
+		assertThat(this.index.suggest("north", 10)).isEmpty();
+		assertThat(this.index.size()).isEqualTo(1);
+	}
+	
+	@Test
+	void whenChangedElsewhereThenReloadedOnRefresh() {
+		when(this.bookRepository.findAllByIsbn(Set.of("1234567891", "1234567893"))).thenReturn(
+			List.of(Book.of("1234567893", "Aurora", "Lyra Silverstar", 9.90, "Polarsophia")));
+		this.index.onBookChanged(new BookChangedEvent(BookChangeType.DELETED, "1234567891", null));
+		this.index.onBookChanged(new BookChangedEvent(BookChangeType.UPDATED, "1234567891", null));
+		this.index.onBookChanged(new BookChangedEvent(BookChangeType.CREATED, "1234567893", null));
+		
+		this.index.refresh();
+		
+		assertThat(this.index.suggest("lyra", 10)).extracting(BookSuggestion::isbn).containsExactly("1234567893");
+	}
+	
+	@Test
+	void whenMatchedInTitleThenRankedBeforeAuthorWhateverTheOrder() {
+		this.index.index(Book.of("1234567894", "Zodiac", "Polly Aardvark", 9.90, "Polarsophia"));
+		this.index.index(Book.of("1234567895", "The Pole", "Aaron Abbott", 9.90, "Polarsophia"));
+		this.index.refresh();
+		
+		assertThat(this.index.suggest("pol", 10))
+			.extracting(BookSuggestion::isbn)
+			.containsExactly("1234567892", "1234567895", "1234567894");
+	}
+	
+	@Test
+	void whenMoreBooksChangedThanOverlayHoldsThenStillSuggested() {
+		for (int i = 0; i <= BookSuggestionIndex.MAX_OVERLAY_SIZE; i++) {
+			this.index.index(Book.of(String.valueOf(1000000000L + i), "Tundra " + i, "Iorek Polarson", 9.90, "Polarsophia"));
+		}
+		this.index.remove("1234567891");
+		this.index.refresh();
+		this.index.onBookChanged(new BookChangedEvent(BookChangeType.UPDATED, "1000000000",
+			Book.of("1000000000", "Arctic Tundra", "Iorek Polarson", 9.90, "Polarsophia")));
+		this.index.refresh();
+		
+		assertThat(this.index.size()).isEqualTo(BookSuggestionIndex.MAX_OVERLAY_SIZE + 2);
+		assertThat(this.index.suggest("north", 10)).isEmpty();
+		assertThat(this.index.suggest("tundra 1", 1)).extracting(BookSuggestion::isbn).containsExactly("1000000001");
+		assertThat(this.index.suggest("arctic", 10)).extracting(BookSuggestion::isbn).containsExactly("1000000000");
+	}
+	
+	@Test
+	void whenManyMatchesThenLimited() {
+		assertThat(this.index.suggest("p", 1)).hasSize(1);
+	}
+}
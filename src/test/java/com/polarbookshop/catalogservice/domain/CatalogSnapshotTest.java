@@ -0,0 +1,68 @@
+package com.polarbookshop.catalogservice.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class CatalogSnapshotTest {
+	private static final Instant NOW = Instant.parse("2022-09-01T10:00:00Z");
+	
+	@Test
+	void whenChangedThenNewSnapshotWithoutTouchingPrevious() {
+		CatalogSnapshot snapshot = CatalogSnapshot.of(List.of(book(1L, "1234561300", 1, 9.90)));
+		CatalogSnapshot changed = snapshot.withChanges(List.of(book(1L, "1234561300", 2, 12.90), book(2L, "1234561301", 1, 9.90)), List.of());
+		
+		assertThat(snapshot.findByIsbn("1234561300").price()).isEqualTo(9.90);
+		assertThat(snapshot.size()).isEqualTo(1);
+		assertThat(changed.findByIsbn("1234561300").price()).isEqualTo(12.90);
+		assertThat(changed.findPageAfterId(0, 10)).extracting(Book::id).containsExactly(1L, 2L);
+		assertThat(changed.lastModifiedDate()).isEqualTo(NOW.plusSeconds(1));
+	}
+	
+	@Test
+	void whenOlderVersionThenIgnored() {
+		CatalogSnapshot snapshot = CatalogSnapshot.of(List.of(book(1L, "1234561302", 3, 12.90)));
+		CatalogSnapshot changed = snapshot.withChanges(List.of(book(1L, "1234561302", 2, 9.90)), List.of());
+		
+		assertThat(changed.findByIsbn("1234561302").price()).isEqualTo(12.90);
+	}
+	
+	@Test
+	void whenDeletedAndCreatedAgainThenNewBookKept() {
+		CatalogSnapshot snapshot = CatalogSnapshot.of(List.of(book(1L, "1234561303", 3, 12.90)));
+		CatalogSnapshot changed = snapshot.withChanges(List.of(book(7L, "1234561303", 1, 9.90)), List.of());
+		
+		assertThat(changed.findByIsbn("1234561303").id()).isEqualTo(7L);
+		assertThat(changed.findPageAfterId(0, 10)).extracting(Book::id).containsExactly(7L);
+		assertThat(changed.withChanges(List.of(), List.of("1234561303")).size()).isZero();
+	}
+	
+	@Test
+	void whenNothingChangedThenSameSnapshot() {
+		CatalogSnapshot snapshot = CatalogSnapshot.of(List.of(book(1L, "1234561304", 2, 12.90)));
+		
+		assertThat(snapshot.withChanges(List.of(book(1L, "1234561304", 2, 12.90)), List.of("1234561305"))).isSameAs(snapshot);
+	}
+	
+	@Test
+	void whenOverlayFoldedThenSameCatalog() {
+		CatalogSnapshot snapshot = CatalogSnapshot.of(List.of(book(1L, "1234561306", 1, 9.90), book(2L, "1234561307", 1, 9.90)));
+		snapshot = snapshot.withChanges(List.of(book(1L, "1234561306", 2, 12.90)), List.of("1234561307"));
+		for (long id = 3; id <= CatalogSnapshot.MAX_OVERLAY_SIZE + 3; id++) {
+			snapshot = snapshot.withChanges(List.of(book(id, String.valueOf(1_000_000_000L + id), 1, 9.90)), List.of());
+		}
+		
+		assertThat(snapshot.size()).isEqualTo(CatalogSnapshot.MAX_OVERLAY_SIZE + 2);
+		assertThat(snapshot.findByIsbn("1234561306").price()).isEqualTo(12.90);
+		assertThat(snapshot.findByIsbn("1234561307")).isNull();
+		assertThat(snapshot.findPageAfterId(0, 3)).extracting(Book::id).containsExactly(1L, 3L, 4L);
+	}
+	
+	private static Book book(Long id, String isbn, int version, double price) {
+		Instant lastModifiedDate = NOW.plusSeconds(version - 1);
+		return new Book(id, isbn, "Title", "Author", price, "Polarsophia", NOW, lastModifiedDate, "jenny", "jenny", version);
+	}
+}
@@ -0,0 +1,89 @@
+package com.polarbookshop.catalogservice.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+public class SingleFlightTest {
+	private final SingleFlight<String, String> singleFlight = new SingleFlight<>("book", Duration.ofSeconds(5));
+	
+	@Test
+	void whenConcurrentLoadsOfSameKeyThenLoadedOnce() throws Exception {
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger loads = new AtomicInteger();
+		CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> this.singleFlight.load("1234567890", () -> {
+			loads.incrementAndGet();
+			loading.countDown();
+			await(release);
+			return "Northern Lights";
+		}));
+		loading.await(5, TimeUnit.SECONDS);
+		CompletableFuture<String> follower = CompletableFuture.supplyAsync(() -> this.singleFlight.load("1234567890", () -> {
+			loads.incrementAndGet();
+			return "Another load";
+		}));
+		while (this.singleFlight.getCollapsedCount() == 0) {
+			Thread.onSpinWait();
+		}
+		release.countDown();
+		
+		assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("Northern Lights");
+		assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo("Northern Lights");
+		assertThat(loads).hasValue(1);
+		assertThat(this.singleFlight.load("1234567890", () -> "Reloaded")).isEqualTo("Reloaded");
+	}
+	
+	@Test
+	void whenLoadFailsThenWaitingCallersGetSameException() throws Exception {
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> this.singleFlight.load("1234567891", () -> {
+			loading.countDown();
+			await(release);
+			throw new BookNotFoundException("1234567891");
+		}));
+		loading.await(5, TimeUnit.SECONDS);
+		CompletableFuture<String> follower = CompletableFuture.supplyAsync(() -> this.singleFlight.load("1234567891", () -> "Loaded"));
+		while (this.singleFlight.getCollapsedCount() == 0) {
+			Thread.onSpinWait();
+		}
+		release.countDown();
+		
+		assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(BookNotFoundException.class);
+		assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(BookNotFoundException.class);
+	}
+	
+	@Test
+	void whenLoadTooSlowThenWaitingCallerTimesOut() throws Exception {
+		SingleFlight<String, String> impatientSingleFlight = new SingleFlight<>("book", Duration.ofMillis(10));
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> impatientSingleFlight.load("1234567892", () -> {
+			loading.countDown();
+			await(release);
+			return "Northern Lights";
+		}));
+		loading.await(5, TimeUnit.SECONDS);
+		
+		assertThatThrownBy(() -> impatientSingleFlight.load("1234567892", () -> "Loaded"))
+			.isInstanceOf(LoadTimeoutException.class);
+		release.countDown();
+		assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("Northern Lights");
+	}
+	
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -1,31 +1,64 @@
 package com.polarbookshop.catalogservice.web;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.polarbookshop.catalogservice.config.PolarProperties;
 import com.polarbookshop.catalogservice.config.SecurityConfig;
 import com.polarbookshop.catalogservice.domain.Book;
+import com.polarbookshop.catalogservice.domain.BookChange;
+import com.polarbookshop.catalogservice.domain.BookChangeType;
 import com.polarbookshop.catalogservice.domain.BookNotFoundException;
 import com.polarbookshop.catalogservice.domain.BookService;
+import com.polarbookshop.catalogservice.domain.BookVersion;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(BookController.class)
-@Import(SecurityConfig.class)
+@Import({ SecurityConfig.class, BookRepresentationCache.class })
+@EnableConfigurationProperties(PolarProperties.class)
 public class BookControllerMvcTests {
 	private static final String ROLE_EMPLOYEE = "ROLE_employee";
 	private static final String ROLE_CUSTOMER = "ROLE_customer";
@@ -36,12 +69,291 @@ public class BookControllerMvcTests {
 	@Autowired
 	ObjectMapper objectMapper;
 	
+	@Autowired
+	BinaryFormats binaryFormats;
+	
 	@MockBean
 	BookService bookService;
 	
 	@MockBean
 	JwtDecoder jwtDecoder;
 	
+	@Test
+	void whenGetBooksWithMorePagesThenShouldReturnNextLink() throws Exception {
+		Book book = new Book(42L, "7373731394", "Title", "Author", 9.90, "Polarsophia", null, null, null, null, 1);
+		given(this.bookService.viewBookPage(0L, 1)).willReturn(new SliceImpl<>(List.of(book), PageRequest.ofSize(1), true));
+		this.mockMvc
+			.perform(get("/books").param("limit", "1"))
+			.andExpect(status().isOk())
+			.andExpect(header().string(BookController.LINK, containsString("rel=\"next\"")));
+	}
+	
+	@Test
+	void whenGetBooksWithLastPageThenShouldReturnNoNextLink() throws Exception {
+		Book book = new Book(42L, "7373731394", "Title", "Author", 9.90, "Polarsophia", null, null, null, null, 1);
+		given(this.bookService.viewBookPage(41L, 1)).willReturn(new SliceImpl<>(List.of(book), PageRequest.ofSize(1), false));
+		this.mockMvc
+			.perform(get("/books").param("after", "NDE").param("limit", "1"))
+			.andExpect(status().isOk())
+			.andExpect(header().doesNotExist(BookController.LINK));
+	}
+	
+	@Test
+	void whenGetChangesWithMoreChangesThenShouldReturnCursorAndNextLink() throws Exception {
+		Book book = new Book(42L, "7373731394", "Title", "Author", 9.90, "Polarsophia", null, null, null, null, 2);
+		BookChange change = new BookChange(42L, BookChangeType.UPDATED, book.isbn(), book);
+		given(this.bookService.viewChanges(eq(41L), any(), eq(1))).willReturn(new SliceImpl<>(List.of(change), PageRequest.ofSize(1), true));
+		this.mockMvc
+			.perform(get("/books/changes").param("since", "NDE").param("limit", "1"))
+			.andExpect(status().isOk())
+			.andExpect(header().string(BookController.CHANGE_CURSOR, "NDI"))
+			.andExpect(header().string(BookController.LINK, containsString("since=NDI")));
+	}
+	
+	@Test
+	void whenGetChangesWithNothingNewThenShouldKeepCursor() throws Exception {
+		given(this.bookService.viewChanges(eq(41L), any(), anyInt())).willReturn(new SliceImpl<>(List.of()));
+		this.mockMvc
+			.perform(get("/books/changes").param("since", "NDE"))
+			.andExpect(status().isOk())
+			.andExpect(header().string(BookController.CHANGE_CURSOR, "NDE"))
+			.andExpect(header().doesNotExist(BookController.LINK));
+	}
+	
+	@Test
+	void whenGetSamePageTwiceThenSameETagAndBody() throws Exception {
+		Book book = new Book(42L, "7373731394", "Title", "Author", 9.90, "Polarsophia", null, null, null, null, 1);
+		given(this.bookService.viewBookPage(0L, 1)).willReturn(new SliceImpl<>(List.of(book), PageRequest.ofSize(1), true));
+		String etag = null;
+		for (int i = 0; i < 2; i++) {
+			MvcResult result = this.mockMvc
+				.perform(get("/books").param("limit", "1"))
+				.andExpect(status().isOk())
+				.andExpect(header().string(BookController.LINK, containsString("after=NDI")))
+				.andExpect(content().json(this.objectMapper.writeValueAsString(List.of(book))))
+				.andReturn();
+			if (etag != null) {
+				assertThat(result.getResponse().getHeader(HttpHeaders.ETAG)).isEqualTo(etag);
+			}
+			etag = result.getResponse().getHeader(HttpHeaders.ETAG);
+		}
+	}
+	
+	@Test
+	void whenBookOnPageChangesThenPageETagChanges() throws Exception {
+		Book book = new Book(42L, "7373731394", "Title", "Author", 9.90, "Polarsophia", null, null, null, null, 1);
+		given(this.bookService.viewBookPage(0L, 1))
+			.willReturn(new SliceImpl<>(List.of(book), PageRequest.ofSize(1), false))
+			.willReturn(new SliceImpl<>(List.of(new Book(42L, "7373731394", "New Title", "Author", 9.90, "Polarsophia", null, null, null, null, 2)), PageRequest.ofSize(1), false));
+		String etag = this.mockMvc.perform(get("/books").param("limit", "1"))
+			.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		
+		this.mockMvc
+			.perform(get("/books").param("limit", "1").header(HttpHeaders.IF_NONE_MATCH, etag))
+			.andExpect(status().isOk())
+			.andExpect(header().string(HttpHeaders.ETAG, not(etag)));
+	}
+	
+	@Test
+	void whenGetBookAcceptingGzipThenShouldReturnPrecompressedBody() throws Exception {
+		String isbn = "7373731396";
+		Book book = new Book(43L, isbn, "A Title Long Enough To Be Worth Compressing", "Author", 9.90, "Polarsophia", null, null, null, null, 1);
+		given(this.bookService.viewBookDetails(isbn)).willReturn(book);
+		MvcResult result = this.mockMvc
+			.perform(get("/books/" + isbn).header(HttpHeaders.ACCEPT_ENCODING, "br, gzip;q=0.8"))
+			.andExpect(status().isOk())
+			.andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+			.andExpect(header().string(HttpHeaders.ETAG, "\"43-1-gzip\""))
+			.andExpect(header().string(HttpHeaders.VARY, containsString(HttpHeaders.ACCEPT_ENCODING)))
+			.andReturn();
+		
+		byte[] compressed = result.getResponse().getContentAsByteArray();
+		try (GZIPInputStream body = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+			assertThat(this.objectMapper.readValue(body, Book.class)).isEqualTo(book);
+		}
+	}
+	
+	@Test
+	void whenGetBooksWithInvalidCursorThenShouldReturn400() throws Exception {
+		this.mockMvc
+			.perform(get("/books").param("after", "not-a-cursor"))
+			.andExpect(status().isBadRequest());
+	}
+	
+	@Test
+	void whenGetBookWithMatchingETagThenShouldReturn304() throws Exception {
+		String isbn = "7373731394";
+		given(this.bookService.viewBookVersion(isbn)).willReturn(new BookVersion(42L, 3));
+		this.mockMvc
+			.perform(get("/books/" + isbn).header(HttpHeaders.IF_NONE_MATCH, "\"42-3\""))
+			.andExpect(status().isNotModified())
+			.andExpect(header().string(HttpHeaders.ETAG, "\"42-3\""));
+	}
+	
+	@Test
+	void whenGetBookWithMatchingGzipETagThenShouldReturn304WithThatETag() throws Exception {
+		String isbn = "7373731394";
+		given(this.bookService.viewBookVersion(isbn)).willReturn(new BookVersion(42L, 3));
+		this.mockMvc
+			.perform(get("/books/" + isbn).header(HttpHeaders.IF_NONE_MATCH, "\"42-3-gzip\""))
+			.andExpect(status().isNotModified())
+			.andExpect(header().string(HttpHeaders.ETAG, "\"42-3-gzip\""))
+			.andExpect(header().string(HttpHeaders.VARY, containsString(HttpHeaders.ACCEPT_ENCODING)));
+	}
+	
+	@Test
+	void whenGetBookWithStaleETagThenShouldReturn200() throws Exception {
+		String isbn = "7373731394";
+		Book book = new Book(42L, isbn, "Title", "Author", 9.90, "Polarsophia", null, null, null, null, 4);
+		given(this.bookService.viewBookVersion(isbn)).willReturn(new BookVersion(42L, 4));
+		given(this.bookService.viewBookDetails(isbn)).willReturn(book);
+		this.mockMvc
+			.perform(get("/books/" + isbn).header(HttpHeaders.IF_NONE_MATCH, "\"42-3\""))
+			.andExpect(status().isOk())
+			.andExpect(header().string(HttpHeaders.ETAG, "\"42-4\""))
+			.andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("stale-while-revalidate")));
+	}
+	
+	@Test
+	void whenGetBooksWithMatchingETagThenShouldReturn304() throws Exception {
+		Book book = new Book(42L, "7373731394", "Title", "Author", 9.90, "Polarsophia", null, null, null, null, 1);
+		given(this.bookService.viewBookPage(0L, 1)).willReturn(new SliceImpl<>(List.of(book), PageRequest.ofSize(1), false));
+		String etag = this.mockMvc.perform(get("/books").param("limit", "1"))
+			.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		
+		this.mockMvc
+			.perform(get("/books").param("limit", "1").header(HttpHeaders.IF_NONE_MATCH, etag))
+			.andExpect(status().isNotModified())
+			.andExpect(header().string(HttpHeaders.ETAG, etag));
+	}
+	
+	@Test
+	void whenGetBooksAsNdjsonThenShouldStreamOneBookPerLine() throws Exception {
+		Book book1 = Book.of("7373731394", "Title", "Author", 9.90, "Polarsophia");
+		Book book2 = Book.of("7373731395", "Another Title", "Author", 9.90, "Polarsophia");
+		willAnswer(invocation -> {
+			Consumer<Book> action = invocation.getArgument(1);
+			action.accept(book1);
+			action.accept(book2);
+			return null;
+		}).given(this.bookService).exportCatalog(anyInt(), any());
+		MvcResult result = this.mockMvc
+			.perform(get("/books").accept(MediaType.APPLICATION_NDJSON))
+			.andExpect(request().asyncStarted())
+			.andReturn();
+		this.mockMvc
+			.perform(asyncDispatch(result))
+			.andExpect(status().isOk())
+			.andExpect(content().string(
+				this.objectMapper.writeValueAsString(book1) + "\n" + this.objectMapper.writeValueAsString(book2) + "\n"
+			));
+	}
+	
+	@Test
+	void whenGetBookAsCborThenShouldReturnCbor() throws Exception {
+		String isbn = "7373731397";
+		Book book = new Book(44L, isbn, "Title", "Author", 9.90, "Polarsophia", null, null, null, null, 1);
+		given(this.bookService.viewBookDetails(isbn)).willReturn(book);
+		MvcResult result = this.mockMvc
+			.perform(get("/books/" + isbn).accept(MediaType.APPLICATION_CBOR))
+			.andExpect(status().isOk())
+			.andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+			.andExpect(header().string(HttpHeaders.ETAG, "\"44-1-cbor\""))
+			.andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT))
+			.andReturn();
+		
+		byte[] body = result.getResponse().getContentAsByteArray();
+		assertThat(this.binaryFormats.getCborMapper().readValue(body, Book.class)).isEqualTo(book);
+	}
+	
+	@Test
+	void whenGetBookAsCborWithJsonETagThenShouldReturn200() throws Exception {
+		String isbn = "7373731397";
+		Book book = new Book(44L, isbn, "Title", "Author", 9.90, "Polarsophia", null, null, null, null, 1);
+		given(this.bookService.viewBookVersion(isbn)).willReturn(new BookVersion(44L, 1));
+		given(this.bookService.viewBookDetails(isbn)).willReturn(book);
+		this.mockMvc
+			.perform(get("/books/" + isbn).accept(MediaType.APPLICATION_CBOR).header(HttpHeaders.IF_NONE_MATCH, "\"44-1\""))
+			.andExpect(status().isOk())
+			.andExpect(header().string(HttpHeaders.ETAG, "\"44-1-cbor\""));
+	}
+	
+	@Test
+	void whenGetBookAsCborWithMatchingETagThenShouldReturn304() throws Exception {
+		String isbn = "7373731397";
+		given(this.bookService.viewBookVersion(isbn)).willReturn(new BookVersion(44L, 1));
+		this.mockMvc
+			.perform(get("/books/" + isbn).accept(MediaType.APPLICATION_CBOR).header(HttpHeaders.IF_NONE_MATCH, "\"44-1-cbor\""))
+			.andExpect(status().isNotModified())
+			.andExpect(header().string(HttpHeaders.ETAG, "\"44-1-cbor\""))
+			.andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT));
+	}
+	
+	@Test
+	void whenGetBookNotExistingAsCborThenShouldReturnCborError() throws Exception {
+		String isbn = "7373731398";
+		given(this.bookService.viewBookDetails(isbn)).willThrow(new BookNotFoundException(isbn));
+		MvcResult result = this.mockMvc
+			.perform(get("/books/" + isbn).accept(MediaType.APPLICATION_CBOR))
+			.andExpect(status().isNotFound())
+			.andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+			.andReturn();
+		
+		byte[] body = result.getResponse().getContentAsByteArray();
+		assertThat(new ObjectMapper(new CBORFactory()).readValue(body, String.class)).contains(isbn);
+	}
+	
+	@Test
+	void whenGetBooksAsProtobufThenShouldReturnBookList() throws Exception {
+		Book book = new Book(42L, "7373731394", "Title", "Author", 9.90, "Polarsophia", null, null, null, null, 1);
+		given(this.bookService.viewBookPage(0L, 1)).willReturn(new SliceImpl<>(List.of(book), PageRequest.ofSize(1), true));
+		MvcResult result = this.mockMvc
+			.perform(get("/books").param("limit", "1").accept(BinaryFormats.PROTOBUF_VALUE))
+			.andExpect(status().isOk())
+			.andExpect(content().contentType(BinaryFormats.PROTOBUF_VALUE))
+			.andExpect(header().string(BookController.LINK, containsString("rel=\"next\"")))
+			.andReturn();
+		
+		CodedInputStream body = CodedInputStream.newInstance(result.getResponse().getContentAsByteArray());
+		assertThat(BookProtobuf.readBookList(body)).containsExactly(book);
+	}
+	
+	@Test
+	void whenPostBookAsProtobufWithEmployeeRoleThenShouldReturn201() throws Exception {
+		Book bookToCreate = Book.of("7373731399", "Title", "Author", 9.90, "Polarsophia");
+		given(this.bookService.addBookToCatalog(bookToCreate)).willReturn(bookToCreate);
+		MvcResult result = this.mockMvc
+			.perform(post("/books")
+				.contentType(BinaryFormats.PROTOBUF_VALUE)
+				.accept(BinaryFormats.PROTOBUF_VALUE)
+				.content(toProtobuf(bookToCreate))
+				.with(jwt().authorities(new SimpleGrantedAuthority(ROLE_EMPLOYEE)))
+			)
+			.andExpect(status().isCreated())
+			.andReturn();
+		
+		CodedInputStream body = CodedInputStream.newInstance(result.getResponse().getContentAsByteArray());
+		assertThat(BookProtobuf.readBook(body)).isEqualTo(bookToCreate);
+	}
+	
+	@Test
+	void whenPostInvalidBookAsCborThenShouldReturnCborValidationErrors() throws Exception {
+		Book bookToCreate = Book.of("123", "Title", "Author", 9.90, "Polarsophia");
+		ObjectMapper cborMapper = this.binaryFormats.getCborMapper();
+		MvcResult result = this.mockMvc
+			.perform(post("/books")
+				.contentType(MediaType.APPLICATION_CBOR)
+				.accept(MediaType.APPLICATION_CBOR)
+				.content(cborMapper.writeValueAsBytes(bookToCreate))
+				.with(jwt().authorities(new SimpleGrantedAuthority(ROLE_EMPLOYEE)))
+			)
+			.andExpect(status().isBadRequest())
+			.andReturn();
+		
+		Map<String, String> errors = cborMapper.readValue(result.getResponse().getContentAsByteArray(), new TypeReference<>() {});
+		assertThat(errors).containsKey("isbn");
+	}
+	
 	@Test
 	void whenGetBookExistingAndAuthenticatedThenShouldReturn200() throws Exception {
 		String isbn = "7373731394";
@@ -187,4 +499,12 @@ public class BookControllerMvcTests {
 			)
 			.andExpect(status().isUnauthorized());
 	}
+	
+	private static byte[] toProtobuf(Book book) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		CodedOutputStream output = CodedOutputStream.newInstance(bytes);
+		BookProtobuf.writeBook(output, book);
+		output.flush();
+		return bytes.toByteArray();
+	}
 }
@@ -0,0 +1,101 @@
+package com.polarbookshop.catalogservice.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.polarbookshop.catalogservice.config.PolarProperties;
+import com.polarbookshop.catalogservice.domain.Book;
+import com.polarbookshop.catalogservice.domain.BookChange;
+import com.polarbookshop.catalogservice.domain.BookChangeType;
+import com.polarbookshop.catalogservice.domain.BookChangesCommittedEvent;
+
+public class BookEventBroadcasterTest {
+	// Sends are queued here and never run, as if every subscriber had stopped reading
+	private final List<Runnable> pendingSends = new ArrayList<>();
+	private final PolarProperties.Events properties = new PolarProperties.Events();
+	
+	@Test
+	void whenSubscriberFallsBehindThenDisconnected() {
+		this.properties.setQueueCapacity(2);
+		BookEventBroadcaster broadcaster = broadcaster();
+		broadcaster.subscribe(null);
+		
+		publish(broadcaster, 1L, "1234567891");
+		publish(broadcaster, 2L, "1234567892");
+		assertThat(broadcaster.subscriberCount()).isEqualTo(1);
+		publish(broadcaster, 3L, "1234567893");
+		
+		assertThat(broadcaster.subscriberCount()).isZero();
+	}
+	
+	@Test
+	void whenMaxSubscribersReachedThenRejected() {
+		this.properties.setMaxSubscribers(1);
+		BookEventBroadcaster broadcaster = broadcaster();
+		broadcaster.subscribe(null);
+		
+		assertThatThrownBy(() -> broadcaster.subscribe(null)).isInstanceOf(TooManySubscribersException.class);
+	}
+	
+	@Test
+	void whenReconnectingWithLastEventIdThenMissedEventsReplayed() {
+		BookEventBroadcaster broadcaster = broadcaster();
+		broadcaster.subscribe(null);
+		publish(broadcaster, 5L, "1234567891");
+		publish(broadcaster, 7L, "1234567892");
+		publish(broadcaster, 6L, "1234567893");
+		
+		List<BookEventBroadcaster.OutboundEvent> backlog = broadcaster.backlog(PageCursor.encode(5L));
+		
+		assertThat(backlog).extracting(BookEventBroadcaster.OutboundEvent::id)
+			.containsExactly(PageCursor.encode(7L), PageCursor.encode(6L));
+		assertThat(backlog.get(0).name()).isEqualTo("updated");
+		assertThat(backlog.get(0).data())
+			.contains("\"sequence\":7", "\"isbn\":\"1234567892\"", "\"title\":\"Title\"");
+		assertThat(broadcaster.backlog(PageCursor.encode(6L))).isEmpty();
+	}
+	
+	@Test
+	void whenMissedEventsNoLongerKeptThenResyncFromLastEvent() {
+		this.properties.setReplayCapacity(2);
+		BookEventBroadcaster broadcaster = broadcaster();
+		publish(broadcaster, 1L, "1234567891");
+		publish(broadcaster, 2L, "1234567892");
+		publish(broadcaster, 3L, "1234567893");
+		
+		assertThat(broadcaster.backlog(PageCursor.encode(1L))).hasSize(2);
+		assertThat(broadcaster.backlog(PageCursor.encode(0L)))
+			.extracting(BookEventBroadcaster.OutboundEvent::name, BookEventBroadcaster.OutboundEvent::data)
+			.containsExactly(tuple(BookEventBroadcaster.RESYNC_EVENT, "{\"since\":\"" + PageCursor.encode(0L) + "\"}"));
+	}
+	
+	@Test
+	void whenLastEventIdUnknownThenResync() {
+		BookEventBroadcaster broadcaster = broadcaster();
+		publish(broadcaster, 1L, "1234567891");
+		
+		assertThat(broadcaster.backlog(PageCursor.encode(9L)))
+			.extracting(BookEventBroadcaster.OutboundEvent::name).containsExactly(BookEventBroadcaster.RESYNC_EVENT);
+		assertThat(broadcaster.backlog("not-an-event-id"))
+			.extracting(BookEventBroadcaster.OutboundEvent::name, BookEventBroadcaster.OutboundEvent::data)
+			.containsExactly(tuple(BookEventBroadcaster.RESYNC_EVENT, "{}"));
+	}
+	
+	private BookEventBroadcaster broadcaster() {
+		return new BookEventBroadcaster(this.properties, new ObjectMapper(),
+			isbns -> isbns.stream().map(isbn -> Book.of(isbn, "Title", "Author", 9.90, "Polarsophia")).toList(),
+			this.pendingSends::add);
+	}
+	
+	private static void publish(BookEventBroadcaster broadcaster, long sequence, String isbn) {
+		broadcaster.onBookChangesCommitted(new BookChangesCommittedEvent(
+			List.of(new BookChange(sequence, BookChangeType.UPDATED, isbn, null))));
+	}
+}
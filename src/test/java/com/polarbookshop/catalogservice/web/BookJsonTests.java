@@ -3,17 +3,26 @@ package com.polarbookshop.catalogservice.web;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.time.Instant;
+import java.util.List;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.json.JsonTest;
 import org.springframework.boot.test.json.JacksonTester;
 import org.springframework.boot.test.json.JsonContent;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.polarbookshop.catalogservice.domain.Book;
 
 @JsonTest
 public class BookJsonTests {
+	// The mapping Spring Boot applies to records when no custom serializer is registered
+	private final ObjectMapper reflectiveMapper = Jackson2ObjectMapperBuilder.json()
+		.featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+		.build();
+	
 	@Autowired
 	private JacksonTester<Book> json;
 	
@@ -57,4 +66,42 @@ public class BookJsonTests {
 			.usingRecursiveComparison()
 			.isEqualTo(new Book(394L, "1234567890", "Title", "Author", 9.90, "Polarsophia", instant, instant, "jenny", "eline", 21));
 	}
+	
+	@Test
+	void serializationIsIdenticalToReflectiveMapping() throws Exception {
+		List<Book> books = List.of(
+			new Book(394L, "1234567890", "Title", "Author", 9.90, "Polarsophia",
+				Instant.parse("2021-09-07T22:50:37.135029Z"), Instant.parse("2021-09-07T22:50:37Z"), "jenny", "eline", 21),
+			new Book(1L, "1234567891", "Tit\"le \u00e6\u00f8\u00e5 \uD83D\uDCDA", "Au\\thor\n", 0.05, null,
+				Instant.parse("1969-12-31T23:59:59.999Z"), Instant.parse("2038-01-19T03:14:07.000000001Z"), null, null, 0),
+			new Book(2L, "1234567892", "Title", "Author", 1234567.89, "Polarsophia", Instant.EPOCH, null, "jenny", null, 7),
+			new Book(3L, "1234567893", "Title", "Author", 12345678.9, "Polarsophia", null, null, null, null, 1),
+			new Book(4L, "1234567894", "Title", "Author", 0.001, "Polarsophia", null, null, null, null, 1),
+			new Book(5L, "1234567895", "Title", "Author", 1.0 / 3, "Polarsophia", null, null, null, null, 1),
+			Book.of("1234567896", "Title", "Author", null, "Polarsophia")
+		);
+		for (Book book : books) {
+			assertThat(json.write(book).getJson()).isEqualTo(this.reflectiveMapper.writeValueAsString(book));
+		}
+		for (int cents = 1; cents <= 100_000; cents++) {
+			Book book = new Book(394L, "1234567890", "Title", "Author", cents / 100.0, null, null, null, null, null, 1);
+			assertThat(json.write(book).getJson()).isEqualTo(this.reflectiveMapper.writeValueAsString(book));
+		}
+	}
+	
+	@Test
+	void deserializationAcceptsWhatReflectiveMappingAccepts() throws Exception {
+		String content = """
+			{
+				"id": "394",
+				"isbn": "1234567890",
+				"unknown": { "nested": [1, 2] },
+				"price": "9.90",
+				"createdDate": "2021-09-08T00:50:37.135029+02:00",
+				"lastModifiedDate": 1631055037.135029000,
+				"version": null
+			}
+			""";
+		assertThat(json.parseObject(content)).isEqualTo(this.reflectiveMapper.readValue(content, Book.class));
+	}
 }
@@ -0,0 +1,47 @@
+package com.polarbookshop.catalogservice.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.polarbookshop.catalogservice.domain.Book;
+
+public class BookProtobufTest {
+	private static final Instant CREATED = Instant.parse("2022-09-01T10:15:30.123456Z");
+	
+	@Test
+	void whenBookWrittenThenReadBackUnchanged() throws IOException {
+		Book book = new Book(42L, "1234567890", "Northern Lights", "Lyra Silverstar", 9.90, "Polarsophia",
+			CREATED, CREATED.plusSeconds(60), "jon", "bjorn", 3);
+		
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		CodedOutputStream output = CodedOutputStream.newInstance(bytes);
+		BookProtobuf.writeBook(output, book);
+		output.flush();
+		
+		assertThat(bytes.size()).isEqualTo(BookProtobuf.bookSize(book));
+		assertThat(BookProtobuf.readBook(CodedInputStream.newInstance(bytes.toByteArray()))).isEqualTo(book);
+	}
+	
+	@Test
+	void whenBookListWithMissingFieldsWrittenThenReadBackWithNulls() throws IOException {
+		List<Book> books = List.of(
+			Book.of("1234567891", "Title", "Author", 9.90, null),
+			Book.of("1234567892", "Another Title", "Another Author", 12.90, "Polarsophia")
+		);
+		
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		CodedOutputStream output = CodedOutputStream.newInstance(bytes);
+		BookProtobuf.writeBookList(output, books);
+		output.flush();
+		
+		assertThat(BookProtobuf.readBookList(CodedInputStream.newInstance(bytes.toByteArray()))).isEqualTo(books);
+	}
+}
@@ -0,0 +1,36 @@
+package com.polarbookshop.catalogservice.web;
+
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+@ExtendWith(MockitoExtension.class)
+public class BookRouterTest {
+	@Mock
+	private BookHandler handler;
+	
+	private WebTestClient webTestClient;
+	
+	@BeforeEach
+	void setUp() {
+		this.webTestClient = WebTestClient.bindToRouterFunction(new BookRouter().bookRoutes(this.handler)).build();
+	}
+	
+	@Test
+	void whenGetServletOnlyEndpointThenNotImplemented() {
+		for (String path : new String[] { "/books/search", "/books/suggest", "/books/changes", "/books/events" }) {
+			this.webTestClient
+				.get()
+				.uri(path)
+				.exchange()
+				.expectStatus().isEqualTo(HttpStatus.NOT_IMPLEMENTED);
+		}
+		verifyNoInteractions(this.handler);
+	}
+}
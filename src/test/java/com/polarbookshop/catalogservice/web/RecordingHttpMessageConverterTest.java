@@ -0,0 +1,52 @@
+package com.polarbookshop.catalogservice.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import com.polarbookshop.catalogservice.domain.Book;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public class RecordingHttpMessageConverterTest {
+	@TempDir
+	Path tempDir;
+	
+	@Test
+	@SuppressWarnings("unchecked")
+	void whenBookWrittenThenSerializationRecorded() throws Exception {
+		HttpMessageConverter<Object> converter = (HttpMessageConverter<Object>) RecordingHttpMessageConverter.wrap(new MappingJackson2CborHttpMessageConverter());
+		MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
+		Path file = this.tempDir.resolve("recording.jfr");
+		
+		try (Recording recording = new Recording()) {
+			recording.enable("polar.CatalogSerialization").withoutThreshold();
+			recording.start();
+			converter.write(Book.of("1234567890", "Title", "Author", 9.90, "Polarsophia"), MediaType.APPLICATION_CBOR, outputMessage);
+			converter.write("Not a book", MediaType.APPLICATION_CBOR, new MockHttpOutputMessage());
+			recording.stop();
+			recording.dump(file);
+		}
+		
+		List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+		assertThat(events)
+			.filteredOn(recorded -> recorded.getEventType().getName().equals("polar.CatalogSerialization"))
+			.singleElement()
+			.satisfies(recorded -> {
+				assertThat(recorded.getString("operation")).isEqualTo("book");
+				assertThat(recorded.getString("format")).isEqualTo(MediaType.APPLICATION_CBOR_VALUE);
+				assertThat(recorded.getString("isbn")).isEqualTo("1234567890");
+				assertThat(recorded.getLong("size")).isEqualTo(outputMessage.getBodyAsBytes().length);
+			});
+	}
+}